@@ -0,0 +1,43 @@
+#!/bin/bash
+# Startup time and resident memory of the default image and the appcds image, built from the same jar.
+# Usage: mvn -Pappcds package && ./measureStartup.sh [runs]
+set -euo pipefail
+
+RUNS=${1:-5}
+SETTINGS=(
+  -e EVASYS_URI=http://localhost/evasys
+  -e EVASYS_USERNAME=startup
+  -e EVASYS_PASSWORD=startup
+  -e EVASYS_DEFAULT_TEILBEREICH_ID=1
+  -e EVASYS_NOTIFICATION_FROM=startup@localhost
+  -e SAPPO_URI=/ws/training
+  -e SAPPO_USERNAME=startup
+  -e SAPPO_PASSWORD=startup
+  -e SPRING_MAIL_HOST=localhost
+)
+
+docker build -q -t evasys-eai:startup-default . > /dev/null
+docker build -q --target appcds -t evasys-eai:startup-appcds . > /dev/null
+
+echo "image run ready_ms jvm_started_s rss_mb"
+for image in default appcds; do
+  for run in $(seq "$RUNS"); do
+    start=$(date +%s%N)
+    container=$(docker run -d -p 127.0.0.1::8080 "${SETTINGS[@]}" "evasys-eai:startup-$image")
+    port=$(docker port "$container" 8080 | head -n 1 | cut -d: -f2)
+    # time until the readiness probe answers, as seen by the orchestrator
+    until curl -fs -o /dev/null "http://127.0.0.1:$port/actuator/health/readiness"; do
+      if [ "$(docker inspect -f '{{.State.Running}}' "$container")" != "true" ]; then
+        docker logs "$container" >&2
+        exit 1
+      fi
+      sleep 0.05
+    done
+    ready=$((($(date +%s%N) - start) / 1000000))
+    started=$(docker logs "$container" 2>&1 | grep -o 'process running for [0-9.]*' | grep -o '[0-9.]*$' || echo "-")
+    rss=$(docker exec "$container" grep VmRSS /proc/1/status | awk '{ printf "%.1f", $2 / 1024 }')
+    docker rm -f "$container" > /dev/null
+    echo "$image $run $ready $started $rss"
+  done
+done | tee /dev/stderr | awk '{ ready[$1] += $3; rss[$1] += $5; n[$1]++ }
+  END { for (image in n) printf "%s: mean ready %.0f ms, mean RSS %.1f MB over %d runs\n", image, ready[image] / n[image], rss[image] / n[image], n[image] }'
@@ -0,0 +1,89 @@
+package de.muenchen.evasys.benchmark;
+
+import de.muenchen.evasys.configuration.EvasysClientConfiguration;
+import de.muenchen.evasys.configuration.EvasysProperties;
+import de.muenchen.evasys.configuration.HttpTransportProperties;
+import de.muenchen.evasys.stub.EvasysStubServer;
+import jakarta.xml.ws.Holder;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import wsdl.soapserver_v100.Course;
+import wsdl.soapserver_v100.SoapPort;
+import wsdl.soapserver_v100.SoapfaultMessage;
+import wsdl.soapserver_v100.User;
+import wsdl.soapserver_v100.UserList;
+
+// UpdateCourse round trips against the local stub, with the auth header added by the
+// JAX-WS handler (SAAJ DOM) or by the streaming CXF interceptor; the request grows with
+// the number of secondary instructors
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthHeaderBenchmark {
+
+    @Param({ "handler", "interceptor" })
+    private String authHeader;
+
+    @Param({ "0", "100", "1000" })
+    private int secondaryInstructors;
+
+    private EvasysStubServer stub;
+    private SoapPort soapPort;
+    private Course course;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stub = EvasysStubServer.start();
+        final HttpTransportProperties httpProperties = new HttpTransportProperties(true, Duration.ofHours(1));
+        soapPort = new EvasysClientConfiguration().evasysSoapPort(
+                new EvasysProperties(stub.address(), "benchmark", "benchmark", Duration.ofSeconds(10), Duration.ofSeconds(30), "1",
+                        "interceptor".equals(authHeader), EvasysProperties.ServiceModel.WSDL),
+                httpProperties);
+
+        course = new Course();
+        course.setMSPubCourseId("4711");
+        course.setMSCourseTitle("Konfliktmanagement für Führungskräfte");
+        course.setMNFbid(3);
+        final UserList instructors = new UserList();
+        for (int i = 0; i < secondaryInstructors; i++) {
+            final User instructor = new User();
+            instructor.setMNId(i);
+            instructor.setMSExternalId(String.valueOf(100_000 + i));
+            instructor.setMSFirstName("Änne");
+            instructor.setMSSurName("Müller-Lüdenscheidt");
+            instructor.setMSEmail("aenne.mueller." + i + "@muenchen.de");
+            instructor.setMNFbid(3);
+            instructors.getUsers().add(instructor);
+        }
+        course.setMAoSecondaryInstructors(instructors);
+        stub.store().addCourse(course);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stub.close();
+    }
+
+    @Benchmark
+    public Course updateCourse() throws SoapfaultMessage {
+        final Holder<Course> holder = new Holder<>(course);
+        soapPort.updateCourse(holder, false);
+        return holder.value;
+    }
+}
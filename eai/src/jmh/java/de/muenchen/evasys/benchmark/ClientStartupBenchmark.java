@@ -0,0 +1,81 @@
+package de.muenchen.evasys.benchmark;
+
+import de.muenchen.evasys.configuration.EvasysClientConfiguration;
+import de.muenchen.evasys.configuration.EvasysProperties;
+import de.muenchen.evasys.configuration.HttpTransportProperties;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import wsdl.soapserver_v100.SoapPort;
+
+// creation of the evasys client in a fresh JVM, as at application startup, with the service
+// model parsed from the WSDL or built from the annotations of the generated interface
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class ClientStartupBenchmark {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    @Param({ "WSDL", "ANNOTATIONS" })
+    private EvasysProperties.ServiceModel serviceModel;
+
+    private EvasysProperties properties;
+    private HttpTransportProperties httpProperties;
+    private SoapPort soapPort;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        properties = new EvasysProperties("http://localhost:8080/evasys", "benchmark", "benchmark",
+                Duration.ofSeconds(10), Duration.ofSeconds(30), "1", false, serviceModel);
+        httpProperties = new HttpTransportProperties(true, Duration.ofHours(1));
+    }
+
+    @Benchmark
+    public SoapPort createClient(final RetainedHeap retainedHeap) {
+        soapPort = new EvasysClientConfiguration().evasysSoapPort(properties, httpProperties);
+        return soapPort;
+    }
+
+    // heap still in use after the client was created, the client itself stays referenced
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RetainedHeap {
+
+        public long retainedKilobytes;
+        private long usedBefore;
+
+        @Setup(Level.Iteration)
+        public void before() {
+            usedBefore = usedAfterGc();
+        }
+
+        @TearDown(Level.Iteration)
+        public void after() {
+            retainedKilobytes = (usedAfterGc() - usedBefore) / 1024;
+        }
+
+        private static long usedAfterGc() {
+            System.gc();
+            return MEMORY.getHeapMemoryUsage().getUsed();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package de.muenchen.evasys.benchmark;
+
+import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
+import de.muenchen.evasys.mapper.SapEvasysMapper;
+import de.muenchen.evasys.model.SecondaryTrainer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import wsdl.soapserver_v100.Course;
+import wsdl.soapserver_v100.CourseCreator;
+import wsdl.soapserver_v100.User;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    private static final int ITEMS = 256;
+
+    @Param({ "0", "3", "10" })
+    private int secondaryTrainers;
+
+    private SapEvasysMapper mapper;
+    private ZLSOSTEVASYSRFC[] items;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mapper = Mappers.getMapper(SapEvasysMapper.class);
+        items = new ZLSOSTEVASYSRFC[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            items[i] = TrainingDataFixtures.normalized(i, secondaryTrainers);
+        }
+    }
+
+    private ZLSOSTEVASYSRFC nextItem() {
+        next = (next + 1) % ITEMS;
+        return items[next];
+    }
+
+    @Benchmark
+    public User mapToTrainer() {
+        return mapper.mapToTrainer(nextItem());
+    }
+
+    @Benchmark
+    public void mapToSecondaryTrainers(final Blackhole blackhole) {
+        final ZLSOSTEVASYSRFC item = nextItem();
+        for (final SecondaryTrainer secondaryTrainer : SecondaryTrainer.fromTrainingData(item)) {
+            blackhole.consume(mapper.mapToSecondaryTrainer(secondaryTrainer, item));
+        }
+    }
+
+    @Benchmark
+    public List<SecondaryTrainer> splitSecondaryTrainers() {
+        return SecondaryTrainer.fromTrainingData(nextItem());
+    }
+
+    @Benchmark
+    public Course mapToCourse() {
+        return mapper.mapToCourse(nextItem());
+    }
+
+    @Benchmark
+    public CourseCreator mapToCourseCreator() {
+        return mapper.mapToCourseCreator(nextItem());
+    }
+}
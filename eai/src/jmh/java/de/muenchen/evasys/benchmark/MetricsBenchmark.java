@@ -0,0 +1,87 @@
+package de.muenchen.evasys.benchmark;
+
+import de.muenchen.evasys.service.MetricsService;
+import de.muenchen.evasys.service.MetricsService.EventType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// per-event cost of MetricsService compared to resolving the counter on every event
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsBenchmark {
+
+    private static final EventType[] EVENT_TYPES = EventType.values();
+
+    private PrometheusMeterRegistry meterRegistry;
+    private MetricsService metricsService;
+
+    @State(Scope.Thread)
+    public static class EventCursor {
+        private int next;
+
+        EventType nextEventType() {
+            next = (next + 1) % EVENT_TYPES.length;
+            return EVENT_TYPES[next];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        metricsService = new MetricsService(meterRegistry);
+    }
+
+    @Benchmark
+    public void recordEvent(final EventCursor cursor) {
+        metricsService.recordEvent(cursor.nextEventType());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordEventContended(final EventCursor cursor) {
+        metricsService.recordEvent(cursor.nextEventType());
+    }
+
+    // the former implementation of recordEvent
+    @Benchmark
+    public void lookupPerEvent(final EventCursor cursor) {
+        lookUpCounter(cursor.nextEventType()).increment();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void lookupPerEventContended(final EventCursor cursor) {
+        lookUpCounter(cursor.nextEventType()).increment();
+    }
+
+    @Benchmark
+    public void itemStartedAndFinished() {
+        metricsService.itemFinished(metricsService.itemStarted());
+    }
+
+    private Counter lookUpCounter(final EventType eventType) {
+        return Counter.builder("evasys.events")
+                .tags("event_type", eventType.name().toLowerCase(Locale.ROOT))
+                .description("All events related to evasys processing")
+                .register(meterRegistry);
+    }
+}
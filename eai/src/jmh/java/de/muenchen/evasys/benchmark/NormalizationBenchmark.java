@@ -0,0 +1,62 @@
+package de.muenchen.evasys.benchmark;
+
+import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
+import de.muenchen.evasys.configuration.EvasysProperties;
+import de.muenchen.evasys.service.TrainingDataNormalizationService;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NormalizationBenchmark {
+
+    private static final int ITEMS = 256;
+
+    private TrainingDataNormalizationService normalizationService;
+    private ZLSOSTEVASYSRFC[] items;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        normalizationService = new TrainingDataNormalizationService(new EvasysProperties(
+                "http://localhost", "benchmark", "benchmark", Duration.ofSeconds(10), Duration.ofSeconds(30), "1", false,
+                EvasysProperties.ServiceModel.WSDL));
+        items = new ZLSOSTEVASYSRFC[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            items[i] = TrainingDataFixtures.raw(i, 3);
+        }
+    }
+
+    private ZLSOSTEVASYSRFC nextItem() {
+        next = (next + 1) % ITEMS;
+        return items[next];
+    }
+
+    // baseline for the copy that normalize() below has to pay for as well
+    @Benchmark
+    public ZLSOSTEVASYSRFC copy() {
+        return TrainingDataFixtures.copyForNormalization(nextItem());
+    }
+
+    @Benchmark
+    public ZLSOSTEVASYSRFC normalize() {
+        final ZLSOSTEVASYSRFC item = TrainingDataFixtures.copyForNormalization(nextItem());
+        normalizationService.normalize(item);
+        return item;
+    }
+}
@@ -0,0 +1,105 @@
+package de.muenchen.evasys.benchmark;
+
+import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
+import java.util.StringJoiner;
+
+// synthetic items shaped like the ones SAP-PO delivers: padded codes, umlauts in names
+// and titles and a variable number of secondary trainers
+final class TrainingDataFixtures {
+
+    private static final String[] FIRST_NAMES = { "Jürgen", "Änne", "Maximilian", "Zoë", "Sören", "Birgit" };
+    private static final String[] LAST_NAMES = { "Müller", "Schönberger", "Huber-Öztürk", "Weiß", "Gruber", "Strauß" };
+
+    private TrainingDataFixtures() {
+    }
+
+    // as received from SAP-PO, before normalization
+    static ZLSOSTEVASYSRFC raw(final int index, final int secondaryTrainers) {
+        return trainingData(index, secondaryTrainers, true);
+    }
+
+    // as handed to the mapper after normalization
+    static ZLSOSTEVASYSRFC normalized(final int index, final int secondaryTrainers) {
+        return trainingData(index, secondaryTrainers, false);
+    }
+
+    private static ZLSOSTEVASYSRFC trainingData(final int index, final int secondaryTrainers, final boolean padded) {
+        final ZLSOSTEVASYSRFC trainingData = new ZLSOSTEVASYSRFC();
+        trainingData.setTRAININGID(String.format("%08d", 10_000_000 + index));
+        trainingData.setTRAININGTITEL("Führungskräfteentwicklung – Konfliktmanagement im Öffentlichen Dienst, Modul " + index % 12);
+        trainingData.setTRAININGSTYPKUERZEL("FKE");
+        trainingData.setTRAININGART(pad("1", padded));
+        trainingData.setTRAININGBEGINN("2026-03-02");
+        trainingData.setTRAININGENDE("2026-03-04");
+        trainingData.setTRAININGDAUERTAGE("3");
+        trainingData.setTRAININGDAUERSTD("24");
+        trainingData.setTRAININGRAUM("Raum 3.14, Bildungszentrum Marienplatz");
+        trainingData.setTRAININGTNANZAHL(pad("16", padded));
+        trainingData.setTRAININGTEILBEREICH("Personal- und Organisationsreferat");
+        trainingData.setTEILBEREICHID(pad(String.valueOf(index % 40 + 1), padded));
+        trainingData.setVAVNAME(firstName(index + 1));
+        trainingData.setVANNAME(lastName(index + 1));
+        trainingData.setSBVNAME(firstName(index + 2));
+        trainingData.setSBNNAME(lastName(index + 2));
+        trainingData.setTRAINERGESCHL("w");
+        trainingData.setTRAINEROBJTYP("P");
+        trainingData.setTRAINER1ID(String.format("%08d", 20_000_000 + index));
+        trainingData.setTRAINER1ANREDE("2");
+        trainingData.setTRAINER1TITEL("Dr.");
+        trainingData.setTRAINER1VNAME(firstName(index));
+        trainingData.setTRAINER1NNAME(lastName(index));
+        trainingData.setTRAINER1MAIL(mail(index));
+        trainingData.setFIRMA("Landeshauptstadt München");
+        if (secondaryTrainers > 0) {
+            final StringJoiner ids = new StringJoiner(";");
+            final StringJoiner addresses = new StringJoiner(";");
+            final StringJoiner titles = new StringJoiner(";");
+            final StringJoiner firstNames = new StringJoiner(";");
+            final StringJoiner lastNames = new StringJoiner(";");
+            final StringJoiner mails = new StringJoiner(";");
+            for (int i = 1; i <= secondaryTrainers; i++) {
+                ids.add(pad(String.format("%08d", 30_000_000 + index * 16 + i), padded));
+                addresses.add(String.valueOf(i % 2 + 1));
+                titles.add(i % 3 == 0 ? "Prof." : "");
+                firstNames.add(firstName(index + i));
+                lastNames.add(lastName(index + i));
+                mails.add(mail(index + i));
+            }
+            trainingData.setSEKTRAINERID(ids.toString());
+            trainingData.setSEKTRAINERANREDE(addresses.toString());
+            trainingData.setSEKTRAINERTITEL(titles.toString());
+            trainingData.setSEKTRAINERVNAME(firstNames.toString());
+            trainingData.setSEKTRAINERNNAME(lastNames.toString());
+            trainingData.setSEKTRAINERMAIL(mails.toString());
+        }
+        return trainingData;
+    }
+
+    // normalization mutates its input, so each invocation works on a fresh copy of the
+    // fields it reads or writes
+    static ZLSOSTEVASYSRFC copyForNormalization(final ZLSOSTEVASYSRFC source) {
+        final ZLSOSTEVASYSRFC copy = new ZLSOSTEVASYSRFC();
+        copy.setTRAININGID(source.getTRAININGID());
+        copy.setTRAININGART(source.getTRAININGART());
+        copy.setTRAININGTNANZAHL(source.getTRAININGTNANZAHL());
+        copy.setTEILBEREICHID(source.getTEILBEREICHID());
+        copy.setTRAINER1ID(source.getTRAINER1ID());
+        return copy;
+    }
+
+    private static String pad(final String value, final boolean padded) {
+        return padded ? "  " + value + " " : value;
+    }
+
+    private static String firstName(final int index) {
+        return FIRST_NAMES[index % FIRST_NAMES.length];
+    }
+
+    private static String lastName(final int index) {
+        return LAST_NAMES[index % LAST_NAMES.length];
+    }
+
+    private static String mail(final int index) {
+        return firstName(index).toLowerCase() + "." + lastName(index).toLowerCase() + "@muenchen.de";
+    }
+}
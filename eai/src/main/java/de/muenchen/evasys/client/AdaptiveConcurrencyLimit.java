@@ -0,0 +1,94 @@
+package de.muenchen.evasys.client;
+
+import de.muenchen.evasys.configuration.ConcurrencyLimitProperties;
+import de.muenchen.evasys.exception.EvasysException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// AIMD limit of the calls in flight to evasys: grows by one per limit's worth of fast
+// calls while it is in use and shrinks by the backoff ratio on every slow or failed call
+final class AdaptiveConcurrencyLimit {
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final long acquireTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition released = lock.newCondition();
+    private double limit;
+    private int inFlight;
+
+    AdaptiveConcurrencyLimit(final ConcurrencyLimitProperties properties) {
+        this.enabled = properties.enabled();
+        this.minLimit = properties.minLimit();
+        this.maxLimit = Math.max(properties.minLimit(), properties.maxLimit());
+        this.latencyThresholdNanos = properties.latencyThreshold().toNanos();
+        this.backoffRatio = properties.backoffRatio();
+        this.acquireTimeoutNanos = properties.acquireTimeout().toNanos();
+        this.limit = Math.clamp(properties.initialLimit(), minLimit, maxLimit);
+    }
+
+    void acquire() {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            long remaining = acquireTimeoutNanos;
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0) {
+                    throw new EvasysException("Timed out waiting for the evasys concurrency limit of " + (int) limit);
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+            inFlight++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EvasysException("Interrupted while waiting for the evasys concurrency limit", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(final long latencyNanos, final boolean failed) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            // only a limit that is actually used may grow, otherwise it drifts up while idle
+            final boolean saturated = inFlight * 2 >= limit;
+            inFlight--;
+            if (failed || latencyNanos > latencyThresholdNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (saturated) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int limit() {
+        lock.lock();
+        try {
+            return enabled ? (int) limit : maxLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
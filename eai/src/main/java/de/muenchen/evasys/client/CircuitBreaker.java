@@ -0,0 +1,96 @@
+package de.muenchen.evasys.client;
+
+import de.muenchen.evasys.configuration.CircuitBreakerProperties;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// opens after consecutive calls that found evasys unavailable, then lets a single trial
+// call through once the open duration has passed
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private final boolean enabled;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final LongSupplier nanoTime;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    CircuitBreaker(final CircuitBreakerProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    CircuitBreaker(final CircuitBreakerProperties properties, final LongSupplier nanoTime) {
+        this.enabled = properties.enabled();
+        this.failureThreshold = properties.failureThreshold();
+        this.openDurationNanos = properties.openDuration().toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    synchronized boolean tryAcquire() {
+        if (!enabled) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (nanoTime.getAsLong() - openedAt < openDurationNanos) {
+                return false;
+            }
+            LOGGER.info("evasys circuit breaker half-open, sending a trial call");
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    // evasys answered, whether with a result or a SOAP fault
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        if (state == State.HALF_OPEN) {
+            LOGGER.info("evasys circuit breaker closed");
+            state = State.CLOSED;
+        }
+    }
+
+    // evasys timed out, refused the connection or answered with an HTML error page
+    synchronized void onFailure() {
+        if (!enabled) {
+            return;
+        }
+        consecutiveFailures++;
+        trialInFlight = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                LOGGER.warn("evasys circuit breaker opened after {} consecutive failure(s)", consecutiveFailures);
+            }
+            state = State.OPEN;
+            openedAt = nanoTime.getAsLong();
+        }
+    }
+
+    // the call failed on our side, so it tells nothing about evasys
+    synchronized void onIgnored() {
+        trialInFlight = false;
+    }
+
+    synchronized State state() {
+        return state;
+    }
+}
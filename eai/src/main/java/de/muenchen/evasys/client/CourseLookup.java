@@ -0,0 +1,73 @@
+package de.muenchen.evasys.client;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+import wsdl.soapserver_v100.Course;
+
+// remembers the courses fetched while processing one batch of items, so the existence check
+// and the update of a course share one GetCourse call; ERR_312 is remembered as absent.
+// An optional index of the batch's course IDs answers existence checks without any GetCourse.
+public final class CourseLookup {
+
+    private enum Existence {
+        EXISTING,
+        ABSENT,
+        UNKNOWN
+    }
+
+    private final Map<Integer, Optional<Course>> courses = new ConcurrentHashMap<>();
+    // filled once before the items are processed, read-only afterwards
+    private volatile IntHashSet indexed;
+    private volatile IntHashSet existing;
+    private final Set<Integer> written = ConcurrentHashMap.newKeySet();
+
+    Optional<Course> find(final int courseId, final IntFunction<Optional<Course>> loader) {
+        final Optional<Course> known = courses.get(courseId);
+        if (known != null) {
+            return known;
+        }
+        // not computeIfAbsent, the SOAP call must not block other courses in the same bin
+        final Optional<Course> loaded = loader.apply(courseId);
+        final Optional<Course> raced = courses.putIfAbsent(courseId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    boolean exists(final int courseId, final IntFunction<Optional<Course>> loader) {
+        final Optional<Course> known = courses.get(courseId);
+        if (known != null) {
+            return known.isPresent();
+        }
+        return switch (indexedExistence(courseId)) {
+        case EXISTING -> true;
+        case ABSENT -> false;
+        case UNKNOWN -> find(courseId, loader).isPresent();
+        };
+    }
+
+    void index(final IntHashSet indexedIds, final IntHashSet existingIds) {
+        this.existing = existingIds;
+        this.indexed = indexedIds;
+    }
+
+    // true if only the index, not GetCourse, says that the course does not exist yet
+    boolean isAbsentByIndex(final int courseId) {
+        return !courses.containsKey(courseId) && indexedExistence(courseId) == Existence.ABSENT;
+    }
+
+    // after writing a course, the next read has to go to evasys again
+    void forget(final int courseId) {
+        written.add(courseId);
+        courses.remove(courseId);
+    }
+
+    private Existence indexedExistence(final int courseId) {
+        final IntHashSet indexedIds = indexed;
+        if (indexedIds == null || !indexedIds.contains(courseId) || written.contains(courseId)) {
+            return Existence.UNKNOWN;
+        }
+        return existing.contains(courseId) ? Existence.EXISTING : Existence.ABSENT;
+    }
+}
@@ -1,17 +1,45 @@
 package de.muenchen.evasys.client;
 
+import static de.muenchen.evasys.client.SoapExecutor.OperationType.READ;
+import static de.muenchen.evasys.client.SoapExecutor.OperationType.WRITE;
+
 import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
+import de.muenchen.evasys.exception.CourseAlreadyExistsException;
 import de.muenchen.evasys.exception.EvasysException;
 import de.muenchen.evasys.mapper.SapEvasysMapper;
 import de.muenchen.evasys.model.SecondaryTrainer;
 import jakarta.xml.ws.Holder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
 import wsdl.soapserver_v100.Course;
+import wsdl.soapserver_v100.CourseCreator;
+import wsdl.soapserver_v100.CourseCreatorList;
 import wsdl.soapserver_v100.CourseIdType;
+import wsdl.soapserver_v100.CourseParams;
+import wsdl.soapserver_v100.CourseSelectField;
+import wsdl.soapserver_v100.CourseSelectFieldList;
+import wsdl.soapserver_v100.InstructorList;
 import wsdl.soapserver_v100.SoapPort;
+import wsdl.soapserver_v100.StringList;
+import wsdl.soapserver_v100.SubunitIdType;
+import wsdl.soapserver_v100.Unit;
+import wsdl.soapserver_v100.UploadStatus;
+import wsdl.soapserver_v100.UploadStatusList;
 import wsdl.soapserver_v100.User;
 import wsdl.soapserver_v100.UserList;
 
@@ -21,6 +49,8 @@ public class EvasysCourseClient extends AbstractEvasysClient {
     private static final Logger LOGGER = LoggerFactory.getLogger(EvasysCourseClient.class);
     private static final String ERR_COURSE_NOT_FOUND = "ERR_312";
     private static final String ERR_COURSE_ALREADY_EXISTS = "ERR_313";
+    private static final String ERR_PREFIX = "ERR_";
+    private static final ObjectMapper JSON_MAPPER = JsonMapper.builder().build();
 
     private final SapEvasysMapper mapper;
     private final EvasysUserClient userClient;
@@ -43,38 +73,139 @@ public class EvasysCourseClient extends AbstractEvasysClient {
     /* ------------------------- READ OPERATIONS ------------------------- */
 
     public Course getCourse(final int courseId) {
+        return findCourse(courseId)
+                .orElseThrow(() -> new EvasysException("No course found for the given id " + courseId));
+    }
+
+    // an unknown course (ERR_312) is an empty result, other errors are thrown
+    private Optional<Course> findCourse(final int courseId) {
         LOGGER.info("Requesting course data...");
         try {
-            return soapExecutor.execute(
+            return Optional.ofNullable(soapExecutor.executeIdempotent(
+                    clientName(),
+                    READ,
                     "requesting course",
                     () -> soapPort.getCourse(
                             String.valueOf(courseId),
                             CourseIdType.PUBLIC,
-                            false, false));
+                            false, false)));
         } catch (EvasysException e) {
             if (ERR_COURSE_NOT_FOUND.equals(extractErrorCode(e))) {
-                throw new EvasysException("No course found for the given id " + courseId, e);
+                return Optional.empty();
             }
             throw e;
         }
     }
 
+    public String getSubunitName(final String subunitId) {
+        final Unit subunit = soapExecutor.executeIdempotent(
+                clientName(),
+                READ,
+                "requesting subunit",
+                () -> soapPort.getSubunit(subunitId, SubunitIdType.INTERNAL, false));
+        if (subunit == null || subunit.getMSName() == null) {
+            throw new EvasysException("No subunit found for the given id " + subunitId);
+        }
+        return subunit.getMSName();
+    }
+
     /* ------------------------- EXISTENCE CHECKS ------------------------- */
 
     public boolean isCourseExisting(final int courseId) {
+        return isCourseExisting(courseId, new CourseLookup());
+    }
+
+    public boolean isCourseExisting(final int courseId, final CourseLookup courses) {
         LOGGER.info("Checking whether course exists...");
         try {
-            return getCourse(courseId) != null;
+            return courses.exists(courseId, this::findCourse);
         } catch (Exception e) {
             LOGGER.warn("Course existence check failed: {}", e.getMessage());
             return false;
         }
     }
 
+    // resolves which courses of a batch exist with one GetCourseIdsByParams call per subunit
+    // instead of one GetCourse per item; the query lists every course of the subunit, so it only
+    // pays off for subunits with at least minItems courses in the batch. Smaller subunits and
+    // subunits whose query fails are left to GetCourse
+    public void indexCourses(final List<ZLSOSTEVASYSRFC> trainings, final CourseLookup courses, final int minItems) {
+        final Map<String, IntHashSet> courseIdsBySubunit = new HashMap<>();
+        for (final ZLSOSTEVASYSRFC trainingData : trainings) {
+            final OptionalInt courseId = parseCourseId(trainingData.getTRAININGID());
+            if (courseId.isPresent() && trainingData.getTEILBEREICHID() != null) {
+                courseIdsBySubunit.computeIfAbsent(trainingData.getTEILBEREICHID(), subunitId -> new IntHashSet(16))
+                        .add(courseId.getAsInt());
+            }
+        }
+
+        final IntHashSet indexed = new IntHashSet(trainings.size());
+        final IntHashSet existing = new IntHashSet(trainings.size());
+        int indexedSubunits = 0;
+        for (final Map.Entry<String, IntHashSet> subunit : courseIdsBySubunit.entrySet()) {
+            if (subunit.getValue().size() < minItems) {
+                continue;
+            }
+            final IntHashSet subunitCourses;
+            try {
+                subunitCourses = getCourseCodes(subunit.getKey());
+            } catch (EvasysException e) {
+                LOGGER.warn("Indexing courses of subunit {} failed, checking them one by one: {}", subunit.getKey(), e.getMessage());
+                continue;
+            }
+            indexedSubunits++;
+            subunit.getValue().forEach(courseId -> {
+                indexed.add(courseId);
+                if (subunitCourses.contains(courseId)) {
+                    existing.add(courseId);
+                }
+            });
+        }
+        LOGGER.info("Indexed {} course(s) of {} subunit(s), {} already exist", indexed.size(), indexedSubunits, existing.size());
+        courses.index(indexed, existing);
+    }
+
+    // the course codes are the public course IDs used for GetCourse; with ExtendedResponseAsJSON
+    // evasys answers with JSON objects holding the selected fields instead of plain course IDs
+    private IntHashSet getCourseCodes(final String subunitId) {
+        final CourseParams params = new CourseParams();
+        params.setSubunits(new StringList());
+        params.getSubunits().getStrings().add(subunitId);
+        params.setSelectFields(new CourseSelectFieldList());
+        params.getSelectFields().getCourseSelectField().add(CourseSelectField.COURSE_CODE);
+        params.setExtendedResponseAsJSON(true);
+        final StringList response = soapExecutor.executeIdempotent(
+                clientName(),
+                READ,
+                "requesting course ids",
+                () -> soapPort.getCourseIdsByParams(params));
+
+        final IntHashSet courseCodes = new IntHashSet(response == null ? 0 : response.getStrings().size());
+        if (response == null) {
+            return courseCodes;
+        }
+        for (final String json : response.getStrings()) {
+            try {
+                final JsonNode node = JSON_MAPPER.readTree(json);
+                for (final JsonNode course : node.isArray() ? node : List.of(node)) {
+                    parseCourseId(course.path(CourseSelectField.COURSE_CODE.value()).asString(null)).ifPresent(courseCodes::add);
+                }
+            } catch (JacksonException e) {
+                throw new EvasysException("Invalid course list of subunit " + subunitId, e);
+            }
+        }
+        return courseCodes;
+    }
+
     /* ------------------------- COURSE HANDLING ------------------------- */
 
     public void insertCourse(final ZLSOSTEVASYSRFC trainingData) {
+        insertCourse(trainingData, new CourseLookup());
+    }
+
+    public void insertCourse(final ZLSOSTEVASYSRFC trainingData, final CourseLookup courses) {
         LOGGER.info("Inserting new course...");
+        final int courseId = courseId(trainingData);
         final User trainer = userClient.getUserByExternalIdAndSubunit(
                 trainingData.getTRAINER1ID(),
                 trainingData.getTEILBEREICHID());
@@ -92,13 +223,22 @@ public class EvasysCourseClient extends AbstractEvasysClient {
             course.setMAoSecondaryInstructors(secondaryTrainerList);
         }
 
+        final boolean absentByIndex = courses.isAbsentByIndex(courseId);
         try {
-            soapExecutor.executeVoid(
+            // a repeated insert is answered with ERR_313, which counts as success below
+            courses.forget(courseId);
+            soapExecutor.executeIdempotentVoid(
+                    clientName(),
+                    WRITE,
                     "inserting course",
                     () -> soapPort.insertCourse(course));
             LOGGER.info("Course with ID {} successfully inserted", trainingData.getTRAININGID());
         } catch (EvasysException e) {
             if (ERR_COURSE_ALREADY_EXISTS.equals(extractErrorCode(e))) {
+                if (absentByIndex) {
+                    throw new CourseAlreadyExistsException(
+                            "Course " + trainingData.getTRAININGID() + " exists outside the indexed subunit", e);
+                }
                 LOGGER.info(
                         "Course {} already exists in evasys (code={}), treating as success",
                         trainingData.getTRAININGID(),
@@ -109,19 +249,114 @@ public class EvasysCourseClient extends AbstractEvasysClient {
         }
     }
 
-    public void updateCourse(final ZLSOSTEVASYSRFC trainingData) {
-        LOGGER.info("Updating course data...");
+    // failures of single courses are returned by TRAININGID, a fault of the whole call is thrown
+    public Map<String, EvasysException> insertCourses(final List<ZLSOSTEVASYSRFC> trainings) {
+        return insertCourses(trainings, new CourseLookup());
+    }
+
+    public Map<String, EvasysException> insertCourses(final List<ZLSOSTEVASYSRFC> trainings, final CourseLookup courses) {
+        LOGGER.info("Inserting {} new courses...", trainings.size());
+        final Map<String, EvasysException> failures = new HashMap<>();
+        final Map<String, String> subunitNames = new HashMap<>();
+        final List<ZLSOSTEVASYSRFC> uploaded = new ArrayList<>(trainings.size());
+        final CourseCreatorList courseCreators = new CourseCreatorList();
+
+        for (final ZLSOSTEVASYSRFC trainingData : trainings) {
+            try {
+                final CourseCreator courseCreator = mapper.mapToCourseCreator(trainingData);
+                courseCreator.setSubunitName(subunitNames.computeIfAbsent(trainingData.getTEILBEREICHID(), this::getSubunitName));
+                courseCreator.setInstructorList(instructors(trainingData));
+                courseCreators.getCourseCreators().add(courseCreator);
+                uploaded.add(trainingData);
+            } catch (EvasysException e) {
+                failures.put(trainingData.getTRAININGID(), e);
+            } catch (NumberFormatException e) {
+                failures.put(trainingData.getTRAININGID(),
+                        new EvasysException("Invalid TRAININGTNANZAHL: " + trainingData.getTRAININGTNANZAHL(), e));
+            } catch (RuntimeException e) {
+                // one item that cannot be mapped must not keep the others from being inserted
+                failures.put(trainingData.getTRAININGID(),
+                        new EvasysException("Invalid course data of training " + trainingData.getTRAININGID() + ": " + e.getMessage(), e));
+            }
+        }
+        if (uploaded.isEmpty()) {
+            return failures;
+        }
+        final Set<String> absentByIndex = new HashSet<>();
+        for (final ZLSOSTEVASYSRFC trainingData : uploaded) {
+            final OptionalInt courseId = parseCourseId(trainingData.getTRAININGID());
+            if (courseId.isPresent()) {
+                if (courses.isAbsentByIndex(courseId.getAsInt())) {
+                    absentByIndex.add(trainingData.getTRAININGID());
+                }
+                courses.forget(courseId.getAsInt());
+            }
+        }
+
+        // like single inserts, courses already created by a failed attempt come back with ERR_313
+        final UploadStatusList statusList = soapExecutor.executeIdempotent(
+                clientName(),
+                WRITE,
+                "inserting courses",
+                () -> soapPort.insertCourses(courseCreators, false));
+
+        final Map<String, UploadStatus> statusByCourseUid = new HashMap<>();
+        if (statusList != null) {
+            statusList.getUploadStatus().forEach(status -> statusByCourseUid.put(status.getCourseUid(), status));
+        }
+        for (final ZLSOSTEVASYSRFC trainingData : uploaded) {
+            final UploadStatus status = statusByCourseUid.get(trainingData.getTRAININGID());
+            if (status == null) {
+                failures.put(trainingData.getTRAININGID(),
+                        new EvasysException("No upload status returned for course " + trainingData.getTRAININGID()));
+            } else if (ERR_COURSE_ALREADY_EXISTS.equals(status.getStatusId()) && absentByIndex.contains(trainingData.getTRAININGID())) {
+                failures.put(trainingData.getTRAININGID(), new CourseAlreadyExistsException(
+                        "Course " + trainingData.getTRAININGID() + " exists outside the indexed subunit"));
+            } else if (isUploadFailure(status)) {
+                failures.put(trainingData.getTRAININGID(), new EvasysException(String.format(
+                        "Upload error while inserting course %s (code=%s, details=%s)",
+                        trainingData.getTRAININGID(), status.getStatusId(), status.getStatusMessage())));
+            } else {
+                LOGGER.info("Course with ID {} successfully inserted", trainingData.getTRAININGID());
+            }
+        }
+        return failures;
+    }
+
+    // the users insertCourse sets as main and secondary instructors, resolved in the same way;
+    // InsertCourses identifies them by external ID and makes the first one the main instructor
+    private InstructorList instructors(final ZLSOSTEVASYSRFC trainingData) {
         final User trainer = userClient.getUserByExternalIdAndSubunit(
                 trainingData.getTRAINER1ID(),
                 trainingData.getTEILBEREICHID());
+        final InstructorList instructors = new InstructorList();
+        instructors.getInstructors().add(mapper.mapToInstructor(trainer));
 
-        final int courseId;
-        try {
-            courseId = Integer.parseInt(trainingData.getTRAININGID());
-        } catch (NumberFormatException e) {
-            throw new EvasysException("Invalid TRAININGID: " + trainingData.getTRAININGID(), e);
+        final List<String> secondaryTrainerIds = SecondaryTrainer.fromTrainingData(trainingData).stream()
+                .map(SecondaryTrainer::id)
+                .toList();
+        if (!secondaryTrainerIds.isEmpty()) {
+            userClient.getUsersByExternalIdsAndSubunit(secondaryTrainerIds, trainingData.getTEILBEREICHID()).getUsers().stream()
+                    .map(mapper::mapToInstructor)
+                    .forEach(instructors.getInstructors()::add);
         }
-        final Course existing = getCourse(courseId);
+        return instructors;
+    }
+
+    // returns false if the course already matches the SAP data and nothing was written
+    public boolean updateCourse(final ZLSOSTEVASYSRFC trainingData) {
+        return updateCourse(trainingData, new CourseLookup());
+    }
+
+    public boolean updateCourse(final ZLSOSTEVASYSRFC trainingData, final CourseLookup courses) {
+        LOGGER.info("Updating course data...");
+        final User trainer = userClient.getUserByExternalIdAndSubunit(
+                trainingData.getTRAINER1ID(),
+                trainingData.getTEILBEREICHID());
+
+        final int courseId = courseId(trainingData);
+        final Course existing = courses.find(courseId, this::findCourse)
+                .orElseThrow(() -> new EvasysException("No course found for the given id " + courseId));
 
         final Course updated = mapper.mapToCourse(trainingData);
         updated.setMNCourseId(existing.getMNCourseId());
@@ -137,8 +372,16 @@ public class EvasysCourseClient extends AbstractEvasysClient {
             updated.setMAoSecondaryInstructors(secondaryTrainerList);
         }
 
+        if (isUnchanged(existing, updated)) {
+            LOGGER.info("Course with ID {} is up to date, skipping update", trainingData.getTRAININGID());
+            return false;
+        }
+
         try {
-            soapExecutor.executeVoid(
+            courses.forget(courseId);
+            soapExecutor.executeIdempotentVoid(
+                    clientName(),
+                    WRITE,
                     "updating course",
                     () -> soapPort.updateCourse(new Holder<>(updated), false));
             LOGGER.info("Course with ID {} successfully updated", trainingData.getTRAININGID());
@@ -148,9 +391,73 @@ public class EvasysCourseClient extends AbstractEvasysClient {
                         "Course {} already exists in evasys (code={}), treating as success",
                         trainingData.getTRAININGID(),
                         ERR_COURSE_ALREADY_EXISTS);
-                return;
+                return true;
             }
             throw e;
         }
+        return true;
+    }
+
+    private static OptionalInt parseCourseId(final String courseId) {
+        try {
+            return courseId == null ? OptionalInt.empty() : OptionalInt.of(Integer.parseInt(courseId.trim()));
+        } catch (NumberFormatException e) {
+            return OptionalInt.empty();
+        }
+    }
+
+    private static int courseId(final ZLSOSTEVASYSRFC trainingData) {
+        try {
+            return Integer.parseInt(trainingData.getTRAININGID());
+        } catch (NumberFormatException e) {
+            throw new EvasysException("Invalid TRAININGID: " + trainingData.getTRAININGID(), e);
+        }
+    }
+
+    // only the fields filled from SAP data are compared, UpdateCourse keeps everything else
+    private static boolean isUnchanged(final Course existing, final Course updated) {
+        return Objects.equals(existing.getMSProgramOfStudy(), updated.getMSProgramOfStudy())
+                && Objects.equals(existing.getMSCourseTitle(), updated.getMSCourseTitle())
+                && Objects.equals(existing.getMSRoom(), updated.getMSRoom())
+                && existing.getMNCourseType() == updated.getMNCourseType()
+                && Objects.equals(existing.getMSPubCourseId(), updated.getMSPubCourseId())
+                && Objects.equals(existing.getMNCountStud(), updated.getMNCountStud())
+                && Objects.equals(existing.getMNFbid(), updated.getMNFbid())
+                && Objects.equals(existing.getMNUserId(), updated.getMNUserId())
+                && existing.isHasAnonymousParticipants() == updated.isHasAnonymousParticipants()
+                && isSameJson(existing.getMSCustomFieldsJSON(), updated.getMSCustomFieldsJSON())
+                && secondaryInstructorIds(existing).equals(secondaryInstructorIds(updated));
+    }
+
+    private static boolean isSameJson(final String existing, final String updated) {
+        if (Objects.equals(existing, updated)) {
+            return true;
+        }
+        if (existing == null || updated == null) {
+            return false;
+        }
+        try {
+            return JSON_MAPPER.readTree(existing).equals(JSON_MAPPER.readTree(updated));
+        } catch (JacksonException e) {
+            return false;
+        }
+    }
+
+    private static Set<Integer> secondaryInstructorIds(final Course course) {
+        if (course.getMAoSecondaryInstructors() == null) {
+            return Set.of();
+        }
+        return course.getMAoSecondaryInstructors().getUsers().stream()
+                .map(User::getMNId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    // per-course problems are reported with the same ERR_ codes evasys uses in SOAP faults
+    private static boolean isUploadFailure(final UploadStatus status) {
+        final String statusId = status.getStatusId();
+        return statusId != null
+                && statusId.startsWith(ERR_PREFIX)
+                && !ERR_COURSE_ALREADY_EXISTS.equals(statusId);
     }
 }
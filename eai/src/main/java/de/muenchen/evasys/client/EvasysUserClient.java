@@ -1,11 +1,16 @@
 package de.muenchen.evasys.client;
 
+import static de.muenchen.evasys.client.SoapExecutor.OperationType.READ;
+import static de.muenchen.evasys.client.SoapExecutor.OperationType.WRITE;
+
 import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
 import de.muenchen.evasys.exception.EvasysException;
 import de.muenchen.evasys.mapper.SapEvasysMapper;
 import de.muenchen.evasys.model.SecondaryTrainer;
 import jakarta.xml.ws.Holder;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.IntConsumer;
 import org.slf4j.Logger;
@@ -25,13 +30,16 @@ public class EvasysUserClient extends AbstractEvasysClient {
     private static final String ERR_NO_USERS_FOUND = "ERR_305";
 
     private final SapEvasysMapper mapper;
+    private final TrainerDirectoryCache trainerDirectory;
 
     public EvasysUserClient(
             final SoapPort soapPort,
             final SoapExecutor soapExecutor,
-            final SapEvasysMapper mapper) {
+            final SapEvasysMapper mapper,
+            final TrainerDirectoryCache trainerDirectory) {
         super(soapPort, soapExecutor);
         this.mapper = mapper;
+        this.trainerDirectory = trainerDirectory;
     }
 
     @Override
@@ -43,21 +51,16 @@ public class EvasysUserClient extends AbstractEvasysClient {
 
     public UnitList getSubunits() {
         LOGGER.info("Requesting list of subunits...");
-        return soapExecutor.execute(
+        return soapExecutor.executeIdempotent(
+                clientName(),
+                READ,
                 "requesting subunits",
                 soapPort::getSubunits);
     }
 
     public UserList getUsersBySubunit(final int subunitId) {
-        LOGGER.info("Requesting list of users by subunit...");
         try {
-            final UserList users = soapExecutor.execute(
-                    "requesting users by subunit",
-                    () -> soapPort.getUsersBySubunit(
-                            subunitId,
-                            false, false, false, false));
-            LOGGER.info("Received {} users", users.getUsers().size());
-            return users;
+            return requestUsersBySubunit(subunitId);
         } catch (EvasysException e) {
             if (ERR_NO_USERS_FOUND.equals(extractErrorCode(e))) {
                 throw new EvasysException("No users found in the given subunit", e);
@@ -69,7 +72,9 @@ public class EvasysUserClient extends AbstractEvasysClient {
     public UserList getUsersByExternalId(final String externalUserId) {
         LOGGER.info("Requesting all users with external ID {}...", externalUserId);
         try {
-            final UserList userList = soapExecutor.execute(
+            final UserList userList = soapExecutor.executeIdempotent(
+                    clientName(),
+                    READ,
                     "requesting users by external ID",
                     () -> soapPort.getUserByIdConsiderExternalID(
                             externalUserId,
@@ -79,6 +84,7 @@ public class EvasysUserClient extends AbstractEvasysClient {
             return userList;
         } catch (EvasysException e) {
             if (ERR_USER_NOT_FOUND.equals(extractErrorCode(e))) {
+                trainerDirectory.invalidateExternalId(externalUserId);
                 throw new EvasysException(
                         "No user found for id " + externalUserId, e);
             }
@@ -99,12 +105,16 @@ public class EvasysUserClient extends AbstractEvasysClient {
         }
 
         final int subunitId = parseSubunitId(teilbereichId);
+        final List<String> distinctIds = externalUserIds.stream().distinct().toList();
 
-        final List<User> matchingUsers = externalUserIds.stream()
-                .distinct()
-                .flatMap(externalId -> getUsersByExternalId(externalId)
-                        .getUsers()
-                        .stream())
+        // one directory of the subunit resolves all IDs, single lookups are only needed
+        // for IDs it does not know (yet)
+        final Map<String, List<User>> directory = getTrainerDirectory(subunitId, distinctIds.size());
+
+        final List<User> matchingUsers = distinctIds.stream()
+                .flatMap(externalId -> directory.containsKey(externalId)
+                        ? directory.get(externalId).stream()
+                        : getUsersByExternalId(externalId).getUsers().stream())
                 .filter(user -> user.getMNFbid() != null
                         && user.getMNFbid() == subunitId)
                 .toList();
@@ -137,10 +147,7 @@ public class EvasysUserClient extends AbstractEvasysClient {
     public boolean isTrainerExisting(final String trainerId, final int subunitId) {
         LOGGER.info("Checking whether trainer exists...");
         try {
-            return getUsersBySubunit(subunitId)
-                    .getUsers()
-                    .stream()
-                    .anyMatch(u -> trainerId.equals(u.getMSExternalId()));
+            return trainerDirectory.contains(subunitId, trainerId, this::loadTrainerDirectory);
         } catch (Exception e) {
             LOGGER.warn("Trainer existence check failed: {}", e.getMessage());
             return false;
@@ -151,55 +158,110 @@ public class EvasysUserClient extends AbstractEvasysClient {
 
     public void insertTrainer(final ZLSOSTEVASYSRFC trainingData) {
         LOGGER.info("Inserting new trainer...");
-        soapExecutor.executeVoid(
-                "inserting trainer",
-                () -> soapPort.insertUser(
-                        new Holder<>(mapper.mapToTrainer(trainingData))));
+        insertUser("inserting trainer", mapper.mapToTrainer(trainingData));
         LOGGER.info("Trainer with ID {} successfully inserted", trainingData.getTRAINER1ID());
     }
 
-    public void updateTrainer(final ZLSOSTEVASYSRFC trainingData) {
+    public boolean updateTrainer(final ZLSOSTEVASYSRFC trainingData) {
         LOGGER.info("Updating trainer data...");
-        updateUsers(
+        return updateUsers(
                 trainingData.getTRAINER1ID(),
                 user -> applyPrimaryTrainerUpdates(user, trainingData));
-        LOGGER.info("Successfully updated user(s) with external ID {}", trainingData.getTRAINER1ID());
     }
 
     public void insertSecondaryTrainer(
             final ZLSOSTEVASYSRFC trainingData,
             final SecondaryTrainer secondaryTrainer) {
         LOGGER.info("Inserting new secondary trainer...");
-        soapExecutor.executeVoid(
+        insertUser(
                 "inserting secondary trainer",
-                () -> soapPort.insertUser(
-                        new Holder<>(mapper.mapToSecondaryTrainer(
-                                secondaryTrainer, trainingData))));
+                mapper.mapToSecondaryTrainer(secondaryTrainer, trainingData));
         LOGGER.info("Secondary trainer with ID {} successfully inserted", secondaryTrainer.id());
     }
 
-    public void updateSecondaryTrainer(final SecondaryTrainer secondaryTrainer) {
+    public boolean updateSecondaryTrainer(final SecondaryTrainer secondaryTrainer) {
         LOGGER.info("Updating secondary trainer data...");
-        updateUsers(
+        return updateUsers(
                 secondaryTrainer.id(),
                 user -> applySecondaryTrainerUpdates(user, secondaryTrainer));
-        LOGGER.info("Successfully updated user(s) with external ID {}", secondaryTrainer.id());
     }
 
     /* ------------------------- INTERNAL HELPERS ------------------------- */
 
-    private void updateUsers(final String externalId, final Consumer<User> updater) {
+    private Map<String, List<User>> getTrainerDirectory(final int subunitId, final int ids) {
+        try {
+            return trainerDirectory.directoryFor(subunitId, ids, this::loadTrainerDirectory);
+        } catch (Exception e) {
+            LOGGER.warn("Trainer directory of subunit {} not available, resolving users one by one: {}", subunitId, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    // runs as the loader of the directory cache; a subunit without users is cached as an empty
+    // directory, users inserted later are added to it
+    private UserList loadTrainerDirectory(final int subunitId) {
+        try {
+            return requestUsersBySubunit(subunitId);
+        } catch (EvasysException e) {
+            if (ERR_NO_USERS_FOUND.equals(extractErrorCode(e))) {
+                LOGGER.info("No users found in subunit {}", subunitId);
+                return new UserList();
+            }
+            throw e;
+        }
+    }
+
+    private UserList requestUsersBySubunit(final int subunitId) {
+        LOGGER.info("Requesting list of users by subunit...");
+        final UserList users = soapExecutor.executeIdempotent(
+                clientName(),
+                READ,
+                "requesting users by subunit",
+                () -> soapPort.getUsersBySubunit(
+                        subunitId,
+                        false, false, false, false));
+        LOGGER.info("Received {} users", users.getUsers().size());
+        return users;
+    }
+
+    private void insertUser(final String action, final User user) {
+        final Holder<User> holder = new Holder<>(user);
+        try {
+            soapExecutor.executeVoid(clientName(), WRITE, action, () -> soapPort.insertUser(holder));
+        } catch (EvasysException e) {
+            // the failed insert may stem from a user created outside of our view,
+            // so the next existence check has to see the current state of the subunit
+            trainerDirectory.invalidate(user.getMNFbid());
+            throw e;
+        }
+        trainerDirectory.put(holder.value);
+    }
+
+    // returns false if no user differs from the SAP data and nothing was written
+    private boolean updateUsers(final String externalId, final Consumer<User> updater) {
         final List<User> users = getUsersByExternalId(externalId).getUsers();
-        LOGGER.info("Updating {} user(s) with external ID {}", users.size(), externalId);
+        final List<User> changedUsers = new ArrayList<>(users.size());
+        for (final User user : users) {
+            final TrainerFields current = TrainerFields.of(user);
+            updater.accept(user);
+            if (!current.equals(TrainerFields.of(user))) {
+                changedUsers.add(user);
+            }
+        }
+        if (changedUsers.isEmpty()) {
+            LOGGER.info("User(s) with external ID {} are up to date, skipping update", externalId);
+            return false;
+        }
+        LOGGER.info("Updating {} of {} user(s) with external ID {}", changedUsers.size(), users.size(), externalId);
 
-        soapExecutor.executeVoid(
-                "updating users",
-                () -> {
-                    for (final User user : users) {
-                        updater.accept(user);
-                        soapPort.updateUser(new Holder<>(user));
-                    }
-                });
+        // one call per user, so the request timer measures single UpdateUser calls
+        for (final User user : changedUsers) {
+            final Holder<User> holder = new Holder<>(user);
+            soapExecutor.executeIdempotentVoid(clientName(), WRITE, "updating users", () -> soapPort.updateUser(holder));
+            trainerDirectory.put(holder.value);
+        }
+        LOGGER.info("Successfully updated user(s) with external ID {}", externalId);
+        return true;
     }
 
     private void applyPrimaryTrainerUpdates(
@@ -240,6 +302,26 @@ public class EvasysUserClient extends AbstractEvasysClient {
         }
     }
 
+    // the user fields filled from SAP data
+    private record TrainerFields(
+            String externalId,
+            Integer addressId,
+            String title,
+            String firstName,
+            String surName,
+            String email) {
+
+        static TrainerFields of(final User user) {
+            return new TrainerFields(
+                    user.getMSExternalId(),
+                    user.getMNAddressId(),
+                    user.getMSTitle(),
+                    user.getMSFirstName(),
+                    user.getMSSurName(),
+                    user.getMSEmail());
+        }
+    }
+
     private int parseSubunitId(final String teilbereichId) {
         if (teilbereichId == null || teilbereichId.isBlank()) {
             throw new EvasysException("TEILBEREICHID must not be empty");
@@ -0,0 +1,94 @@
+package de.muenchen.evasys.client;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// open addressing set of ints without boxing, for course IDs of whole subunits
+final class IntHashSet {
+
+    private static final int FREE = Integer.MIN_VALUE;
+
+    private int[] slots;
+    private int size;
+    // FREE marks empty slots, so the value itself is tracked separately
+    private boolean containsFree;
+
+    IntHashSet(final int expectedSize) {
+        slots = new int[capacityFor(expectedSize)];
+        Arrays.fill(slots, FREE);
+    }
+
+    boolean add(final int value) {
+        if (value == FREE) {
+            final boolean added = !containsFree;
+            containsFree = true;
+            return added;
+        }
+        int slot = slot(value, slots.length);
+        while (slots[slot] != FREE) {
+            if (slots[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & (slots.length - 1);
+        }
+        slots[slot] = value;
+        if (++size * 2 > slots.length) {
+            grow();
+        }
+        return true;
+    }
+
+    boolean contains(final int value) {
+        if (value == FREE) {
+            return containsFree;
+        }
+        int slot = slot(value, slots.length);
+        while (slots[slot] != FREE) {
+            if (slots[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & (slots.length - 1);
+        }
+        return false;
+    }
+
+    void forEach(final IntConsumer action) {
+        if (containsFree) {
+            action.accept(FREE);
+        }
+        for (final int value : slots) {
+            if (value != FREE) {
+                action.accept(value);
+            }
+        }
+    }
+
+    int size() {
+        return containsFree ? size + 1 : size;
+    }
+
+    private void grow() {
+        final int[] old = slots;
+        slots = new int[old.length * 2];
+        Arrays.fill(slots, FREE);
+        for (final int value : old) {
+            if (value != FREE) {
+                int slot = slot(value, slots.length);
+                while (slots[slot] != FREE) {
+                    slot = (slot + 1) & (slots.length - 1);
+                }
+                slots[slot] = value;
+            }
+        }
+    }
+
+    // course IDs are mostly consecutive, the multiplication spreads them over the table
+    private static int slot(final int value, final int length) {
+        final int hash = value * 0x9E3779B9;
+        return (hash ^ hash >>> 16) & (length - 1);
+    }
+
+    private static int capacityFor(final int expectedSize) {
+        return Integer.highestOneBit(Math.max(8, expectedSize * 2 - 1)) << 1;
+    }
+}
@@ -0,0 +1,32 @@
+package de.muenchen.evasys.client;
+
+// every call deposits a fraction of a retry, every retry withdraws a whole one, so retries
+// add at most that fraction of load on top of the regular calls, also during an outage
+final class RetryBudget {
+
+    private final double ratio;
+    private final double maxRetries;
+    private double balance;
+
+    RetryBudget(final double ratio, final int maxRetries) {
+        this.ratio = ratio;
+        this.maxRetries = maxRetries;
+        this.balance = maxRetries;
+    }
+
+    synchronized void deposit() {
+        balance = Math.min(maxRetries, balance + ratio);
+    }
+
+    synchronized boolean tryWithdraw() {
+        if (balance < 1) {
+            return false;
+        }
+        balance--;
+        return true;
+    }
+
+    synchronized double balance() {
+        return balance;
+    }
+}
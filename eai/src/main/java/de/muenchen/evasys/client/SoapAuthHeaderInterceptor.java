@@ -0,0 +1,51 @@
+package de.muenchen.evasys.client;
+
+import javax.xml.namespace.QName;
+import org.apache.cxf.binding.soap.SoapHeader;
+import org.apache.cxf.binding.soap.SoapMessage;
+import org.apache.cxf.binding.soap.interceptor.AbstractSoapInterceptor;
+import org.apache.cxf.helpers.DOMUtils;
+import org.apache.cxf.phase.Phase;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+// adds the same header as SoapHeaderHandler, but as a CXF header written together with the
+// envelope, so outbound messages are streamed instead of being built as a SAAJ DOM first
+public class SoapAuthHeaderInterceptor extends AbstractSoapInterceptor {
+
+    private static final String NAMESPACE_URI = "soapserver-v100.wsdl";
+
+    private static final QName HEADER = new QName(NAMESPACE_URI, "Header");
+
+    private final String username;
+    private final String password;
+
+    public SoapAuthHeaderInterceptor(final String username, final String password) {
+        super(Phase.PRE_PROTOCOL);
+        this.username = username;
+        this.password = password;
+    }
+
+    // a DOM element is not thread-safe and CXF may modify it while writing, so every message
+    // gets its own; it only holds the header, the envelope is still streamed
+    @Override
+    public void handleMessage(final SoapMessage message) {
+        message.getHeaders().add(new SoapHeader(HEADER, createHeaderElement(username, password)));
+    }
+
+    private static Element createHeaderElement(final String username, final String password) {
+        final Document document = DOMUtils.createDocument();
+        final Element header = document.createElementNS(NAMESPACE_URI, "Header");
+        header.setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns", NAMESPACE_URI);
+        header.appendChild(createTextElement(document, "Login", username));
+        header.appendChild(createTextElement(document, "Password", password));
+        document.appendChild(header);
+        return header;
+    }
+
+    private static Element createTextElement(final Document document, final String name, final String text) {
+        final Element element = document.createElementNS(NAMESPACE_URI, name);
+        element.setTextContent(text);
+        return element;
+    }
+}
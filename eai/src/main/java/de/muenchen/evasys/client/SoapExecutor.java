@@ -1,6 +1,28 @@
 package de.muenchen.evasys.client;
 
+import de.muenchen.evasys.configuration.CircuitBreakerProperties;
+import de.muenchen.evasys.configuration.ConcurrencyLimitProperties;
+import de.muenchen.evasys.configuration.RateLimitProperties;
+import de.muenchen.evasys.configuration.RetryProperties;
 import de.muenchen.evasys.exception.EvasysException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.cxf.transport.http.HTTPException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import wsdl.soapserver_v100.SoapfaultMessage;
 import wsdl.soapserver_v100.TSoapfault;
@@ -18,26 +40,255 @@ public class SoapExecutor {
         void run() throws Exception;
     }
 
-    public <T> T execute(final String action, final SoapCall<T> call) {
+    public enum OperationType {
+        READ,
+        WRITE
+    }
+
+    enum Outcome {
+        SUCCESS,
+        SOAP_FAULT,
+        ERROR,
+        REJECTED
+    }
+
+    private record TimerKey(String client, String action, Outcome outcome, String errorCode) {
+    }
+
+    private record RetryKey(String client, String action, String decision) {
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SoapExecutor.class);
+
+    private static final String NO_ERROR_CODE = "none";
+
+    // CXF reports an HTML error page of IIS as a SOAP fault with this message
+    private static final String HTML_RESPONSE = "unexpected text/html ContentType";
+
+    private final MeterRegistry meterRegistry;
+    // built once per tag combination, so a call only pays for one map lookup
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<RetryKey, Counter> retryCounters = new ConcurrentHashMap<>();
+    private final CircuitBreaker circuitBreaker;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final RetryProperties retryProperties;
+    private final RetryBudget retryBudget;
+    private final SoapRateLimiter rateLimiter;
+    private final Map<OperationType, Timer> rateLimiterWaits = new EnumMap<>(OperationType.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public SoapExecutor(
+            final MeterRegistry meterRegistry,
+            final CircuitBreakerProperties circuitBreakerProperties,
+            final ConcurrencyLimitProperties concurrencyLimitProperties,
+            final RetryProperties retryProperties,
+            final RateLimitProperties rateLimitProperties) {
+        this.meterRegistry = meterRegistry;
+        this.circuitBreaker = new CircuitBreaker(circuitBreakerProperties);
+        this.concurrencyLimit = new AdaptiveConcurrencyLimit(concurrencyLimitProperties);
+        this.retryProperties = retryProperties;
+        this.retryBudget = new RetryBudget(retryProperties.budgetRatio(), retryProperties.budgetMaxRetries());
+        this.rateLimiter = new SoapRateLimiter(rateLimitProperties);
+        for (final CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            Gauge.builder("evasys.circuit.breaker.state", circuitBreaker, breaker -> breaker.state() == state ? 1 : 0)
+                    .tag("state", state.name().toLowerCase(Locale.ROOT))
+                    .description("1 for the current state of the evasys circuit breaker, 0 otherwise")
+                    .register(meterRegistry);
+        }
+        Gauge.builder("evasys.concurrency.limit", concurrencyLimit, AdaptiveConcurrencyLimit::limit)
+                .description("Current adaptive limit of SOAP calls in flight to evasys")
+                .register(meterRegistry);
+        Gauge.builder("evasys.soap.calls.in.flight", inFlight, AtomicInteger::get)
+                .description("SOAP calls to evasys sent and waiting for their response")
+                .register(meterRegistry);
+        Gauge.builder("evasys.retry.budget", retryBudget, RetryBudget::balance)
+                .description("Retries of SOAP calls to evasys currently available in the retry budget")
+                .register(meterRegistry);
+        for (final OperationType type : OperationType.values()) {
+            final String operation = type.name().toLowerCase(Locale.ROOT);
+            rateLimiterWaits.put(type, Timer.builder("evasys.rate.limiter.wait")
+                    .tag("operation", operation)
+                    .description("Time SOAP calls to evasys waited for the rate limiter")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            Gauge.builder("evasys.rate.limit", rateLimiter, limiter -> limiter.rate(type))
+                    .tag("operation", operation)
+                    .description("Current rate limit of SOAP calls to evasys per second")
+                    .register(meterRegistry);
+        }
+    }
+
+    public <T> T execute(final String client, final OperationType type, final String action, final SoapCall<T> call) {
+        retryBudget.deposit();
+        return attempt(client, type, action, call);
+    }
+
+    // for reads and for writes that can be repeated without harm: calls failing because
+    // evasys is unavailable are retried with backoff while the retry budget allows it
+    public <T> T executeIdempotent(final String client, final OperationType type, final String action, final SoapCall<T> call) {
+        retryBudget.deposit();
+        for (int attempt = 1;; attempt++) {
+            try {
+                return attempt(client, type, action, call);
+            } catch (EvasysException e) {
+                if (!retryProperties.enabled() || attempt >= retryProperties.maxAttempts() || !isUnavailable(e.getCause())) {
+                    throw e;
+                }
+                if (!retryBudget.tryWithdraw()) {
+                    countRetry(client, action, "budget_exhausted");
+                    throw e;
+                }
+                countRetry(client, action, "retried");
+                backOff(action, attempt, e);
+            }
+        }
+    }
+
+    public void executeVoid(final String client, final OperationType type, final String action, final SoapRunnable runnable) {
+        execute(client, type, action, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    public void executeIdempotentVoid(final String client, final OperationType type, final String action, final SoapRunnable runnable) {
+        executeIdempotent(client, type, action, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    private <T> T attempt(final String client, final OperationType type, final String action, final SoapCall<T> call) {
+        if (!circuitBreaker.tryAcquire()) {
+            record(client, action, Outcome.REJECTED, "circuit_open", System.nanoTime());
+            throw new EvasysException("evasys circuit breaker is open, not " + action);
+        }
+        // waiting for the rate limiter must not count as latency for the concurrency limit
+        if (rateLimiter.enabled()) {
+            try {
+                rateLimiterWaits.get(type).record(rateLimiter.acquire(type), TimeUnit.NANOSECONDS);
+            } catch (EvasysException e) {
+                circuitBreaker.onIgnored();
+                record(client, action, Outcome.REJECTED, "rate_limit", System.nanoTime());
+                throw e;
+            }
+        }
+        try {
+            concurrencyLimit.acquire();
+        } catch (EvasysException e) {
+            circuitBreaker.onIgnored();
+            record(client, action, Outcome.REJECTED, "concurrency_limit", System.nanoTime());
+            throw e;
+        }
+
+        final long start = System.nanoTime();
+        inFlight.incrementAndGet();
         try {
-            return call.call();
+            final T result = call.call();
+            concurrencyLimit.release(System.nanoTime() - start, false);
+            circuitBreaker.onSuccess();
+            record(client, action, Outcome.SUCCESS, NO_ERROR_CODE, start);
+            return result;
         } catch (SoapfaultMessage e) {
+            // a SOAP fault is a regular answer, evasys itself is available
+            concurrencyLimit.release(System.nanoTime() - start, false);
+            circuitBreaker.onSuccess();
+            record(client, action, Outcome.SOAP_FAULT, errorCode(e), start);
             throw mapSoapFault(action, e);
         } catch (Exception e) {
+            final boolean unavailable = isUnavailable(e);
+            concurrencyLimit.release(System.nanoTime() - start, unavailable);
+            if (unavailable) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onIgnored();
+            }
+            record(client, action, Outcome.ERROR, e.getClass().getSimpleName(), start);
             throw new EvasysException("Unexpected error while " + action, e);
+        } finally {
+            inFlight.decrementAndGet();
         }
     }
 
-    public void executeVoid(final String action, final SoapRunnable runnable) {
+    // called by the quota monitor with the share of the configured rates evasys' quota allows
+    void scaleRateLimit(final double factor) {
+        rateLimiter.scale(factor);
+    }
+
+    double configuredRateLimit() {
+        return rateLimiter.configuredRate();
+    }
+
+    // exponential backoff with full jitter, so retries of concurrent calls spread out
+    private void backOff(final String action, final int attempt, final EvasysException e) {
+        final long maxBackoff = retryProperties.maxBackoff().toMillis();
+        final long backoff = Math.min(maxBackoff, retryProperties.initialBackoff().toMillis() << Math.min(attempt - 1, 30));
+        final long delay = ThreadLocalRandom.current().nextLong(backoff + 1);
+        LOGGER.warn("Attempt {} of {} failed, retrying in {} ms: {}", attempt, action, delay, e.getMessage());
         try {
-            runnable.run();
-        } catch (SoapfaultMessage e) {
-            throw mapSoapFault(action, e);
-        } catch (Exception e) {
-            throw new EvasysException("Unexpected error while " + action, e);
+            Thread.sleep(delay);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw e;
         }
     }
 
+    private void countRetry(final String client, final String action, final String decision) {
+        retryCounters.computeIfAbsent(new RetryKey(client, action, decision), key -> Counter.builder("evasys.soap.retries")
+                .description("Retries of SOAP calls to evasys that failed because evasys was unavailable")
+                .tag("client", key.client())
+                .tag("action", key.action())
+                .tag("decision", key.decision())
+                .register(meterRegistry))
+                .increment();
+    }
+
+    private void record(final String client, final String action, final Outcome outcome, final String errorCode, final long start) {
+        timers.computeIfAbsent(new TimerKey(client, action, outcome, errorCode), this::timer)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    // histogram and SLO buckets can be overridden with management.metrics.distribution.*
+    private Timer timer(final TimerKey key) {
+        return Timer.builder("evasys.soap.requests")
+                .description("Duration of SOAP calls to evasys")
+                .tag("client", key.client())
+                .tag("action", key.action())
+                .tag("outcome", key.outcome().name().toLowerCase(Locale.ROOT))
+                .tag("error_code", key.errorCode())
+                .publishPercentileHistogram()
+                .serviceLevelObjectives(
+                        Duration.ofMillis(100),
+                        Duration.ofMillis(250),
+                        Duration.ofMillis(500),
+                        Duration.ofSeconds(1),
+                        Duration.ofSeconds(2),
+                        Duration.ofSeconds(5))
+                .register(meterRegistry);
+    }
+
+    // timeouts, refused connections and HTML error pages mean evasys/IIS is struggling,
+    // other errors stem from the request itself
+    private static boolean isUnavailable(final Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SocketTimeoutException
+                    || cause instanceof HttpTimeoutException
+                    || cause instanceof ConnectException
+                    || cause instanceof HTTPException httpException && httpException.getResponseCode() >= 500
+                    || cause.getMessage() != null && cause.getMessage().contains(HTML_RESPONSE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String errorCode(final SoapfaultMessage e) {
+        final TSoapfault faultInfo = e.getFaultInfo();
+        return faultInfo != null && faultInfo.getSErrorMessage() != null
+                ? faultInfo.getSErrorMessage()
+                : "UNKNOWN";
+    }
+
     private EvasysException mapSoapFault(final String action, final SoapfaultMessage e) {
         final TSoapfault faultInfo = e.getFaultInfo();
 
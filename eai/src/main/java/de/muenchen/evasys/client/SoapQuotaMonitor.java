@@ -0,0 +1,124 @@
+package de.muenchen.evasys.client;
+
+import static de.muenchen.evasys.client.SoapExecutor.OperationType.READ;
+
+import de.muenchen.evasys.configuration.RateLimitProperties;
+import de.muenchen.evasys.exception.EvasysException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.GregorianCalendar;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import wsdl.soapserver_v100.SoapPort;
+import wsdl.soapserver_v100.SoapUsageParams;
+import wsdl.soapserver_v100.StringList;
+
+@Component
+public class SoapQuotaMonitor extends AbstractEvasysClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SoapQuotaMonitor.class);
+
+    // never throttle below this share of the configured rates, evasys enforces the quota itself
+    static final double MIN_SCALE = 0.05;
+
+    private final boolean enabled;
+    private final long dailyQuota;
+    private final Duration pollInterval;
+    private final AtomicLong remainingQuota = new AtomicLong(-1);
+    private ScheduledExecutorService scheduler;
+
+    public SoapQuotaMonitor(
+            final SoapPort soapPort,
+            final SoapExecutor soapExecutor,
+            final RateLimitProperties properties,
+            final MeterRegistry meterRegistry) {
+        super(soapPort, soapExecutor);
+        this.enabled = properties.enabled() && properties.dailyQuota() > 0;
+        this.dailyQuota = properties.dailyQuota();
+        this.pollInterval = properties.quotaPollInterval();
+        if (enabled) {
+            Gauge.builder("evasys.soap.quota.remaining", remainingQuota, AtomicLong::get)
+                    .description("SOAP requests left of the daily evasys quota, as of the last poll")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected String clientName() {
+        return "evasys-quota-monitor";
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("evasys-quota-monitor").daemon().factory());
+            scheduler.scheduleWithFixedDelay(this::poll, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    void poll() {
+        try {
+            poll(ZonedDateTime.now());
+        } catch (RuntimeException e) {
+            // keep the current rates, the next poll tries again
+            LOGGER.warn("Polling the evasys SOAP usage failed: {}", e.getMessage());
+        }
+    }
+
+    void poll(final ZonedDateTime now) {
+        final ZonedDateTime startOfDay = now.toLocalDate().atStartOfDay(now.getZone());
+        final long used = getSoapUsage(startOfDay);
+        final long remaining = Math.max(0, dailyQuota - used);
+        remainingQuota.set(remaining);
+        final double factor = scale(remaining, Duration.between(now, startOfDay.plusDays(1)), soapExecutor.configuredRateLimit());
+        LOGGER.debug("{} of {} SOAP requests used today, rate limit scaled to {}", used, dailyQuota, factor);
+        soapExecutor.scaleRateLimit(factor);
+    }
+
+    // share of the configured rate that spreads the remaining quota evenly until it resets
+    static double scale(final long remaining, final Duration untilReset, final double configuredRate) {
+        final double sustainableRate = remaining / Math.max(1.0, untilReset.toSeconds());
+        return Math.clamp(sustainableRate / configuredRate, MIN_SCALE, 1.0);
+    }
+
+    long getSoapUsage(final ZonedDateTime since) {
+        final SoapUsageParams params = new SoapUsageParams();
+        try {
+            params.setTimeFrom(DatatypeFactory.newInstance().newXMLGregorianCalendar(GregorianCalendar.from(since)));
+        } catch (DatatypeConfigurationException e) {
+            throw new EvasysException("Could not create SOAP usage request", e);
+        }
+        final StringList usage = soapExecutor.executeIdempotent(
+                clientName(),
+                READ,
+                "requesting SOAP usage",
+                () -> soapPort.getSoapUsage(params));
+        if (usage == null || usage.getStrings().isEmpty()) {
+            throw new EvasysException("Empty SOAP usage returned by evasys");
+        }
+        try {
+            return Long.parseLong(usage.getStrings().getFirst().trim());
+        } catch (NumberFormatException e) {
+            throw new EvasysException("Unexpected SOAP usage returned by evasys: " + usage.getStrings().getFirst(), e);
+        }
+    }
+}
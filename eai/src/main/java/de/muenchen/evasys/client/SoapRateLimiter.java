@@ -0,0 +1,60 @@
+package de.muenchen.evasys.client;
+
+import de.muenchen.evasys.configuration.RateLimitProperties;
+import de.muenchen.evasys.exception.EvasysException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// one token bucket per operation type; the quota monitor scales both rates down
+// while the remaining daily quota of evasys would not last until midnight
+final class SoapRateLimiter {
+
+    private final boolean enabled;
+    private final long acquireTimeoutNanos;
+    private final Map<SoapExecutor.OperationType, Double> configuredRates = new EnumMap<>(SoapExecutor.OperationType.class);
+    private final Map<SoapExecutor.OperationType, TokenBucket> buckets = new EnumMap<>(SoapExecutor.OperationType.class);
+
+    SoapRateLimiter(final RateLimitProperties properties) {
+        this.enabled = properties.enabled();
+        this.acquireTimeoutNanos = properties.acquireTimeout().toNanos();
+        configuredRates.put(SoapExecutor.OperationType.READ, properties.readsPerSecond());
+        configuredRates.put(SoapExecutor.OperationType.WRITE, properties.writesPerSecond());
+        configuredRates.forEach((type, rate) -> buckets.put(type, new TokenBucket(rate, properties.burst())));
+    }
+
+    boolean enabled() {
+        return enabled;
+    }
+
+    // returns the nanos spent waiting for a permit
+    long acquire(final SoapExecutor.OperationType type) {
+        final long waitNanos = buckets.get(type).reserve(acquireTimeoutNanos);
+        if (waitNanos < 0) {
+            throw new EvasysException(String.format(Locale.ROOT, "Timed out waiting for the evasys rate limit of %.2f %ss per second",
+                    rate(type), type.name().toLowerCase(Locale.ROOT)));
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EvasysException("Interrupted while waiting for the evasys rate limit", e);
+            }
+        }
+        return waitNanos;
+    }
+
+    void scale(final double factor) {
+        buckets.forEach((type, bucket) -> bucket.setRate(configuredRates.get(type) * factor));
+    }
+
+    double rate(final SoapExecutor.OperationType type) {
+        return buckets.get(type).rate();
+    }
+
+    double configuredRate() {
+        return configuredRates.values().stream().mapToDouble(Double::doubleValue).sum();
+    }
+}
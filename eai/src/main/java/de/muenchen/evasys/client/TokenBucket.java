@@ -0,0 +1,55 @@
+package de.muenchen.evasys.client;
+
+import java.util.function.LongSupplier;
+
+// permits are reserved ahead of time, so waiting callers sleep outside the lock and are
+// served in the order they arrived; the balance goes negative by the permits reserved
+final class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final LongSupplier clock;
+    private final double capacity;
+    private double permitsPerNano;
+    private double permits;
+    private long refilledAt;
+
+    TokenBucket(final double permitsPerSecond, final int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    TokenBucket(final double permitsPerSecond, final int burst, final LongSupplier clock) {
+        this.clock = clock;
+        this.capacity = burst;
+        this.permitsPerNano = permitsPerSecond / NANOS_PER_SECOND;
+        this.permits = burst;
+        this.refilledAt = clock.getAsLong();
+    }
+
+    // returns the nanos to wait until the reserved permit is available, or -1 without
+    // reserving anything if that would take longer than maxWaitNanos
+    synchronized long reserve(final long maxWaitNanos) {
+        refill();
+        final long waitNanos = permits >= 1 ? 0 : (long) Math.ceil((1 - permits) / permitsPerNano);
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+        permits--;
+        return waitNanos;
+    }
+
+    synchronized void setRate(final double permitsPerSecond) {
+        refill();
+        permitsPerNano = permitsPerSecond / NANOS_PER_SECOND;
+    }
+
+    synchronized double rate() {
+        return permitsPerNano * NANOS_PER_SECOND;
+    }
+
+    private void refill() {
+        final long now = clock.getAsLong();
+        permits = Math.min(capacity, permits + (now - refilledAt) * permitsPerNano);
+        refilledAt = now;
+    }
+}
@@ -0,0 +1,111 @@
+package de.muenchen.evasys.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.muenchen.evasys.configuration.TrainerDirectoryProperties;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import wsdl.soapserver_v100.User;
+import wsdl.soapserver_v100.UserList;
+
+@Component
+public class TrainerDirectoryCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TrainerDirectoryCache.class);
+
+    private final boolean enabled;
+    private final int loadThreshold;
+    private final Cache<Integer, Map<String, List<User>>> directories;
+
+    public TrainerDirectoryCache(final TrainerDirectoryProperties properties) {
+        this.enabled = properties.enabled();
+        this.loadThreshold = properties.loadThreshold();
+        // entries are updated in place after our own writes, so the TTL only bounds
+        // how long changes made directly in evasys stay invisible
+        this.directories = Caffeine.newBuilder()
+                .expireAfterWrite(properties.ttl())
+                .maximumSize(properties.maxSubunits())
+                .build();
+    }
+
+    public boolean contains(final int subunitId, final String externalId, final IntFunction<UserList> loader) {
+        return directory(subunitId, loader).containsKey(externalId);
+    }
+
+    public Map<String, List<User>> directory(final int subunitId, final IntFunction<UserList> loader) {
+        if (!enabled) {
+            return Collections.unmodifiableMap(index(loader.apply(subunitId)));
+        }
+        return Collections.unmodifiableMap(directories.get(subunitId, id -> {
+            LOGGER.debug("Loading trainer directory for subunit {}", id);
+            return index(loader.apply(id));
+        }));
+    }
+
+    // for resolving the given number of distinct IDs; downloading a subunit that is not cached
+    // only pays off for several IDs, an empty directory leaves fewer to single lookups
+    public Map<String, List<User>> directoryFor(final int subunitId, final int ids, final IntFunction<UserList> loader) {
+        if (ids >= loadThreshold) {
+            return directory(subunitId, loader);
+        }
+        final Map<String, List<User>> cached = enabled ? directories.getIfPresent(subunitId) : null;
+        return cached == null ? Map.of() : Collections.unmodifiableMap(cached);
+    }
+
+    public void put(final User user) {
+        if (user == null || user.getMNFbid() == null || isBlank(user.getMSExternalId())) {
+            return;
+        }
+        final Map<String, List<User>> directory = directories.getIfPresent(user.getMNFbid());
+        if (directory != null) {
+            directory.merge(user.getMSExternalId(), List.of(user), TrainerDirectoryCache::replaceUser);
+        }
+    }
+
+    public void invalidate(final Integer subunitId) {
+        if (subunitId != null) {
+            LOGGER.debug("Invalidating trainer directory for subunit {}", subunitId);
+            directories.invalidate(subunitId);
+        }
+    }
+
+    public void invalidateExternalId(final String externalId) {
+        if (externalId == null) {
+            return;
+        }
+        directories.asMap().entrySet().removeIf(entry -> entry.getValue().containsKey(externalId));
+    }
+
+    private static Map<String, List<User>> index(final UserList users) {
+        final Map<String, List<User>> directory = new ConcurrentHashMap<>();
+        for (final User user : users.getUsers()) {
+            if (!isBlank(user.getMSExternalId())) {
+                directory.merge(user.getMSExternalId(), List.of(user), TrainerDirectoryCache::replaceUser);
+            }
+        }
+        return directory;
+    }
+
+    private static List<User> replaceUser(final List<User> existing, final List<User> added) {
+        final User user = added.getFirst();
+        final List<User> merged = new ArrayList<>(existing.size() + 1);
+        for (final User candidate : existing) {
+            if (user.getMNId() == null || !user.getMNId().equals(candidate.getMNId())) {
+                merged.add(candidate);
+            }
+        }
+        merged.add(user);
+        return List.copyOf(merged);
+    }
+
+    private static boolean isBlank(final String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,16 @@
+package de.muenchen.evasys.configuration;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+@ConfigurationProperties(prefix = "evasys.circuit-breaker")
+@Validated
+public record CircuitBreakerProperties(
+        @DefaultValue("false") boolean enabled,
+        @Min(1) @DefaultValue("5") int failureThreshold,
+        @NotNull @DefaultValue("30s") Duration openDuration) {
+}
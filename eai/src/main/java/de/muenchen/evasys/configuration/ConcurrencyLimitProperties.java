@@ -0,0 +1,22 @@
+package de.muenchen.evasys.configuration;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+@ConfigurationProperties(prefix = "evasys.concurrency-limit")
+@Validated
+public record ConcurrencyLimitProperties(
+        @DefaultValue("false") boolean enabled,
+        @Min(1) @DefaultValue("4") int initialLimit,
+        @Min(1) @DefaultValue("1") int minLimit,
+        @Min(1) @DefaultValue("10") int maxLimit,
+        @NotNull @DefaultValue("5s") Duration latencyThreshold,
+        @DecimalMin("0.1") @DecimalMax("0.99") @DefaultValue("0.9") double backoffRatio,
+        @NotNull @DefaultValue("30s") Duration acquireTimeout) {
+}
@@ -1,12 +1,16 @@
 package de.muenchen.evasys.configuration;
 
+import de.muenchen.evasys.client.SoapAuthHeaderInterceptor;
 import de.muenchen.evasys.client.SoapHeaderHandler;
 import jakarta.xml.ws.BindingProvider;
 import jakarta.xml.ws.handler.Handler;
 import java.util.List;
+import org.apache.cxf.configuration.jsse.TLSClientParameters;
 import org.apache.cxf.endpoint.Client;
 import org.apache.cxf.frontend.ClientProxy;
+import org.apache.cxf.jaxws.JaxWsProxyFactoryBean;
 import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transports.http.configuration.ConnectionType;
 import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,9 +22,12 @@ import wsdl.soapserver_v100.Soapserver;
 public class EvasysClientConfiguration {
 
     @Bean
-    public SoapPort evasysSoapPort(final EvasysProperties props) {
-        final Soapserver service = new Soapserver();
-        final SoapPort port = service.getSoapPort();
+    public SoapPort evasysSoapPort(
+            final EvasysProperties props,
+            final HttpTransportProperties httpProps) {
+        final SoapPort port = props.serviceModel() == EvasysProperties.ServiceModel.ANNOTATIONS
+                ? createPortFromAnnotations(props.uri())
+                : new Soapserver().getSoapPort();
 
         final BindingProvider bp = (BindingProvider) port;
         bp.getRequestContext().put(BindingProvider.ENDPOINT_ADDRESS_PROPERTY, props.uri());
@@ -35,14 +42,35 @@ public class EvasysClientConfiguration {
         httpClientPolicy.setAllowChunking(false);
         httpClientPolicy.setConnectionTimeout(props.connectionTimeout().toMillis());
         httpClientPolicy.setReceiveTimeout(props.receiveTimeout().toMillis());
+        httpClientPolicy.setConnection(httpProps.keepAlive() ? ConnectionType.KEEP_ALIVE : ConnectionType.CLOSE);
 
         conduit.setClient(httpClientPolicy);
 
-        @SuppressWarnings("rawtypes")
-        final List<Handler> handlers = bp.getBinding().getHandlerChain();
-        handlers.add(new SoapHeaderHandler(props.username(), props.password()));
-        bp.getBinding().setHandlerChain(handlers);
+        final TLSClientParameters tlsClientParameters = new TLSClientParameters();
+        tlsClientParameters.setSslCacheTimeout((int) httpProps.tlsSessionTimeout().toSeconds());
+        conduit.setTlsClientParameters(tlsClientParameters);
+
+        if (props.streamingAuthHeader()) {
+            client.getOutInterceptors().add(new SoapAuthHeaderInterceptor(props.username(), props.password()));
+        } else {
+            // a JAX-WS handler makes CXF build every outbound message as a SAAJ DOM
+            @SuppressWarnings("rawtypes")
+            final List<Handler> handlers = bp.getBinding().getHandlerChain();
+            handlers.add(new SoapHeaderHandler(props.username(), props.password()));
+            bp.getBinding().setHandlerChain(handlers);
+        }
 
         return port;
     }
+
+    // builds the service model from the annotations of the generated interface instead of
+    // parsing the 300 KB WSDL with all operations of evasys
+    private static SoapPort createPortFromAnnotations(final String address) {
+        final JaxWsProxyFactoryBean factory = new JaxWsProxyFactoryBean();
+        factory.setServiceClass(SoapPort.class);
+        factory.setServiceName(Soapserver.SERVICE);
+        factory.setEndpointName(Soapserver.SoapPort);
+        factory.setAddress(address);
+        return factory.create(SoapPort.class);
+    }
 }
@@ -15,5 +15,12 @@ public record EvasysProperties(
         @NotBlank String password,
         @NotNull @DefaultValue("10s") Duration connectionTimeout,
         @NotNull @DefaultValue("30s") Duration receiveTimeout,
-        @NotBlank String defaultTeilbereichId) {
+        @NotBlank String defaultTeilbereichId,
+        @DefaultValue("false") boolean streamingAuthHeader,
+        @NotNull @DefaultValue("wsdl") ServiceModel serviceModel) {
+
+    public enum ServiceModel {
+        WSDL,
+        ANNOTATIONS,
+    }
 }
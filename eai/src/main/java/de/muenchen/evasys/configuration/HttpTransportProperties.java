@@ -0,0 +1,14 @@
+package de.muenchen.evasys.configuration;
+
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+@ConfigurationProperties(prefix = "evasys.http")
+@Validated
+public record HttpTransportProperties(
+        @DefaultValue("true") boolean keepAlive,
+        @NotNull @DefaultValue("1h") Duration tlsSessionTimeout) {
+}
@@ -0,0 +1,19 @@
+package de.muenchen.evasys.configuration;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+@ConfigurationProperties(prefix = "evasys.idempotency")
+@Validated
+public record IdempotencyProperties(
+        @DefaultValue("false") boolean enabled,
+        @NotNull @DefaultValue("3d") Duration window,
+        @Min(1) @Max(10_000_000) @DefaultValue("1000000") int maxEntries,
+        @NotNull @DefaultValue("idempotency") Path directory) {
+}
@@ -0,0 +1,24 @@
+package de.muenchen.evasys.configuration;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+@ConfigurationProperties(prefix = "evasys.intake")
+@Validated
+public record IntakeProperties(
+        @NotNull @DefaultValue("synchronous") Mode mode,
+        @Min(1) @DefaultValue("50") int queueCapacity,
+        @Min(1) @DefaultValue("2") int workers,
+        @NotNull @DefaultValue("30s") Duration shutdownTimeout,
+        @DefaultValue("false") boolean streaming,
+        @Min(1) @DefaultValue("100") int streamChunkSize) {
+
+    public enum Mode {
+        SYNCHRONOUS,
+        ASYNCHRONOUS,
+    }
+}
@@ -0,0 +1,16 @@
+package de.muenchen.evasys.configuration;
+
+import jakarta.validation.constraints.NotNull;
+import java.nio.file.Path;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+@ConfigurationProperties(prefix = "evasys.journal")
+@Validated
+public record JournalProperties(
+        @DefaultValue("false") boolean enabled,
+        @NotNull @DefaultValue("journal") Path directory,
+        @NotNull @DefaultValue("64MB") DataSize compactionThreshold) {
+}
@@ -1,15 +1,23 @@
 package de.muenchen.evasys.configuration;
 
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
 import java.util.List;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
 import org.springframework.validation.annotation.Validated;
 
 @ConfigurationProperties(prefix = "evasys.notification")
 @Validated
 public record NotificationProperties(
         @NotBlank String from,
-        List<String> recipients) {
+        List<String> recipients,
+        @DefaultValue("false") boolean digestEnabled,
+        @NotNull @DefaultValue("5m") Duration digestInterval,
+        @Min(1) @DefaultValue("1000") int queueCapacity,
+        @Min(1) @DefaultValue("20") int maxDetailsPerGroup) {
     public List<String> recipients() {
         return recipients == null ? List.of() : List.copyOf(recipients);
     }
@@ -0,0 +1,28 @@
+package de.muenchen.evasys.configuration;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+@ConfigurationProperties(prefix = "evasys.processing")
+@Validated
+public record ProcessingProperties(
+        @NotNull @DefaultValue("sequential") Mode mode,
+        @Min(1) @DefaultValue("8") int maxConcurrency,
+        @Min(1) @DefaultValue("1") int courseBatchSize,
+        @DefaultValue("false") boolean courseIndex,
+        @Min(1) @DefaultValue("10") int courseIndexMinItems,
+        @DefaultValue("false") boolean coalesceTrainers,
+        @Min(1) @DefaultValue("100") int stageQueueCapacity,
+        @Min(1) @DefaultValue("1") int normalizationWorkers,
+        @Min(1) @DefaultValue("4") int trainerWorkers,
+        @Min(1) @DefaultValue("4") int courseWorkers) {
+
+    public enum Mode {
+        SEQUENTIAL,
+        PARALLEL,
+        PIPELINE,
+    }
+}
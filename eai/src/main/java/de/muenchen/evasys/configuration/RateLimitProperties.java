@@ -0,0 +1,21 @@
+package de.muenchen.evasys.configuration;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+@ConfigurationProperties(prefix = "evasys.rate-limit")
+@Validated
+public record RateLimitProperties(
+        @DefaultValue("false") boolean enabled,
+        @DecimalMin("0.01") @DefaultValue("10") double readsPerSecond,
+        @DecimalMin("0.01") @DefaultValue("5") double writesPerSecond,
+        @Min(1) @DefaultValue("10") int burst,
+        @NotNull @DefaultValue("30s") Duration acquireTimeout,
+        @Min(0) @DefaultValue("0") long dailyQuota,
+        @NotNull @DefaultValue("5m") Duration quotaPollInterval) {
+}
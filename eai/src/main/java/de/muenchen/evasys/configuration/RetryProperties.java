@@ -0,0 +1,21 @@
+package de.muenchen.evasys.configuration;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+@ConfigurationProperties(prefix = "evasys.retry")
+@Validated
+public record RetryProperties(
+        @DefaultValue("false") boolean enabled,
+        @Min(1) @DefaultValue("3") int maxAttempts,
+        @NotNull @DefaultValue("200ms") Duration initialBackoff,
+        @NotNull @DefaultValue("5s") Duration maxBackoff,
+        @DecimalMin("0.0") @DecimalMax("1.0") @DefaultValue("0.2") double budgetRatio,
+        @Min(1) @DefaultValue("10") int budgetMaxRetries) {
+}
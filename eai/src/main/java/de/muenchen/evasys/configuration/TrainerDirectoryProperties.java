@@ -0,0 +1,17 @@
+package de.muenchen.evasys.configuration;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+@ConfigurationProperties(prefix = "evasys.trainer-directory")
+@Validated
+public record TrainerDirectoryProperties(
+        @DefaultValue("true") boolean enabled,
+        @NotNull @DefaultValue("10m") Duration ttl,
+        @Min(1) @DefaultValue("100") int maxSubunits,
+        @Min(1) @DefaultValue("3") int loadThreshold) {
+}
@@ -2,12 +2,14 @@ package de.muenchen.evasys.configuration;
 
 import de.lhm.pi.evasys.afs.SITrainingASIB;
 import de.muenchen.evasys.endpoint.SapServiceEndpoint;
-import de.muenchen.evasys.service.TrainingProcessorService;
+import de.muenchen.evasys.endpoint.StreamingIntakeInterceptor;
+import de.muenchen.evasys.service.TrainingIntakeService;
 import jakarta.xml.ws.Endpoint;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.cxf.Bus;
 import org.apache.cxf.jaxws.EndpointImpl;
+import org.apache.cxf.message.Message;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -15,16 +17,16 @@ import org.springframework.context.annotation.Configuration;
 public class WebServiceConfiguration {
     private final SapPoProperties props;
 
-    private final TrainingProcessorService trainingProcessorService;
+    private final TrainingIntakeService trainingIntakeService;
 
-    public WebServiceConfiguration(final SapPoProperties props, final TrainingProcessorService trainingProcessorService) {
+    public WebServiceConfiguration(final SapPoProperties props, final TrainingIntakeService trainingIntakeService) {
         this.props = props;
-        this.trainingProcessorService = trainingProcessorService;
+        this.trainingIntakeService = trainingIntakeService;
     }
 
     @Bean
     public SITrainingASIB sapService() {
-        return new SapServiceEndpoint(trainingProcessorService);
+        return new SapServiceEndpoint(trainingIntakeService);
     }
 
     @Bean
@@ -33,6 +35,14 @@ public class WebServiceConfiguration {
         final Map<String, Object> propsMap = new HashMap<>();
         propsMap.put("ws-security.username", props.username());
         propsMap.put("ws-security.password", props.password());
+        if (trainingIntakeService.isAsynchronous()) {
+            // invoke the one-way operation before answering SAP-PO, so that a full intake
+            // queue is reported back as a fault instead of being acknowledged with 202
+            propsMap.put(Message.ROBUST_ONEWAY, true);
+        }
+        if (trainingIntakeService.isStreaming()) {
+            endpoint.getInInterceptors().add(new StreamingIntakeInterceptor(trainingIntakeService));
+        }
         endpoint.setProperties(propsMap);
         endpoint.publish("/evasyseai");
         return endpoint;
@@ -2,7 +2,10 @@ package de.muenchen.evasys.endpoint;
 
 import com.sap.document.sap.rfc.functions.ZLSOEVASYSRFC;
 import de.lhm.pi.evasys.afs.SITrainingASIB;
-import de.muenchen.evasys.service.TrainingProcessorService;
+import de.muenchen.evasys.exception.IntakeRejectedException;
+import de.muenchen.evasys.service.TrainingIntakeService;
+import java.net.HttpURLConnection;
+import org.apache.cxf.interceptor.Fault;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,16 +13,21 @@ public class SapServiceEndpoint implements SITrainingASIB {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SapServiceEndpoint.class);
 
-    private final TrainingProcessorService trainingProcessorService;
+    private final TrainingIntakeService trainingIntakeService;
 
-    public SapServiceEndpoint(final TrainingProcessorService trainingProcessorService) {
-        this.trainingProcessorService = trainingProcessorService;
+    public SapServiceEndpoint(final TrainingIntakeService trainingIntakeService) {
+        this.trainingIntakeService = trainingIntakeService;
     }
 
     @Override
     public void siTrainingASIB(final ZLSOEVASYSRFC trainingRequest) {
         try {
-            trainingProcessorService.processTrainingRequest(trainingRequest);
+            trainingIntakeService.submit(trainingRequest);
+        } catch (IntakeRejectedException e) {
+            LOGGER.warn("Rejecting SAP message: {}", e.getMessage());
+            final Fault fault = new Fault(e);
+            fault.setStatusCode(HttpURLConnection.HTTP_UNAVAILABLE);
+            throw fault;
         } catch (Exception e) {
             LOGGER.error("Error processing SAP message", e);
         }
@@ -0,0 +1,75 @@
+package de.muenchen.evasys.endpoint;
+
+import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
+import de.muenchen.evasys.service.TrainingIntakeService;
+import de.muenchen.evasys.service.TrainingIntakeService.StreamedRequest;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.wsdl.interceptors.DocLiteralInInterceptor;
+
+// hands the items of a SAP-PO message to the intake while the message is parsed instead of
+// unmarshalling the whole table first, so heap use does not grow with the size of the message
+public class StreamingIntakeInterceptor extends AbstractPhaseInterceptor<Message> {
+
+    private final TrainingIntakeService trainingIntakeService;
+    private final JAXBContext jaxbContext;
+
+    public StreamingIntakeInterceptor(final TrainingIntakeService trainingIntakeService) {
+        super(Phase.UNMARSHAL);
+        addBefore(DocLiteralInInterceptor.class.getName());
+        this.trainingIntakeService = trainingIntakeService;
+        try {
+            this.jaxbContext = JAXBContext.newInstance(ZLSOSTEVASYSRFC.class);
+        } catch (JAXBException e) {
+            throw new IllegalStateException("Cannot create JAXB context for training items", e);
+        }
+    }
+
+    @Override
+    public void handleMessage(final Message message) {
+        final XMLStreamReader reader = message.getContent(XMLStreamReader.class);
+        if (reader == null) {
+            return;
+        }
+        final StreamedRequest request = trainingIntakeService.openStream();
+        message.getExchange().put(StreamedRequest.class, request);
+        try {
+            message.setContent(XMLStreamReader.class,
+                    new TrainingItemStreamReader(reader, jaxbContext.createUnmarshaller(), request, request::close));
+        } catch (JAXBException e) {
+            request.close();
+            throw new Fault(e);
+        }
+        // in case the message contains no table to end the stream
+        message.getInterceptorChain().add(new StreamClosingInterceptor());
+    }
+
+    @Override
+    public void handleFault(final Message message) {
+        closeStream(message);
+    }
+
+    private static void closeStream(final Message message) {
+        final StreamedRequest request = message.getExchange().get(StreamedRequest.class);
+        if (request != null) {
+            request.close();
+        }
+    }
+
+    private static final class StreamClosingInterceptor extends AbstractPhaseInterceptor<Message> {
+
+        private StreamClosingInterceptor() {
+            super(Phase.POST_UNMARSHAL);
+        }
+
+        @Override
+        public void handleMessage(final Message message) {
+            closeStream(message);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package de.muenchen.evasys.endpoint;
+
+import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+import java.util.function.Consumer;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+
+// hides the items of the IT_EVASYS_RFC table from whoever reads the message and hands
+// each item to the consumer as soon as it is parsed, so only one item is held in memory
+final class TrainingItemStreamReader extends StreamReaderDelegate {
+
+    private static final String TABLE = "IT_EVASYS_RFC";
+
+    private final Unmarshaller unmarshaller;
+    private final Consumer<ZLSOSTEVASYSRFC> items;
+    private final Runnable tableEnd;
+    private boolean inTable;
+
+    TrainingItemStreamReader(
+            final XMLStreamReader reader,
+            final Unmarshaller unmarshaller,
+            final Consumer<ZLSOSTEVASYSRFC> items,
+            final Runnable tableEnd) {
+        super(reader);
+        this.unmarshaller = unmarshaller;
+        this.items = items;
+        this.tableEnd = tableEnd;
+    }
+
+    @Override
+    public int next() throws XMLStreamException {
+        int event = super.next();
+        // every element inside the table is an item, its content is consumed by the unmarshaller
+        while (inTable && event == XMLStreamConstants.START_ELEMENT) {
+            items.accept(unmarshalItem());
+            event = getParent().getEventType();
+        }
+        if (event == XMLStreamConstants.START_ELEMENT && TABLE.equals(getLocalName())) {
+            inTable = true;
+        } else if (inTable && event == XMLStreamConstants.END_ELEMENT) {
+            inTable = false;
+            tableEnd.run();
+        }
+        return event;
+    }
+
+    // the parent's nextTag would bypass the filter in next
+    @Override
+    public int nextTag() throws XMLStreamException {
+        int event = next();
+        while (event == XMLStreamConstants.CHARACTERS && isWhiteSpace()
+                || event == XMLStreamConstants.SPACE
+                || event == XMLStreamConstants.COMMENT
+                || event == XMLStreamConstants.PROCESSING_INSTRUCTION) {
+            event = next();
+        }
+        if (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT) {
+            throw new XMLStreamException("Expected start or end tag", getLocation());
+        }
+        return event;
+    }
+
+    // leaves the parent on the event following the item's end tag
+    private ZLSOSTEVASYSRFC unmarshalItem() throws XMLStreamException {
+        try {
+            return unmarshaller.unmarshal(getParent(), ZLSOSTEVASYSRFC.class).getValue();
+        } catch (JAXBException e) {
+            throw new XMLStreamException("Invalid item in " + TABLE, getLocation(), e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package de.muenchen.evasys.exception;
+
+// a course assumed to be new already exists in evasys and has to be updated instead
+@SuppressWarnings("serial")
+public class CourseAlreadyExistsException extends EvasysException {
+
+    public CourseAlreadyExistsException(final String message) {
+        super(message);
+    }
+
+    public CourseAlreadyExistsException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
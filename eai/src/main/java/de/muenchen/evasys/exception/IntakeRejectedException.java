@@ -0,0 +1,9 @@
+package de.muenchen.evasys.exception;
+
+@SuppressWarnings("serial")
+public class IntakeRejectedException extends EvasysException {
+
+    public IntakeRejectedException(final String message) {
+        super(message);
+    }
+}
@@ -11,6 +11,9 @@ import org.mapstruct.ReportingPolicy;
 import tools.jackson.databind.node.JsonNodeFactory;
 import tools.jackson.databind.node.ObjectNode;
 import wsdl.soapserver_v100.Course;
+import wsdl.soapserver_v100.CourseCreator;
+import wsdl.soapserver_v100.Instructor;
+import wsdl.soapserver_v100.ObjectFactory;
 import wsdl.soapserver_v100.User;
 
 @Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
@@ -48,6 +51,22 @@ public interface SapEvasysMapper {
     @Mapping(source = "TEILBEREICHID", target = "MNFbid")
     Course mapToCourse(ZLSOSTEVASYSRFC trainingData);
 
+    @Mapping(target = "anonymousParticipants", constant = "true")
+    @Mapping(source = "TRAININGID", target = "courseUid")
+    @Mapping(source = "TRAININGTITEL", target = "courseName")
+    @Mapping(source = "TRAININGART", target = "courseType")
+    @Mapping(source = "TRAININGSTYPKUERZEL", target = "courseProgramOfStudy")
+    @Mapping(source = "TRAININGRAUM", target = "roomName")
+    CourseCreator mapToCourseCreator(ZLSOSTEVASYSRFC trainingData);
+
+    @Mapping(source = "MSExternalId", target = "instructorUid")
+    @Mapping(source = "MSLoginName", target = "instructorLogin")
+    @Mapping(source = "MSTitle", target = "title")
+    @Mapping(source = "MSFirstName", target = "firstName")
+    @Mapping(source = "MSSurName", target = "lastName")
+    @Mapping(source = "MSEmail", target = "email")
+    Instructor mapToInstructor(User user);
+
     @Condition
     default boolean isNotNullOrEmpty(final String value) {
         return value != null && !value.isEmpty();
@@ -55,6 +74,19 @@ public interface SapEvasysMapper {
 
     @AfterMapping
     default void buildCustomFieldsJson(final ZLSOSTEVASYSRFC source, @MappingTarget final Course target) {
+        target.setMSCustomFieldsJSON(customFieldsJson(source));
+    }
+
+    @AfterMapping
+    default void completeCourseCreator(final ZLSOSTEVASYSRFC source, @MappingTarget final CourseCreator target) {
+        target.setCustomFieldsJSON(customFieldsJson(source));
+        if (isNotNullOrEmpty(source.getTRAININGTNANZAHL())) {
+            target.setCourseEnrollment(new ObjectFactory().createCourseCreatorCourseEnrollment(
+                    Integer.valueOf(source.getTRAININGTNANZAHL())));
+        }
+    }
+
+    default String customFieldsJson(final ZLSOSTEVASYSRFC source) {
         final ObjectNode json = JsonNodeFactory.instance.objectNode();
         json.put("1", source.getTRAINERGESCHL());
         json.put("2", source.getTRAINEROBJTYP());
@@ -68,6 +100,6 @@ public interface SapEvasysMapper {
         json.put("10", String.join(" ", source.getSBVNAME(), source.getSBNNAME()));
         json.put("11", source.getTRAININGDAUERTAGE());
         json.put("12", source.getTRAININGDAUERSTD());
-        target.setMSCustomFieldsJSON(json.toString());
+        return json.toString();
     }
 }
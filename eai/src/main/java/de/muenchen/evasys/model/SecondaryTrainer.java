@@ -46,6 +46,16 @@ public record SecondaryTrainer(
         return trainers;
     }
 
+    // the IDs alone, without checking the other lists
+    public static List<String> idsFromTrainingData(final ZLSOSTEVASYSRFC trainingData) {
+        if (trainingData == null
+                || trainingData.getSEKTRAINERID() == null
+                || trainingData.getSEKTRAINERID().isBlank()) {
+            return List.of();
+        }
+        return splitIds(trainingData.getSEKTRAINERID());
+    }
+
     private static List<String> splitIds(final String str) {
         return Arrays.stream(str.split(";"))
                 .map(String::trim)
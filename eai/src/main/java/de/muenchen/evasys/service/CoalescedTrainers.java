@@ -0,0 +1,114 @@
+package de.muenchen.evasys.service;
+
+import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
+import de.muenchen.evasys.exception.EvasysException;
+import de.muenchen.evasys.model.SecondaryTrainer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// the distinct trainers of one batch of items, keyed by external ID and subunit; attributes of
+// the same trainer are merged in item order, the last non-empty value of each field wins
+final class CoalescedTrainers {
+
+    private final Map<Key, Trainer> trainers = new LinkedHashMap<>();
+
+    ItemTrainers add(final ZLSOSTEVASYSRFC trainingData, final int subunitId, final List<SecondaryTrainer> secondaryTrainers) {
+        final Key primary = merge(new Key(trainingData.getTRAINER1ID(), subunitId), trainingData, true, new SecondaryTrainer(
+                trainingData.getTRAINER1ID(),
+                trainingData.getTRAINER1ANREDE(),
+                trainingData.getTRAINER1TITEL(),
+                trainingData.getTRAINER1VNAME(),
+                trainingData.getTRAINER1NNAME(),
+                trainingData.getTRAINER1MAIL()));
+        final List<Key> secondaries = new ArrayList<>(secondaryTrainers.size());
+        for (final SecondaryTrainer secondaryTrainer : secondaryTrainers) {
+            secondaries.add(merge(new Key(secondaryTrainer.id(), subunitId), trainingData, false, secondaryTrainer));
+        }
+        return new ItemTrainers(primary, secondaries);
+    }
+
+    // in order of their first occurrence
+    Collection<Trainer> trainers() {
+        return trainers.values();
+    }
+
+    EvasysException failureOf(final Key key) {
+        return trainers.get(key).failure;
+    }
+
+    private Key merge(final Key key, final ZLSOSTEVASYSRFC trainingData, final boolean primary, final SecondaryTrainer attributes) {
+        final Trainer trainer = trainers.computeIfAbsent(key, Trainer::new);
+        trainer.primary |= primary;
+        trainer.trainingData = trainingData;
+        trainer.attributes = trainer.attributes == null ? attributes : new SecondaryTrainer(
+                key.externalId(),
+                latest(trainer.attributes.anrede(), attributes.anrede()),
+                latest(trainer.attributes.titel(), attributes.titel()),
+                latest(trainer.attributes.vorname(), attributes.vorname()),
+                latest(trainer.attributes.nachname(), attributes.nachname()),
+                latest(trainer.attributes.email(), attributes.email()));
+        return key;
+    }
+
+    private static String latest(final String previous, final String next) {
+        return next == null || next.isBlank() ? previous : next;
+    }
+
+    record Key(String externalId, int subunitId) {
+    }
+
+    // the trainers of one item, primary trainer first
+    record ItemTrainers(Key primary, List<Key> secondaries) {
+    }
+
+    static final class Trainer {
+
+        private final Key key;
+        // written with the primary trainer fields if the trainer is TRAINER1 of any item
+        private boolean primary;
+        private SecondaryTrainer attributes;
+        // the last item the trainer occurs in, for the fields that are not merged
+        private ZLSOSTEVASYSRFC trainingData;
+        private EvasysException failure;
+
+        private Trainer(final Key key) {
+            this.key = key;
+        }
+
+        Key key() {
+            return key;
+        }
+
+        boolean primary() {
+            return primary;
+        }
+
+        SecondaryTrainer attributes() {
+            return attributes;
+        }
+
+        ZLSOSTEVASYSRFC trainingData() {
+            return trainingData;
+        }
+
+        // the merged attributes as the primary trainer of an item
+        ZLSOSTEVASYSRFC asTrainingData() {
+            final ZLSOSTEVASYSRFC merged = new ZLSOSTEVASYSRFC();
+            merged.setTEILBEREICHID(trainingData.getTEILBEREICHID());
+            merged.setTRAINER1ID(attributes.id());
+            merged.setTRAINER1ANREDE(attributes.anrede());
+            merged.setTRAINER1TITEL(attributes.titel());
+            merged.setTRAINER1VNAME(attributes.vorname());
+            merged.setTRAINER1NNAME(attributes.nachname());
+            merged.setTRAINER1MAIL(attributes.email());
+            return merged;
+        }
+
+        void fail(final EvasysException e) {
+            failure = e;
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package de.muenchen.evasys.service;
 
 import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
+import de.muenchen.evasys.client.CourseLookup;
 import de.muenchen.evasys.client.EvasysCourseClient;
 import de.muenchen.evasys.client.EvasysUserClient;
+import de.muenchen.evasys.exception.EvasysException;
 import de.muenchen.evasys.model.SecondaryTrainer;
 import java.util.List;
+import java.util.Map;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -24,8 +27,8 @@ public class EvasysService {
         return userClient.isTrainerExisting(trainerId, subunitId);
     }
 
-    public void updateTrainer(final ZLSOSTEVASYSRFC trainingData) {
-        userClient.updateTrainer(trainingData);
+    public boolean updateTrainer(final ZLSOSTEVASYSRFC trainingData) {
+        return userClient.updateTrainer(trainingData);
     }
 
     public void insertTrainer(final ZLSOSTEVASYSRFC trainingData) {
@@ -36,23 +39,31 @@ public class EvasysService {
         return SecondaryTrainer.fromTrainingData(trainingData);
     }
 
-    public void updateSecondaryTrainer(final SecondaryTrainer secondaryTrainer) {
-        userClient.updateSecondaryTrainer(secondaryTrainer);
+    public boolean updateSecondaryTrainer(final SecondaryTrainer secondaryTrainer) {
+        return userClient.updateSecondaryTrainer(secondaryTrainer);
     }
 
     public void insertSecondaryTrainer(final ZLSOSTEVASYSRFC trainingData, final SecondaryTrainer secondaryTrainer) {
         userClient.insertSecondaryTrainer(trainingData, secondaryTrainer);
     }
 
-    public boolean courseExists(final int courseId) {
-        return courseClient.isCourseExisting(courseId);
+    public void indexCourses(final List<ZLSOSTEVASYSRFC> trainings, final CourseLookup courses, final int minItems) {
+        courseClient.indexCourses(trainings, courses, minItems);
     }
 
-    public void updateCourse(final ZLSOSTEVASYSRFC trainingData) {
-        courseClient.updateCourse(trainingData);
+    public boolean courseExists(final int courseId, final CourseLookup courses) {
+        return courseClient.isCourseExisting(courseId, courses);
     }
 
-    public void insertCourse(final ZLSOSTEVASYSRFC trainingData) {
-        courseClient.insertCourse(trainingData);
+    public boolean updateCourse(final ZLSOSTEVASYSRFC trainingData, final CourseLookup courses) {
+        return courseClient.updateCourse(trainingData, courses);
+    }
+
+    public void insertCourse(final ZLSOSTEVASYSRFC trainingData, final CourseLookup courses) {
+        courseClient.insertCourse(trainingData, courses);
+    }
+
+    public Map<String, EvasysException> insertCourses(final List<ZLSOSTEVASYSRFC> trainings, final CourseLookup courses) {
+        return courseClient.insertCourses(trainings, courses);
     }
 }
@@ -0,0 +1,203 @@
+package de.muenchen.evasys.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
+import de.muenchen.evasys.configuration.IdempotencyProperties;
+import de.muenchen.evasys.exception.EvasysException;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+@Component
+public class FingerprintStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FingerprintStore.class);
+    private static final String STORE_FILE = "fingerprints.bin";
+    // "EVASYSF" and the version of the slot layout
+    private static final long MAGIC = 0x4556_4153_5953_4602L;
+    private static final int HEADER_SIZE = 16;
+    // a slot holds the hash of a TRAININGID, the fingerprint of the last item applied for it and
+    // the time it was applied; the table is memory-mapped, so it stays off the heap and survives restarts
+    private static final int SLOT_SIZE = 24;
+    private static final int FINGERPRINT_OFFSET = Long.BYTES;
+    private static final int APPLIED_AT_OFFSET = 2 * Long.BYTES;
+    private static final int MAX_PROBES = 32;
+    private static final long EMPTY = 0L;
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .changeDefaultPropertyInclusion(incl -> incl.withValueInclusion(JsonInclude.Include.NON_NULL))
+            .build();
+
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int slots;
+    // guards only the probe and the writes, items are hashed before taking it
+    private final Lock lock = new ReentrantLock();
+    private FileChannel channel;
+    private MappedByteBuffer table;
+
+    public FingerprintStore(final IdempotencyProperties properties) {
+        this.enabled = properties.enabled();
+        this.windowMillis = properties.window().toMillis();
+        // at most half of the slots are in use, which keeps probe sequences short
+        this.slots = Integer.highestOneBit(properties.maxEntries()) << 2;
+        if (enabled) {
+            open(properties.directory().resolve(STORE_FILE));
+        }
+    }
+
+    // only the last item applied for a TRAININGID counts, so a training changed back to
+    // earlier data is written again
+    public boolean isApplied(final ZLSOSTEVASYSRFC item) {
+        if (!enabled) {
+            return false;
+        }
+        final long key = key(item);
+        final long fingerprint = fingerprint(item);
+        final long oldest = System.currentTimeMillis() - windowMillis;
+        lock.lock();
+        try {
+            int slot = home(key);
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                final long stored = table.getLong(offset(slot));
+                if (stored == EMPTY) {
+                    return false;
+                }
+                if (stored == key) {
+                    return table.getLong(offset(slot) + FINGERPRINT_OFFSET) == fingerprint
+                            && table.getLong(offset(slot) + APPLIED_AT_OFFSET) >= oldest;
+                }
+                slot = next(slot);
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void markApplied(final ZLSOSTEVASYSRFC item) {
+        if (!enabled) {
+            return;
+        }
+        final long key = key(item);
+        final long fingerprint = fingerprint(item);
+        final long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            int slot = home(key);
+            int target = -1;
+            long targetAppliedAt = Long.MAX_VALUE;
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                final long stored = table.getLong(offset(slot));
+                if (stored == EMPTY || stored == key) {
+                    target = slot;
+                    break;
+                }
+                // without a free slot the oldest entry of the probe sequence is replaced
+                final long appliedAt = table.getLong(offset(slot) + APPLIED_AT_OFFSET);
+                if (appliedAt < targetAppliedAt) {
+                    target = slot;
+                    targetAppliedAt = appliedAt;
+                }
+                slot = next(slot);
+            }
+            table.putLong(offset(target), key);
+            table.putLong(offset(target) + FINGERPRINT_OFFSET, fingerprint);
+            table.putLong(offset(target) + APPLIED_AT_OFFSET, now);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            table.force();
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.warn("Could not close fingerprint store: {}", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open(final Path file) {
+        final long size = HEADER_SIZE + (long) slots * SLOT_SIZE;
+        try {
+            Files.createDirectories(file.getParent());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            final boolean reset = channel.size() != size || readMagic() != MAGIC;
+            if (reset) {
+                if (channel.size() > 0) {
+                    LOGGER.info("Fingerprint store {} was created with a different size or layout, starting empty", file);
+                }
+                channel.truncate(0);
+            }
+            table = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (reset) {
+                table.putLong(0, MAGIC);
+                table.putLong(Long.BYTES, slots);
+            }
+            LOGGER.info("Opened fingerprint store {} with {} slots", file, slots);
+        } catch (IOException e) {
+            throw new EvasysException("Could not open fingerprint store " + file, e);
+        }
+    }
+
+    private long readMagic() throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(Long.BYTES);
+        channel.read(header, 0);
+        return header.hasRemaining() ? EMPTY : header.getLong(0);
+    }
+
+    private static long key(final ZLSOSTEVASYSRFC item) {
+        return hash(String.valueOf(item.getTRAININGID()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long fingerprint(final ZLSOSTEVASYSRFC item) {
+        return hash(MAPPER.writeValueAsBytes(item));
+    }
+
+    private static long hash(final byte[] content) {
+        try {
+            final byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+            long value = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                value = value << 8 | (hash[i] & 0xFF);
+            }
+            return value == EMPTY ? 1 : value;
+        } catch (NoSuchAlgorithmException e) {
+            throw new EvasysException("SHA-256 not available", e);
+        }
+    }
+
+    private int home(final long key) {
+        return (int) (key ^ key >>> 32) & (slots - 1);
+    }
+
+    private int next(final int slot) {
+        return (slot + 1) & (slots - 1);
+    }
+
+    private static int offset(final int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+}
@@ -0,0 +1,292 @@
+package de.muenchen.evasys.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
+import de.muenchen.evasys.configuration.JournalProperties;
+import de.muenchen.evasys.exception.EvasysException;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+@Component
+public class InboxJournal {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InboxJournal.class);
+    private static final String JOURNAL_FILE = "inbox.journal";
+    private static final String COMPACTED_FILE = "inbox.journal.compacted";
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .changeDefaultPropertyInclusion(incl -> incl.withValueInclusion(JsonInclude.Include.NON_NULL))
+            .build();
+
+    private final boolean enabled;
+    private final long compactionThreshold;
+    private final Map<ZLSOSTEVASYSRFC, Long> pending = new IdentityHashMap<>();
+    private final List<ZLSOSTEVASYSRFC> recovered = new ArrayList<>();
+    // not synchronized: writes and fsyncs under a monitor would pin the carrier of a virtual thread
+    private final Lock lock = new ReentrantLock();
+    private final ExecutorService compaction;
+    private Path file;
+    private FileChannel channel;
+    private long nextSequence = 1;
+    // size right after the last compaction, the journal is only rewritten again once it has doubled
+    private long compactedSize;
+    private boolean compactionScheduled;
+
+    public InboxJournal(final JournalProperties properties) {
+        this.enabled = properties.enabled();
+        this.compactionThreshold = properties.compactionThreshold().toBytes();
+        if (enabled) {
+            open(properties.directory().resolve(JOURNAL_FILE));
+            this.compaction = Executors.newSingleThreadExecutor(
+                    Thread.ofPlatform().daemon().name("inbox-journal-compaction").factory());
+        } else {
+            this.compaction = null;
+        }
+    }
+
+    public List<ZLSOSTEVASYSRFC> recover() {
+        lock.lock();
+        try {
+            final List<ZLSOSTEVASYSRFC> items = List.copyOf(recovered);
+            recovered.clear();
+            return items;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void record(final List<ZLSOSTEVASYSRFC> items) {
+        if (!enabled || items.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            final StringBuilder records = new StringBuilder();
+            final long firstSequence = nextSequence;
+            for (final ZLSOSTEVASYSRFC item : items) {
+                records.append(MAPPER.writeValueAsString(new JournalRecord(nextSequence++, item))).append('\n');
+            }
+            // one fsync per received message; completion markers piggyback on the next one
+            write(channel, records, true);
+            for (int i = 0; i < items.size(); i++) {
+                pending.put(items.get(i), firstSequence + i);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void complete(final ZLSOSTEVASYSRFC item) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            final Long sequence = pending.remove(item);
+            if (sequence == null) {
+                return;
+            }
+            write(channel, new StringBuilder(MAPPER.writeValueAsString(new JournalRecord(sequence, null))).append('\n'), false);
+            scheduleCompactionIfNeeded();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void completeAll(final List<ZLSOSTEVASYSRFC> items) {
+        items.forEach(this::complete);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        // a scheduled compaction still runs, it needs the lock
+        lock.lock();
+        try {
+            compaction.shutdown();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            compaction.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.warn("Could not close inbox journal: {}", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open(final Path journalFile) {
+        this.file = journalFile;
+        try {
+            Files.createDirectories(file.getParent());
+            // left over if a compaction was interrupted, the journal itself is still complete
+            Files.deleteIfExists(file.resolveSibling(COMPACTED_FILE));
+            final byte[] content = Files.exists(file) ? Files.readAllBytes(file) : new byte[0];
+            final int complete = completeLength(content);
+            final Map<Long, ZLSOSTEVASYSRFC> unfinished = readUnfinished(new String(content, 0, complete, StandardCharsets.UTF_8));
+            unfinished.forEach((sequence, item) -> {
+                pending.put(item, sequence);
+                recovered.add(item);
+                nextSequence = Math.max(nextSequence, sequence + 1);
+            });
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            if (complete < content.length) {
+                // a crash during a write leaves a torn last line behind, the next record must not be appended to it
+                LOGGER.warn("Discarding torn last record of inbox journal {} ({} bytes)", file, content.length - complete);
+                channel.truncate(complete);
+                channel.force(false);
+            }
+            compactedSize = complete;
+            LOGGER.info("Opened inbox journal {} with {} unfinished item(s)", file, unfinished.size());
+        } catch (IOException e) {
+            throw new EvasysException("Could not open inbox journal " + file, e);
+        }
+    }
+
+    // length up to and including the last newline
+    private static int completeLength(final byte[] content) {
+        for (int i = content.length - 1; i >= 0; i--) {
+            if (content[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private Map<Long, ZLSOSTEVASYSRFC> readUnfinished(final String content) {
+        final Map<Long, ZLSOSTEVASYSRFC> unfinished = new TreeMap<>();
+        for (final String line : content.lines().toList()) {
+            try {
+                final JsonNode node = MAPPER.readTree(line);
+                if (node == null || !node.has("sequence")) {
+                    continue;
+                }
+                final long sequence = node.get("sequence").asLong();
+                if (node.has("item")) {
+                    unfinished.put(sequence, MAPPER.treeToValue(node.get("item"), ZLSOSTEVASYSRFC.class));
+                } else {
+                    unfinished.remove(sequence);
+                }
+                nextSequence = Math.max(nextSequence, sequence + 1);
+            } catch (JacksonException e) {
+                LOGGER.warn("Skipping unreadable inbox journal record: {}", e.getMessage());
+            }
+        }
+        return unfinished;
+    }
+
+    private static void write(final FileChannel target, final CharSequence records, final boolean force) {
+        try {
+            final ByteBuffer buffer = StandardCharsets.UTF_8.encode(records.toString());
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+            if (force) {
+                target.force(false);
+            }
+        } catch (IOException e) {
+            throw new EvasysException("Could not write inbox journal", e);
+        }
+    }
+
+    // the rewrite runs on the compaction thread, complete() only appends the marker
+    private void scheduleCompactionIfNeeded() {
+        if (compactionScheduled || compaction.isShutdown()) {
+            return;
+        }
+        try {
+            if (channel.size() < Math.max(compactionThreshold, 2 * compactedSize)) {
+                return;
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not determine inbox journal size: {}", e.getMessage());
+            return;
+        }
+        compactionScheduled = true;
+        compaction.execute(this::compact);
+    }
+
+    private void compact() {
+        lock.lock();
+        try {
+            compactionScheduled = false;
+            if (!channel.isOpen()) {
+                return;
+            }
+            LOGGER.info("Compacting inbox journal with {} pending item(s)", pending.size());
+            if (pending.isEmpty()) {
+                channel.truncate(0);
+                channel.force(false);
+            } else {
+                rewritePending();
+            }
+            compactedSize = channel.size();
+        } catch (IOException | EvasysException e) {
+            LOGGER.warn("Could not compact inbox journal: {}", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // under constant load items are always pending, so the completed records are dropped by
+    // writing the pending ones to a new file that atomically replaces the journal; items already
+    // normalized are written normalized, normalizing them again on recovery changes nothing
+    private void rewritePending() throws IOException {
+        final StringBuilder records = new StringBuilder();
+        pending.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue())
+                .forEach(entry -> records.append(MAPPER.writeValueAsString(new JournalRecord(entry.getValue(), entry.getKey()))).append('\n'));
+        final Path compacted = file.resolveSibling(COMPACTED_FILE);
+        Files.deleteIfExists(compacted);
+        // the new channel stays open across the move, so appends go to the file that replaced the journal
+        final FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        try {
+            write(target, records, true);
+            Files.move(compacted, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | EvasysException e) {
+            target.close();
+            Files.deleteIfExists(compacted);
+            throw e;
+        }
+        final FileChannel previous = channel;
+        channel = target;
+        previous.close();
+    }
+
+    private record JournalRecord(long sequence, ZLSOSTEVASYSRFC item) {
+    }
+}
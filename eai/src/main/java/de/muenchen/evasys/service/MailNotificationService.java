@@ -3,12 +3,26 @@ package de.muenchen.evasys.service;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
 import de.muenchen.evasys.configuration.NotificationProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.mail.internet.MimeMessage;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,6 +32,7 @@ import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 import tools.jackson.databind.ObjectMapper;
 import tools.jackson.databind.json.JsonMapper;
+import wsdl.soapserver_v100.SoapfaultMessage;
 
 @Service
 public class MailNotificationService {
@@ -28,9 +43,22 @@ public class MailNotificationService {
     private static final ObjectMapper MAPPER = JsonMapper.builder()
             .changeDefaultPropertyInclusion(incl -> incl.withValueInclusion(JsonInclude.Include.NON_NULL))
             .build();
+    private static final String NO_ERROR_CODE = "none";
+
+    private record Failure(Instant occurredAt, String stage, String errorCode, String errorMessage, String request) {
+    }
+
+    private record FailureGroup(String stage, String errorCode) {
+    }
+
     private final JavaMailSender mailSender;
     private final NotificationProperties notificationProperties;
     private final Environment environment;
+    // only set with digests enabled; failures wait here for the sender thread, and
+    // failures not fitting in are only counted per stage so processing never blocks
+    private final BlockingQueue<Failure> pendingFailures;
+    private final Map<String, AtomicLong> droppedFailures = new ConcurrentHashMap<>();
+    private ScheduledExecutorService digestSender;
 
     public MailNotificationService(
             final JavaMailSender mailSender,
@@ -39,9 +67,122 @@ public class MailNotificationService {
         this.mailSender = mailSender;
         this.notificationProperties = notificationProperties;
         this.environment = environment;
+        this.pendingFailures = notificationProperties.digestEnabled()
+                ? new ArrayBlockingQueue<>(notificationProperties.queueCapacity())
+                : null;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (pendingFailures != null) {
+            final long interval = notificationProperties.digestInterval().toMillis();
+            digestSender = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("mail-digest-sender").daemon().factory());
+            digestSender.scheduleWithFixedDelay(this::sendDigest, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (digestSender != null) {
+            digestSender.shutdown();
+            try {
+                digestSender.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (pendingFailures != null) {
+            sendDigest();
+        }
     }
 
     public void notifyError(final String subject, final String errorMessage, final Throwable throwable, final Object requestObj) {
+        if (pendingFailures == null) {
+            sendError(subject, errorMessage, throwable, requestObj);
+            return;
+        }
+        final Failure failure = new Failure(Instant.now(), subject, errorCode(throwable), errorMessage,
+                truncate(formatRequest(requestObj), 500));
+        if (!pendingFailures.offer(failure)) {
+            droppedFailures.computeIfAbsent(subject, stage -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    // sends all failures collected since the last digest in one mail, grouped by stage and error code
+    synchronized void sendDigest() {
+        final List<Failure> failures = new ArrayList<>();
+        pendingFailures.drainTo(failures);
+        final Map<String, Long> dropped = new LinkedHashMap<>();
+        droppedFailures.forEach((stage, count) -> {
+            final long stageDropped = count.getAndSet(0);
+            if (stageDropped > 0) {
+                dropped.put(stage, stageDropped);
+            }
+        });
+        if (failures.isEmpty() && dropped.isEmpty()) {
+            return;
+        }
+        final long droppedTotal = dropped.values().stream().mapToLong(Long::longValue).sum();
+        if (droppedTotal > 0) {
+            LOGGER.warn("Notification queue was full, {} failure(s) left out of the error digest", droppedTotal);
+        }
+
+        try {
+            final MimeMessage msg = mailSender.createMimeMessage();
+            final MimeMessageHelper helper = new MimeMessageHelper(msg, false, "UTF-8");
+
+            helper.setFrom(notificationProperties.from());
+            helper.setTo(notificationProperties.recipients().toArray(String[]::new));
+            final String environmentLabel = formatEnvironmentLabel();
+            helper.setSubject("Fehler evasys-EAI [" + environmentLabel + "]: " + (failures.size() + droppedTotal) + " Fehler");
+
+            final StringBuilder body = new StringBuilder();
+            body.append(String.format("<h2>Fehlerübersicht</h2>%n<p><strong>Umgebung:</strong> %s</p>%n", escapeHtml(environmentLabel)));
+            failures.stream()
+                    .collect(Collectors.groupingBy(failure -> new FailureGroup(failure.stage(), failure.errorCode()),
+                            LinkedHashMap::new, Collectors.toList()))
+                    .forEach((group, groupFailures) -> appendGroup(body, group, groupFailures));
+            dropped.forEach((stage, count) -> body.append(String.format(
+                    "<p><strong>%s:</strong> %d weitere Fehler wegen Überlast nicht erfasst</p>%n", escapeHtml(stage), count)));
+
+            helper.setText(body.toString(), true);
+            mailSender.send(msg);
+
+        } catch (Exception e) {
+            LOGGER.error("Could not send error digest email");
+        }
+    }
+
+    private void appendGroup(final StringBuilder body, final FailureGroup group, final List<Failure> failures) {
+        body.append(String.format("<h3>%s (%s): %d</h3>%n<ul>%n",
+                escapeHtml(group.stage()), escapeHtml(group.errorCode()), failures.size()));
+        final int details = Math.min(failures.size(), notificationProperties.maxDetailsPerGroup());
+        for (final Failure failure : failures.subList(0, details)) {
+            body.append(String.format("<li>%s: %s<br/><code>%s</code></li>%n",
+                    failure.occurredAt(), escapeHtml(failure.errorMessage()), escapeHtml(failure.request())));
+        }
+        if (failures.size() > details) {
+            body.append(String.format("<li>... und %d weitere</li>%n", failures.size() - details));
+        }
+        body.append("</ul>").append(System.lineSeparator());
+    }
+
+    private static String errorCode(final Throwable throwable) {
+        if (throwable == null) {
+            return NO_ERROR_CODE;
+        }
+        Throwable root = throwable;
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SoapfaultMessage soapFault && soapFault.getFaultInfo() != null) {
+                return soapFault.getFaultInfo().getSErrorMessage();
+            }
+            root = cause;
+        }
+        return root.getClass().getSimpleName();
+    }
+
+    private void sendError(final String subject, final String errorMessage, final Throwable throwable, final Object requestObj) {
         try {
             final MimeMessage msg = mailSender.createMimeMessage();
             final MimeMessageHelper helper = new MimeMessageHelper(msg, false, "UTF-8");
@@ -1,8 +1,15 @@
 package de.muenchen.evasys.service;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -17,19 +24,68 @@ public class MetricsService {
         SECONDARY_TRAINER_PROCESSING_FAILED,
         COURSE_PROCESSED,
         COURSE_PROCESSING_FAILED,
+        TRAINER_UPDATE_SKIPPED,
+        SECONDARY_TRAINER_UPDATE_SKIPPED,
+        COURSE_UPDATE_SKIPPED,
+        TRAINING_DUPLICATE_SKIPPED,
     }
 
-    private final MeterRegistry meterRegistry;
+    // all meters are registered up front, recording an event is a plain increment
+    // without registry lookups or allocations
+    private final Map<EventType, Counter> eventCounters = new EnumMap<>(EventType.class);
+    private final DistributionSummary requestSize;
+    private final Timer itemDuration;
+    private final AtomicInteger requestsInFlight = new AtomicInteger();
+    private final AtomicInteger itemsInFlight = new AtomicInteger();
 
     public MetricsService(final MeterRegistry meterRegistry) {
-        this.meterRegistry = meterRegistry;
+        for (final EventType eventType : EventType.values()) {
+            eventCounters.put(eventType, Counter.builder("evasys.events")
+                    .tags("event_type", eventType.name().toLowerCase(Locale.ROOT))
+                    .description("All events related to evasys processing")
+                    .register(meterRegistry));
+        }
+        this.requestSize = DistributionSummary.builder("evasys.request.items")
+                .baseUnit("items")
+                .description("Training items per SAP-PO request")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.itemDuration = Timer.builder("evasys.item.duration")
+                .description("Time from the start of processing a training item until it is completed")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("evasys.processing.in.flight", requestsInFlight, AtomicInteger::get)
+                .tag("scope", "request")
+                .description("SAP-PO requests currently being processed")
+                .register(meterRegistry);
+        Gauge.builder("evasys.processing.in.flight", itemsInFlight, AtomicInteger::get)
+                .tag("scope", "item")
+                .description("Training items currently being processed")
+                .register(meterRegistry);
     }
 
     public void recordEvent(final EventType eventType) {
-        Counter.builder("evasys.events")
-                .tags("event_type", eventType.name().toLowerCase(Locale.ROOT))
-                .description("All events related to evasys processing")
-                .register(meterRegistry)
-                .increment();
+        eventCounters.get(eventType).increment();
+    }
+
+    public void requestStarted() {
+        requestsInFlight.incrementAndGet();
+    }
+
+    // the size is recorded at the end, a streamed request's size is only known once it is received
+    public void requestFinished(final int items) {
+        requestSize.record(items);
+        requestsInFlight.decrementAndGet();
+    }
+
+    // returns the start time to pass to itemFinished
+    public long itemStarted() {
+        itemsInFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    public void itemFinished(final long startedAt) {
+        itemDuration.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        itemsInFlight.decrementAndGet();
     }
 }
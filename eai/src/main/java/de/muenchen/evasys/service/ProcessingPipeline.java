@@ -0,0 +1,249 @@
+package de.muenchen.evasys.service;
+
+import de.muenchen.evasys.configuration.ProcessingProperties;
+import de.muenchen.evasys.exception.EvasysException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+// workers and bounded queues of the processing stages in pipeline mode, so a slow course write
+// does not hold up the trainers of the next items; only started in pipeline mode
+@Service
+public class ProcessingPipeline {
+
+    public enum Stage {
+        NORMALIZATION,
+        TRAINERS,
+        COURSES
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProcessingPipeline.class);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Map<Stage, StageWorkers> stages = new EnumMap<>(Stage.class);
+    private volatile boolean running = true;
+
+    public ProcessingPipeline(final ProcessingProperties processingProperties, final MeterRegistry meterRegistry) {
+        if (processingProperties.mode() != ProcessingProperties.Mode.PIPELINE) {
+            return;
+        }
+        stages.put(Stage.NORMALIZATION, new StageWorkers(Stage.NORMALIZATION, processingProperties.normalizationWorkers(),
+                processingProperties.stageQueueCapacity(), meterRegistry));
+        stages.put(Stage.TRAINERS, new StageWorkers(Stage.TRAINERS, processingProperties.trainerWorkers(),
+                processingProperties.stageQueueCapacity(), meterRegistry));
+        stages.put(Stage.COURSES, new StageWorkers(Stage.COURSES, processingProperties.courseWorkers(),
+                processingProperties.stageQueueCapacity(), meterRegistry));
+    }
+
+    // tasks with the same key run on the same worker in the order they were submitted;
+    // blocks while the worker's queue is full
+    void submit(final Stage stage, final String key, final Runnable task) {
+        final StageWorkers workers = stages.get(stage);
+        if (workers == null) {
+            throw new IllegalStateException("Processing pipeline is only available in pipeline mode");
+        }
+        workers.submit(key, task);
+    }
+
+    // orderKeys holds one key per item, items sharing a key are released in item order
+    Batch startBatch(final List<String> orderKeys) {
+        return new Batch(orderKeys);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        for (final StageWorkers workers : stages.values()) {
+            workers.executor.shutdown();
+        }
+        try {
+            for (final StageWorkers workers : stages.values()) {
+                if (!workers.executor.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                    LOGGER.warn("{} stage not drained on shutdown, {} item(s) dropped", workers.name, workers.depth());
+                    workers.executor.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stages.values().forEach(workers -> workers.executor.shutdownNow());
+        }
+    }
+
+    private final class StageWorkers {
+
+        private final String name;
+        private final List<BlockingQueue<QueuedTask>> queues;
+        private final ExecutorService executor;
+        private final Timer waitTimer;
+        private final Timer durationTimer;
+        private final AtomicInteger busy = new AtomicInteger();
+
+        private StageWorkers(final Stage stage, final int workers, final int queueCapacity, final MeterRegistry meterRegistry) {
+            this.name = stage.name().toLowerCase(Locale.ROOT);
+            // every worker has its own share of the stage's capacity, so tasks with the same key keep their order
+            this.queues = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                queues.add(new ArrayBlockingQueue<>(Math.max(1, queueCapacity / workers)));
+            }
+            this.waitTimer = Timer.builder("evasys.pipeline.queue.wait")
+                    .tag("stage", name)
+                    .description("Time a training item waits in the queue of a processing stage")
+                    .register(meterRegistry);
+            this.durationTimer = Timer.builder("evasys.pipeline.stage.duration")
+                    .tag("stage", name)
+                    .description("Time a processing stage works on a training item, including the hand-over to the next stage")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            Gauge.builder("evasys.pipeline.queue.depth", this, StageWorkers::depth)
+                    .tag("stage", name)
+                    .description("Training items waiting in the queue of a processing stage")
+                    .register(meterRegistry);
+            Gauge.builder("evasys.pipeline.workers.busy", busy, AtomicInteger::get)
+                    .tag("stage", name)
+                    .description("Workers of a processing stage currently working on an item")
+                    .register(meterRegistry);
+
+            this.executor = Executors.newFixedThreadPool(workers, Thread.ofPlatform().name("pipeline-" + name + "-", 0).factory());
+            for (final BlockingQueue<QueuedTask> queue : queues) {
+                executor.execute(() -> drain(queue));
+            }
+        }
+
+        private void submit(final String key, final Runnable task) {
+            final BlockingQueue<QueuedTask> queue = queues.get(Math.floorMod(key == null ? 0 : key.hashCode(), queues.size()));
+            final QueuedTask queuedTask = new QueuedTask(task, System.nanoTime());
+            try {
+                while (!queue.offer(queuedTask, 1, TimeUnit.SECONDS)) {
+                    if (!running) {
+                        throw new EvasysException("Processing pipeline is shut down");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EvasysException("Interrupted while waiting for room in the " + name + " stage", e);
+            }
+        }
+
+        private void drain(final BlockingQueue<QueuedTask> queue) {
+            while (running || !queue.isEmpty()) {
+                final QueuedTask next;
+                try {
+                    next = queue.poll(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (next == null) {
+                    continue;
+                }
+                final long startedAt = System.nanoTime();
+                waitTimer.record(startedAt - next.enqueuedAt(), TimeUnit.NANOSECONDS);
+                busy.incrementAndGet();
+                try {
+                    next.task().run();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Error in {} stage", name, e);
+                } finally {
+                    busy.decrementAndGet();
+                    durationTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+
+        private int depth() {
+            return queues.stream().mapToInt(BlockingQueue::size).sum();
+        }
+    }
+
+    // the items of one call to the pipeline, which waits until every item has left it
+    static final class Batch {
+
+        private final List<String> orderKeys;
+        private final CountDownLatch remaining;
+        private final Map<String, Deque<Integer>> pendingByKey = new HashMap<>();
+        private final Map<Integer, Runnable> released = new HashMap<>();
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        private Batch(final List<String> orderKeys) {
+            this.orderKeys = orderKeys;
+            this.remaining = new CountDownLatch(orderKeys.size());
+            for (int i = 0; i < orderKeys.size(); i++) {
+                if (orderKeys.get(i) != null) {
+                    pendingByKey.computeIfAbsent(orderKeys.get(i), key -> new ArrayDeque<>()).add(i);
+                }
+            }
+        }
+
+        // runs the hand-over of an item once all earlier items with the same key have been handed over;
+        // every item has to be released exactly once, items leaving the pipeline early with a no-op
+        void release(final int index, final Runnable handOver) {
+            final String key = orderKeys.get(index);
+            if (key == null) {
+                handOver.run();
+                return;
+            }
+            // hand-overs run under the lock to keep their order; they only wait for a later stage
+            synchronized (this) {
+                released.put(index, handOver);
+                final Deque<Integer> pending = pendingByKey.get(key);
+                while (!pending.isEmpty() && released.containsKey(pending.peekFirst())) {
+                    released.remove(pending.pollFirst()).run();
+                }
+            }
+        }
+
+        void itemDone() {
+            remaining.countDown();
+        }
+
+        // items that never entered the pipeline
+        void abandon(final int items, final RuntimeException e) {
+            fail(e);
+            for (int i = 0; i < items; i++) {
+                remaining.countDown();
+            }
+        }
+
+        void fail(final RuntimeException e) {
+            failure.compareAndSet(null, e);
+        }
+
+        // rethrows the first unexpected failure of an item
+        void await() {
+            try {
+                remaining.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EvasysException("Interrupted while waiting for the processing pipeline", e);
+            }
+            final RuntimeException e = failure.get();
+            if (e != null) {
+                throw e;
+            }
+        }
+    }
+
+    private record QueuedTask(Runnable task, long enqueuedAt) {
+    }
+}
@@ -0,0 +1,227 @@
+package de.muenchen.evasys.service;
+
+import com.sap.document.sap.rfc.functions.ZLSOEVASYSRFC;
+import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
+import de.muenchen.evasys.configuration.IntakeProperties;
+import de.muenchen.evasys.exception.EvasysException;
+import de.muenchen.evasys.exception.IntakeRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+@Service
+public class TrainingIntakeService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TrainingIntakeService.class);
+
+    private final TrainingProcessorService trainingProcessorService;
+    private final InboxJournal inboxJournal;
+    private final IntakeProperties intakeProperties;
+    private final BlockingQueue<QueuedRequest> queue;
+    private final ExecutorService workers;
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+    private volatile boolean running = true;
+
+    public TrainingIntakeService(
+            final TrainingProcessorService trainingProcessorService,
+            final InboxJournal inboxJournal,
+            final IntakeProperties intakeProperties,
+            final MeterRegistry meterRegistry) {
+        this.trainingProcessorService = trainingProcessorService;
+        this.inboxJournal = inboxJournal;
+        this.intakeProperties = intakeProperties;
+        this.queue = new ArrayBlockingQueue<>(intakeProperties.queueCapacity());
+        this.waitTimer = Timer.builder("evasys.intake.queue.wait")
+                .description("Time a received SAP-PO message waits in the intake queue")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("evasys.intake.rejected")
+                .description("SAP-PO messages rejected because the intake queue was full")
+                .register(meterRegistry);
+        Gauge.builder("evasys.intake.queue.depth", queue, BlockingQueue::size)
+                .description("SAP-PO messages waiting in the intake queue")
+                .register(meterRegistry);
+
+        if (isAsynchronous()) {
+            this.workers = Executors.newFixedThreadPool(
+                    intakeProperties.workers(),
+                    Thread.ofPlatform().name("training-intake-", 0).factory());
+            for (int i = 0; i < intakeProperties.workers(); i++) {
+                workers.execute(this::drainQueue);
+            }
+        } else {
+            this.workers = null;
+        }
+        if (intakeProperties.streaming() && isAsynchronous()) {
+            LOGGER.warn("Streaming intake is only available in synchronous mode, receiving messages as a whole");
+        }
+    }
+
+    public boolean isAsynchronous() {
+        return intakeProperties.mode() == IntakeProperties.Mode.ASYNCHRONOUS;
+    }
+
+    public boolean isStreaming() {
+        return intakeProperties.streaming() && !isAsynchronous();
+    }
+
+    // for messages whose items are handed over one by one while the message is still being received
+    public StreamedRequest openStream() {
+        return new StreamedRequest();
+    }
+
+    public void submit(final ZLSOEVASYSRFC trainingRequest) {
+        if (trainingRequest == null || trainingRequest.getITEVASYSRFC() == null) {
+            throw new EvasysException("Training request contains no IT_EVASYS_RFC table");
+        }
+        if (isStreaming()) {
+            // the items were handed to a StreamedRequest while the message was received
+            return;
+        }
+        final List<ZLSOSTEVASYSRFC> items = trainingRequest.getITEVASYSRFC().getItem();
+        inboxJournal.record(items);
+        if (!isAsynchronous()) {
+            trainingProcessorService.processTrainingRequest(trainingRequest);
+            return;
+        }
+        if (!running || !queue.offer(new QueuedRequest(trainingRequest, System.nanoTime()))) {
+            inboxJournal.completeAll(items);
+            rejectedCounter.increment();
+            throw new IntakeRejectedException("Training request queue is full, please retry later");
+        }
+        LOGGER.info("Queued training request with {} item(s)", items.size());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayJournal() {
+        final List<ZLSOSTEVASYSRFC> items = inboxJournal.recover();
+        if (items.isEmpty()) {
+            return;
+        }
+        LOGGER.warn("Replaying {} unfinished item(s) from the inbox journal", items.size());
+        final ZLSOEVASYSRFC trainingRequest = new ZLSOEVASYSRFC();
+        trainingRequest.setITEVASYSRFC(new ZLSOEVASYSRFC.ITEVASYSRFC());
+        trainingRequest.getITEVASYSRFC().getItem().addAll(items);
+        if (!isAsynchronous()) {
+            // before the readiness state switches to accepting traffic
+            process(trainingRequest);
+            return;
+        }
+        // bounded by the same queue and workers as received messages, waits for a free slot
+        try {
+            queue.put(new QueuedRequest(trainingRequest, System.nanoTime()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Replay interrupted, unfinished items stay in the inbox journal");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (workers == null) {
+            return;
+        }
+        running = false;
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(intakeProperties.shutdownTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("Intake queue not drained on shutdown, {} training request(s) dropped", queue.size());
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+    }
+
+    private void drainQueue() {
+        while (running || !queue.isEmpty()) {
+            final QueuedRequest next;
+            try {
+                next = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (next == null) {
+                continue;
+            }
+            waitTimer.record(System.nanoTime() - next.enqueuedAt(), TimeUnit.NANOSECONDS);
+            process(next.trainingRequest());
+        }
+    }
+
+    private void process(final ZLSOEVASYSRFC trainingRequest) {
+        try {
+            trainingProcessorService.processTrainingRequest(trainingRequest);
+        } catch (Exception e) {
+            LOGGER.error("Error processing SAP message", e);
+        }
+    }
+
+    public final class StreamedRequest implements Consumer<ZLSOSTEVASYSRFC>, AutoCloseable {
+
+        private final List<ZLSOSTEVASYSRFC> chunk = new ArrayList<>(intakeProperties.streamChunkSize());
+        private int items;
+        private boolean closed;
+
+        private StreamedRequest() {
+            trainingProcessorService.streamStarted();
+        }
+
+        @Override
+        public void accept(final ZLSOSTEVASYSRFC trainingData) {
+            chunk.add(trainingData);
+            if (chunk.size() >= intakeProperties.streamChunkSize()) {
+                flush();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                flush();
+            } finally {
+                trainingProcessorService.streamFinished(items);
+            }
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            final List<ZLSOSTEVASYSRFC> received = List.copyOf(chunk);
+            chunk.clear();
+            items += received.size();
+            inboxJournal.record(received);
+            try {
+                trainingProcessorService.processTrainingItems(received);
+            } catch (Exception e) {
+                // later chunks are still processed, the failed items stay in the journal
+                LOGGER.error("Error processing SAP message", e);
+            }
+        }
+    }
+
+    private record QueuedRequest(ZLSOEVASYSRFC trainingRequest, long enqueuedAt) {
+    }
+}
@@ -2,10 +2,30 @@ package de.muenchen.evasys.service;
 
 import com.sap.document.sap.rfc.functions.ZLSOEVASYSRFC;
 import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
+import de.muenchen.evasys.client.CourseLookup;
+import de.muenchen.evasys.configuration.ProcessingProperties;
+import de.muenchen.evasys.exception.CourseAlreadyExistsException;
 import de.muenchen.evasys.exception.EvasysException;
 import de.muenchen.evasys.model.SecondaryTrainer;
 import de.muenchen.evasys.service.MetricsService.EventType;
+import de.muenchen.evasys.service.ProcessingPipeline.Stage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -21,77 +41,461 @@ public class TrainingProcessorService {
 
     private final MetricsService metricsService;
 
+    private final ProcessingProperties processingProperties;
+
+    private final InboxJournal inboxJournal;
+
+    private final FingerprintStore fingerprintStore;
+
+    private final ProcessingPipeline pipeline;
+
+    private final Semaphore processingPermits;
+
+    // upserts of the same external ID never run at the same time, otherwise both could insert the
+    // user; in pipeline mode, items only share a trainer worker if they share the TRAINER1ID
+    private final Lock[] trainerLocks = new Lock[TRAINER_LOCK_STRIPES];
+
+    private static final int TRAINER_LOCK_STRIPES = 64;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(TrainingProcessorService.class);
 
     public TrainingProcessorService(final EvasysService evasysService, final MailNotificationService mailNotificationService,
-            final TrainingDataNormalizationService normalizationService, final MetricsService metricsService) {
+            final TrainingDataNormalizationService normalizationService, final MetricsService metricsService,
+            final ProcessingProperties processingProperties, final InboxJournal inboxJournal,
+            final FingerprintStore fingerprintStore, final ProcessingPipeline pipeline) {
         this.evasysService = evasysService;
         this.mailNotificationService = mailNotificationService;
         this.normalizationService = normalizationService;
         this.metricsService = metricsService;
+        this.processingProperties = processingProperties;
+        this.inboxJournal = inboxJournal;
+        this.fingerprintStore = fingerprintStore;
+        this.pipeline = pipeline;
+        this.processingPermits = new Semaphore(processingProperties.maxConcurrency());
+        for (int i = 0; i < trainerLocks.length; i++) {
+            trainerLocks[i] = new ReentrantLock();
+        }
     }
 
     public void processTrainingRequest(final ZLSOEVASYSRFC trainingRequest) {
         LOGGER.info("Processing training requests...");
-        for (final ZLSOSTEVASYSRFC trainingData : trainingRequest.getITEVASYSRFC().getItem()) {
+        final List<ZLSOSTEVASYSRFC> items = trainingRequest.getITEVASYSRFC().getItem();
+        metricsService.requestStarted();
+        try {
+            processTrainingItems(items);
+        } finally {
+            metricsService.requestFinished(items.size());
+        }
+        LOGGER.info("All training requests processed");
+    }
+
+    public void streamStarted() {
+        LOGGER.info("Processing streamed training request...");
+        metricsService.requestStarted();
+    }
+
+    // processes one chunk of a streamed request; chunks are processed one after another,
+    // so items of a later chunk never overtake items of an earlier one
+    public void processTrainingItems(final List<ZLSOSTEVASYSRFC> items) {
+        // existence checks and updates of a course share one GetCourse call within this batch
+        final CourseLookup courses = new CourseLookup();
+        if (processingProperties.courseIndex()) {
+            indexCourses(items, courses);
+        }
+        final List<PendingCourse> courseInserts = processingProperties.courseBatchSize() > 1
+                ? Collections.synchronizedList(new ArrayList<>())
+                : null;
+        try {
+            if (processingProperties.coalesceTrainers()) {
+                processWithCoalescedTrainers(items, courses, courseInserts);
+            } else if (processingProperties.mode() == ProcessingProperties.Mode.PARALLEL) {
+                // items sharing a TRAININGID or any trainer keep the order SAP sent them in
+                processInParallel(items, TrainingProcessorService::itemOrderKeys,
+                        trainingData -> processWithPermit(() -> processTrainingData(trainingData, courses, courseInserts)));
+            } else if (processingProperties.mode() == ProcessingProperties.Mode.PIPELINE) {
+                processInPipeline(items, courses, courseInserts);
+            } else {
+                items.forEach(trainingData -> processTrainingData(trainingData, courses, courseInserts));
+            }
+        } finally {
+            // deferred items are only completed here, also if a later item failed unexpectedly
+            if (courseInserts != null) {
+                insertCourseBatches(courses, courseInserts);
+            }
+        }
+    }
+
+    public void streamFinished(final int items) {
+        metricsService.requestFinished(items);
+        LOGGER.info("All {} streamed training request(s) processed", items);
+    }
+
+    // stages hand items on as soon as they are done with them; items of the same trainer share
+    // the workers of the first two stages, items of the same training reach the course stage in order
+    private void processInPipeline(final List<ZLSOSTEVASYSRFC> items, final CourseLookup courses,
+            final List<PendingCourse> courseInserts) {
+        final ProcessingPipeline.Batch batch = pipeline.startBatch(items.stream().map(ZLSOSTEVASYSRFC::getTRAININGID).toList());
+        for (int i = 0; i < items.size(); i++) {
+            final ZLSOSTEVASYSRFC trainingData = items.get(i);
+            final int index = i;
             try {
-                normalizationService.normalize(trainingData);
+                pipeline.submit(Stage.NORMALIZATION, trainingData.getTRAINER1ID(),
+                        () -> normalizationStage(new PipelineItem(batch, index, trainingData, metricsService.itemStarted(),
+                                courses, courseInserts)));
             } catch (EvasysException e) {
-                LOGGER.error("Normalization failed: {}", e.getMessage());
-                metricsService.recordEvent(EventType.TRAINING_PROCESSING_FAILED);
-                mailNotificationService.notifyError(
-                        "Normalization failed",
-                        e.getMessage(),
-                        e,
-                        trainingData);
-                continue;
+                // the remaining items stay in the inbox journal
+                batch.abandon(items.size() - i, e);
+                break;
             }
+        }
+        batch.await();
+    }
+
+    private void normalizationStage(final PipelineItem item) {
+        final boolean prepared;
+        try {
+            prepared = prepare(item.trainingData());
+        } catch (RuntimeException e) {
+            leaveEarly(item, e);
+            return;
+        }
+        if (!prepared) {
+            leaveEarly(item, null);
+            return;
+        }
+        try {
+            pipeline.submit(Stage.TRAINERS, item.trainingData().getTRAINER1ID(), () -> trainerStage(item));
+        } catch (EvasysException e) {
+            leaveEarly(item, e);
+        }
+    }
 
-            boolean trainerProcessed = false;
+    private void trainerStage(final PipelineItem item) {
+        boolean trainerProcessed = false;
+        try {
+            processTrainer(item.trainingData());
+            metricsService.recordEvent(EventType.TRAINER_PROCESSED);
+            trainerProcessed = true;
+        } catch (EvasysException e) {
+            recordTrainerFailure(item.trainingData(), e);
+        } catch (RuntimeException e) {
+            leaveEarly(item, e);
+            return;
+        }
+        final boolean processed = trainerProcessed;
+        item.batch().release(item.index(), () -> {
             try {
-                processTrainer(trainingData);
-                metricsService.recordEvent(EventType.TRAINER_PROCESSED);
-                trainerProcessed = true;
+                pipeline.submit(Stage.COURSES, item.trainingData().getTRAININGID(), () -> courseStage(item, processed));
             } catch (EvasysException e) {
-                LOGGER.error("Trainer processing failed: {}", e.getMessage());
-                metricsService.recordEvent(EventType.TRAINER_PROCESSING_FAILED);
-                mailNotificationService.notifyError(
-                        "Trainer processing failed",
-                        e.getMessage(),
-                        e,
-                        trainingData);
+                item.batch().fail(e);
+                complete(item.trainingData(), item.startedAt());
+                item.batch().itemDone();
+            }
+        });
+    }
+
+    private void courseStage(final PipelineItem item, final boolean trainerProcessed) {
+        boolean deferred = false;
+        try {
+            deferred = processCourseStage(item.trainingData(), item.courses(), item.courseInserts(), trainerProcessed, item.startedAt());
+        } catch (RuntimeException e) {
+            item.batch().fail(e);
+        } finally {
+            if (!deferred) {
+                complete(item.trainingData(), item.startedAt());
             }
+            item.batch().itemDone();
+        }
+    }
 
-            boolean courseProcessed = false;
+    // for items that do not reach the course stage; failure is null if the item was skipped
+    private void leaveEarly(final PipelineItem item, final RuntimeException failure) {
+        if (failure != null) {
+            item.batch().fail(failure);
+        }
+        try {
+            complete(item.trainingData(), item.startedAt());
+        } finally {
+            item.batch().release(item.index(), () -> {
+            });
+            item.batch().itemDone();
+        }
+    }
+
+    // trainers are upserted once per batch before any course is processed, so an item only
+    // learns the outcome of its trainers; metrics and notifications stay per item
+    private void processWithCoalescedTrainers(final List<ZLSOSTEVASYSRFC> items, final CourseLookup courses,
+            final List<PendingCourse> courseInserts) {
+        final CoalescedTrainers trainers = new CoalescedTrainers();
+        final List<CoalescedItem> coalescedItems = new ArrayList<>(items.size());
+        for (final ZLSOSTEVASYSRFC trainingData : items) {
+            final long startedAt = metricsService.itemStarted();
+            boolean prepared = false;
             try {
-                processCourse(trainingData);
-                metricsService.recordEvent(EventType.COURSE_PROCESSED);
-                courseProcessed = true;
-            } catch (EvasysException e) {
-                LOGGER.error("Course processing failed: {}", e.getMessage());
-                metricsService.recordEvent(EventType.COURSE_PROCESSING_FAILED);
-                mailNotificationService.notifyError(
-                        "Course processing failed",
-                        e.getMessage(),
-                        e,
-                        trainingData);
+                prepared = prepare(trainingData);
+            } finally {
+                if (!prepared) {
+                    complete(trainingData, startedAt);
+                }
+            }
+            if (prepared) {
+                coalescedItems.add(coalesce(trainers, trainingData, startedAt));
             }
+        }
+        LOGGER.info("Upserting {} distinct trainer(s) of {} item(s)", trainers.trainers().size(), coalescedItems.size());
+
+        if (processingProperties.mode() == ProcessingProperties.Mode.PARALLEL) {
+            // writes to the same external ID in different subunits keep their order
+            processInParallel(List.copyOf(trainers.trainers()), trainer -> orderKeys(null, trainer.key().externalId()),
+                    trainer -> processWithPermit(() -> upsertTrainer(trainer)));
+            processInParallel(coalescedItems, item -> orderKeys(item.trainingData().getTRAININGID(), null),
+                    item -> processWithPermit(() -> processCoalescedItem(item, trainers, courses, courseInserts)));
+        } else {
+            trainers.trainers().forEach(this::upsertTrainer);
+            coalescedItems.forEach(item -> processCoalescedItem(item, trainers, courses, courseInserts));
+        }
+    }
+
+    private CoalescedItem coalesce(final CoalescedTrainers trainers, final ZLSOSTEVASYSRFC trainingData, final long startedAt) {
+        try {
+            final int subunitId = parseSubunitId(trainingData);
+            return new CoalescedItem(trainingData, startedAt,
+                    trainers.add(trainingData, subunitId, evasysService.extractSecondaryTrainers(trainingData)), null);
+        } catch (EvasysException e) {
+            return new CoalescedItem(trainingData, startedAt, null, e);
+        } catch (RuntimeException e) {
+            // the item is already started, so it must still reach the course phase to be completed
+            return new CoalescedItem(trainingData, startedAt, null,
+                    new EvasysException("Trainers of training " + trainingData.getTRAININGID() + " could not be determined: " + e.getMessage(), e));
+        }
+    }
 
-            if (trainerProcessed && courseProcessed) {
-                metricsService.recordEvent(EventType.TRAINING_PROCESSED);
+    private void upsertTrainer(final CoalescedTrainers.Trainer trainer) {
+        final String trainerId = trainer.key().externalId();
+        final int subunitId = trainer.key().subunitId();
+        try {
+            if (trainer.primary()) {
+                insertTrainerOrUpdateIfExists(trainerId, subunitId, trainer.asTrainingData());
+            } else {
+                insertSecondaryTrainerOrUpdateIfExists(trainerId, subunitId, trainer.trainingData(), trainer.attributes());
             }
+        } catch (EvasysException e) {
+            LOGGER.error("Upserting trainer {} of subunit {} failed: {}", trainerId, subunitId, e.getMessage());
+            trainer.fail(e);
+        } catch (RuntimeException e) {
+            LOGGER.error("Upserting trainer {} of subunit {} failed unexpectedly", trainerId, subunitId, e);
+            trainer.fail(new EvasysException("Trainer processing failed: " + e.getMessage(), e));
         }
-        LOGGER.info("All training requests processed");
     }
 
-    private void processTrainer(final ZLSOSTEVASYSRFC trainingData) {
-        final String trainerId = trainingData.getTRAINER1ID();
-        final int subunitId;
+    private void processCoalescedItem(final CoalescedItem item, final CoalescedTrainers trainers, final CourseLookup courses,
+            final List<PendingCourse> courseInserts) {
+        boolean deferred = false;
         try {
-            subunitId = Integer.parseInt(trainingData.getTEILBEREICHID());
-        } catch (NumberFormatException e) {
-            throw new EvasysException("Invalid TEILBEREICHID: " + trainingData.getTEILBEREICHID(), e);
+            final EvasysException trainerFailure = trainerFailure(item, trainers);
+            if (trainerFailure == null) {
+                metricsService.recordEvent(EventType.TRAINER_PROCESSED);
+            } else {
+                recordTrainerFailure(item.trainingData(), trainerFailure);
+            }
+            deferred = processCourseStage(item.trainingData(), courses, courseInserts, trainerFailure == null, item.startedAt());
+        } finally {
+            if (!deferred) {
+                complete(item.trainingData(), item.startedAt());
+            }
+        }
+    }
+
+    // the first failed trainer of the item, secondary trainers before it count as processed
+    private EvasysException trainerFailure(final CoalescedItem item, final CoalescedTrainers trainers) {
+        if (item.failure() != null) {
+            return item.failure();
+        }
+        final EvasysException primaryFailure = trainers.failureOf(item.trainers().primary());
+        if (primaryFailure != null) {
+            return primaryFailure;
+        }
+        for (final CoalescedTrainers.Key secondary : item.trainers().secondaries()) {
+            final EvasysException secondaryFailure = trainers.failureOf(secondary);
+            if (secondaryFailure != null) {
+                return secondaryFailure;
+            }
+            metricsService.recordEvent(EventType.SECONDARY_TRAINER_PROCESSED);
+        }
+        return null;
+    }
+
+    private static List<String> orderKeys(final String trainingId, final String trainerId) {
+        final List<String> keys = new ArrayList<>(2);
+        if (trainingId != null) {
+            keys.add("training:" + trainingId);
+        }
+        if (trainerId != null) {
+            keys.add("trainer:" + trainerId);
+        }
+        return keys;
+    }
+
+    // secondary trainers too, otherwise two items could both insert the same new user
+    private static List<String> itemOrderKeys(final ZLSOSTEVASYSRFC trainingData) {
+        final List<String> keys = orderKeys(trainingData.getTRAININGID(), trainingData.getTRAINER1ID());
+        for (final String secondaryTrainerId : SecondaryTrainer.idsFromTrainingData(trainingData)) {
+            final String key = "trainer:" + secondaryTrainerId;
+            if (!keys.contains(key)) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    // tasks sharing an order key are chained onto their predecessor,
+    // so evasys sees their writes in the order SAP sent them
+    private <T> void processInParallel(final List<T> tasks, final Function<T, List<String>> orderKeys, final Consumer<T> action) {
+        final Map<String, CompletableFuture<Void>> lastByKey = new HashMap<>();
+        final List<CompletableFuture<Void>> running = new ArrayList<>(tasks.size());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (final T task : tasks) {
+                final List<String> keys = orderKeys.apply(task);
+                final CompletableFuture<?>[] predecessors = keys.stream()
+                        .map(lastByKey::get)
+                        .filter(Objects::nonNull)
+                        .toArray(CompletableFuture[]::new);
+
+                final CompletableFuture<Void> future = CompletableFuture.allOf(predecessors)
+                        .exceptionally(e -> null)
+                        .thenRunAsync(() -> action.accept(task), executor);
+
+                keys.forEach(key -> lastByKey.put(key, future));
+                running.add(future);
+            }
+            CompletableFuture.allOf(running.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void processWithPermit(final Runnable task) {
+        try {
+            processingPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EvasysException("Interrupted while waiting for a processing slot", e);
+        }
+        try {
+            task.run();
+        } finally {
+            processingPermits.release();
+        }
+    }
+
+    private void processTrainingData(final ZLSOSTEVASYSRFC trainingData, final CourseLookup courses, final List<PendingCourse> courseInserts) {
+        final long startedAt = metricsService.itemStarted();
+        boolean deferred = false;
+        try {
+            deferred = processItem(trainingData, courses, courseInserts, startedAt);
+        } finally {
+            // deferred items are completed once their course batch has been sent
+            if (!deferred) {
+                complete(trainingData, startedAt);
+            }
+        }
+    }
+
+    private void complete(final ZLSOSTEVASYSRFC trainingData, final long startedAt) {
+        inboxJournal.complete(trainingData);
+        metricsService.itemFinished(startedAt);
+    }
+
+    private boolean processItem(final ZLSOSTEVASYSRFC trainingData, final CourseLookup courses, final List<PendingCourse> courseInserts,
+            final long startedAt) {
+        if (!prepare(trainingData)) {
+            return false;
+        }
+
+        boolean trainerProcessed = false;
+        try {
+            processTrainer(trainingData);
+            metricsService.recordEvent(EventType.TRAINER_PROCESSED);
+            trainerProcessed = true;
+        } catch (EvasysException e) {
+            recordTrainerFailure(trainingData, e);
+        }
+        return processCourseStage(trainingData, courses, courseInserts, trainerProcessed, startedAt);
+    }
+
+    // returns false if the item is not to be written to evasys
+    private boolean prepare(final ZLSOSTEVASYSRFC trainingData) {
+        try {
+            normalizationService.normalize(trainingData);
+        } catch (EvasysException e) {
+            LOGGER.error("Normalization failed: {}", e.getMessage());
+            metricsService.recordEvent(EventType.TRAINING_PROCESSING_FAILED);
+            mailNotificationService.notifyError(
+                    "Normalization failed",
+                    e.getMessage(),
+                    e,
+                    trainingData);
+            return false;
+        }
+
+        if (fingerprintStore.isApplied(trainingData)) {
+            LOGGER.info("Training {} was already applied with the same data, skipping", trainingData.getTRAININGID());
+            metricsService.recordEvent(EventType.TRAINING_DUPLICATE_SKIPPED);
+            return false;
+        }
+        return true;
+    }
+
+    // returns true if the course is deferred to the next course batch
+    private boolean processCourseStage(final ZLSOSTEVASYSRFC trainingData, final CourseLookup courses,
+            final List<PendingCourse> courseInserts, final boolean trainerProcessed, final long startedAt) {
+        try {
+            if (processCourse(trainingData, courses, courseInserts != null)) {
+                courseInserts.add(new PendingCourse(trainingData, trainerProcessed, startedAt));
+                return true;
+            }
+            recordCourseProcessed(trainingData, trainerProcessed);
+        } catch (EvasysException e) {
+            recordCourseFailure(trainingData, e);
+        }
+        return false;
+    }
+
+    private void recordTrainerFailure(final ZLSOSTEVASYSRFC trainingData, final EvasysException e) {
+        LOGGER.error("Trainer processing failed: {}", e.getMessage());
+        metricsService.recordEvent(EventType.TRAINER_PROCESSING_FAILED);
+        mailNotificationService.notifyError(
+                "Trainer processing failed",
+                e.getMessage(),
+                e,
+                trainingData);
+    }
+
+    private void recordCourseProcessed(final ZLSOSTEVASYSRFC trainingData, final boolean trainerProcessed) {
+        metricsService.recordEvent(EventType.COURSE_PROCESSED);
+        if (trainerProcessed) {
+            metricsService.recordEvent(EventType.TRAINING_PROCESSED);
+            fingerprintStore.markApplied(trainingData);
         }
+    }
+
+    private void recordCourseFailure(final ZLSOSTEVASYSRFC trainingData, final EvasysException e) {
+        LOGGER.error("Course processing failed: {}", e.getMessage());
+        metricsService.recordEvent(EventType.COURSE_PROCESSING_FAILED);
+        mailNotificationService.notifyError(
+                "Course processing failed",
+                e.getMessage(),
+                e,
+                trainingData);
+    }
+
+    private void processTrainer(final ZLSOSTEVASYSRFC trainingData) {
+        final String trainerId = trainingData.getTRAINER1ID();
+        final int subunitId = parseSubunitId(trainingData);
 
         insertTrainerOrUpdateIfExists(trainerId, subunitId, trainingData);
 
@@ -104,23 +508,35 @@ public class TrainingProcessorService {
         }
     }
 
+    private static int parseSubunitId(final ZLSOSTEVASYSRFC trainingData) {
+        try {
+            return Integer.parseInt(trainingData.getTEILBEREICHID());
+        } catch (NumberFormatException e) {
+            throw new EvasysException("Invalid TEILBEREICHID: " + trainingData.getTEILBEREICHID(), e);
+        }
+    }
+
     private void insertTrainerOrUpdateIfExists(
             final String trainerId,
             final int subunitId,
             final ZLSOSTEVASYSRFC trainingData) {
+        final Lock lock = trainerLock(trainerId);
+        lock.lock();
         try {
             if (evasysService.trainerExists(trainerId, subunitId)) {
-                evasysService.updateTrainer(trainingData);
+                updateTrainer(trainingData);
             } else {
                 evasysService.insertTrainer(trainingData);
             }
         } catch (EvasysException e) {
             if (evasysService.trainerExists(trainerId, subunitId)) {
                 LOGGER.info("Trainer {} already created by concurrent request, updating instead", trainerId);
-                evasysService.updateTrainer(trainingData);
+                updateTrainer(trainingData);
             } else {
                 throw e;
             }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -129,23 +545,32 @@ public class TrainingProcessorService {
             final int subunitId,
             final ZLSOSTEVASYSRFC trainingData,
             final SecondaryTrainer trainer) {
+        final Lock lock = trainerLock(secondaryTrainerId);
+        lock.lock();
         try {
             if (evasysService.trainerExists(secondaryTrainerId, subunitId)) {
-                evasysService.updateSecondaryTrainer(trainer);
+                updateSecondaryTrainer(trainer);
             } else {
                 evasysService.insertSecondaryTrainer(trainingData, trainer);
             }
         } catch (EvasysException e) {
             if (evasysService.trainerExists(secondaryTrainerId, subunitId)) {
                 LOGGER.info("Secondary trainer {} already created by concurrent request, updating instead", secondaryTrainerId);
-                evasysService.updateSecondaryTrainer(trainer);
+                updateSecondaryTrainer(trainer);
             } else {
                 throw e;
             }
+        } finally {
+            lock.unlock();
         }
     }
 
-    private void processCourse(final ZLSOSTEVASYSRFC trainingData) {
+    private Lock trainerLock(final String trainerId) {
+        return trainerLocks[Math.floorMod(Objects.hashCode(trainerId), trainerLocks.length)];
+    }
+
+    // returns true if the course is new and has to be inserted with the next course batch
+    private boolean processCourse(final ZLSOSTEVASYSRFC trainingData, final CourseLookup courses, final boolean batchInserts) {
         final int courseId;
         try {
             courseId = Integer.parseInt(trainingData.getTRAININGID());
@@ -154,18 +579,125 @@ public class TrainingProcessorService {
         }
 
         try {
-            if (evasysService.courseExists(courseId)) {
-                evasysService.updateCourse(trainingData);
+            if (evasysService.courseExists(courseId, courses)) {
+                updateCourse(trainingData, courses);
+            } else if (batchInserts) {
+                return true;
             } else {
-                evasysService.insertCourse(trainingData);
+                evasysService.insertCourse(trainingData, courses);
             }
         } catch (EvasysException e) {
-            if (evasysService.courseExists(courseId)) {
+            if (evasysService.courseExists(courseId, courses)) {
                 LOGGER.info("Course {} already created by concurrent request, updating instead", courseId);
-                evasysService.updateCourse(trainingData);
+                updateCourse(trainingData, courses);
             } else {
                 throw e;
             }
         }
+        return false;
+    }
+
+    private void indexCourses(final List<ZLSOSTEVASYSRFC> items, final CourseLookup courses) {
+        try {
+            evasysService.indexCourses(items, courses, processingProperties.courseIndexMinItems());
+        } catch (EvasysException e) {
+            LOGGER.warn("Indexing courses failed, checking them one by one: {}", e.getMessage());
+        }
+    }
+
+    private void updateTrainer(final ZLSOSTEVASYSRFC trainingData) {
+        if (!evasysService.updateTrainer(trainingData)) {
+            metricsService.recordEvent(EventType.TRAINER_UPDATE_SKIPPED);
+        }
+    }
+
+    private void updateSecondaryTrainer(final SecondaryTrainer trainer) {
+        if (!evasysService.updateSecondaryTrainer(trainer)) {
+            metricsService.recordEvent(EventType.SECONDARY_TRAINER_UPDATE_SKIPPED);
+        }
+    }
+
+    private void updateCourse(final ZLSOSTEVASYSRFC trainingData, final CourseLookup courses) {
+        if (!evasysService.updateCourse(trainingData, courses)) {
+            metricsService.recordEvent(EventType.COURSE_UPDATE_SKIPPED);
+        }
+    }
+
+    private void insertCourseBatches(final CourseLookup courses, final List<PendingCourse> courseInserts) {
+        final int batchSize = processingProperties.courseBatchSize();
+        final Set<String> insertedTrainingIds = new HashSet<>();
+        // later items of a course the message inserts update it once all batches are sent;
+        // in a batch evasys would answer them with ERR_313 and drop their data
+        final List<PendingCourse> updates = new ArrayList<>();
+        List<PendingCourse> batch = new ArrayList<>(batchSize);
+        for (final PendingCourse pendingCourse : courseInserts) {
+            if (!insertedTrainingIds.add(pendingCourse.trainingData().getTRAININGID())) {
+                updates.add(pendingCourse);
+                continue;
+            }
+            batch.add(pendingCourse);
+            if (batch.size() == batchSize) {
+                insertCourseBatch(courses, batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertCourseBatch(courses, batch);
+        }
+        updates.forEach(pendingCourse -> insertCourseSingly(courses, pendingCourse));
+    }
+
+    private void insertCourseBatch(final CourseLookup courses, final List<PendingCourse> batch) {
+        final Map<String, EvasysException> failures;
+        try {
+            failures = evasysService.insertCourses(batch.stream().map(PendingCourse::trainingData).toList(), courses);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Inserting {} courses in one batch failed, inserting them one by one: {}", batch.size(), e.getMessage());
+            batch.forEach(pendingCourse -> insertCourseSingly(courses, pendingCourse));
+            return;
+        }
+        for (final PendingCourse pendingCourse : batch) {
+            final EvasysException failure = failures.get(pendingCourse.trainingData().getTRAININGID());
+            if (failure instanceof CourseAlreadyExistsException) {
+                // the course index missed it, for example because it belongs to another subunit
+                insertCourseSingly(courses, pendingCourse);
+                continue;
+            }
+            try {
+                if (failure == null) {
+                    recordCourseProcessed(pendingCourse.trainingData(), pendingCourse.trainerProcessed());
+                } else {
+                    recordCourseFailure(pendingCourse.trainingData(), failure);
+                }
+            } finally {
+                complete(pendingCourse.trainingData(), pendingCourse.startedAt());
+            }
+        }
+    }
+
+    private void insertCourseSingly(final CourseLookup courses, final PendingCourse pendingCourse) {
+        try {
+            processCourse(pendingCourse.trainingData(), courses, false);
+            recordCourseProcessed(pendingCourse.trainingData(), pendingCourse.trainerProcessed());
+        } catch (EvasysException e) {
+            recordCourseFailure(pendingCourse.trainingData(), e);
+        } catch (RuntimeException e) {
+            // the remaining deferred items must still be sent and completed
+            recordCourseFailure(pendingCourse.trainingData(), new EvasysException("Course processing failed: " + e.getMessage(), e));
+        } finally {
+            complete(pendingCourse.trainingData(), pendingCourse.startedAt());
+        }
+    }
+
+    private record PendingCourse(ZLSOSTEVASYSRFC trainingData, boolean trainerProcessed, long startedAt) {
+    }
+
+    private record PipelineItem(ProcessingPipeline.Batch batch, int index, ZLSOSTEVASYSRFC trainingData, long startedAt,
+            CourseLookup courses, List<PendingCourse> courseInserts) {
+    }
+
+    // failure is set if the trainers of the item could not even be determined
+    private record CoalescedItem(ZLSOSTEVASYSRFC trainingData, long startedAt, CoalescedTrainers.ItemTrainers trainers,
+            EvasysException failure) {
     }
 }
@@ -0,0 +1,100 @@
+package de.muenchen.evasys.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import de.muenchen.evasys.configuration.ConcurrencyLimitProperties;
+import de.muenchen.evasys.exception.EvasysException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = Duration.ofMillis(50).toNanos();
+    private static final long SLOW = Duration.ofSeconds(6).toNanos();
+
+    private AdaptiveConcurrencyLimit createLimit(final int initialLimit, final Duration acquireTimeout) {
+        return new AdaptiveConcurrencyLimit(new ConcurrencyLimitProperties(
+                true, initialLimit, 1, 10, Duration.ofSeconds(5), 0.5, acquireTimeout));
+    }
+
+    @Test
+    void testSlowCallsShrinkLimitDownToMinimum() {
+        final AdaptiveConcurrencyLimit limit = createLimit(8, Duration.ofSeconds(1));
+
+        limit.acquire();
+        limit.release(SLOW, false);
+        assertEquals(4, limit.limit());
+
+        for (int i = 0; i < 5; i++) {
+            limit.acquire();
+            limit.release(FAST, true);
+        }
+        assertEquals(1, limit.limit());
+    }
+
+    @Test
+    void testFastCallsGrowSaturatedLimit() {
+        final AdaptiveConcurrencyLimit limit = createLimit(2, Duration.ofSeconds(1));
+
+        // each round with both slots in use adds 1 / limit
+        for (int i = 0; i < 6; i++) {
+            limit.acquire();
+            limit.acquire();
+            limit.release(FAST, false);
+            limit.release(FAST, false);
+        }
+
+        assertEquals(4, limit.limit());
+    }
+
+    @Test
+    void testIdleLimitDoesNotGrow() {
+        final AdaptiveConcurrencyLimit limit = createLimit(4, Duration.ofSeconds(1));
+
+        for (int i = 0; i < 20; i++) {
+            limit.acquire();
+            limit.release(FAST, false);
+        }
+
+        assertEquals(4, limit.limit());
+    }
+
+    @Test
+    void testAcquireWaitsForReleasedSlot() throws Exception {
+        final AdaptiveConcurrencyLimit limit = createLimit(1, Duration.ofSeconds(5));
+        limit.acquire();
+
+        final CompletableFuture<Void> waiting = CompletableFuture.runAsync(limit::acquire);
+        Thread.sleep(100);
+        assertEquals(1, limit.inFlight());
+
+        limit.release(FAST, false);
+        waiting.get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, limit.inFlight());
+    }
+
+    @Test
+    void testAcquireTimesOut() {
+        final AdaptiveConcurrencyLimit limit = createLimit(1, Duration.ofMillis(50));
+        limit.acquire();
+
+        assertThrows(EvasysException.class, limit::acquire);
+    }
+
+    @Test
+    void testDisabledLimitReportsMaximum() {
+        final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(new ConcurrencyLimitProperties(
+                false, 2, 1, 10, Duration.ofSeconds(5), 0.5, Duration.ofMillis(50)));
+
+        limit.acquire();
+        limit.acquire();
+        limit.acquire();
+
+        assertEquals(10, limit.limit());
+        assertEquals(0, limit.inFlight());
+    }
+}
@@ -0,0 +1,96 @@
+package de.muenchen.evasys.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.muenchen.evasys.configuration.CircuitBreakerProperties;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setup() {
+        circuitBreaker = new CircuitBreaker(new CircuitBreakerProperties(true, 3, Duration.ofSeconds(30)), now::get);
+    }
+
+    private void fail(final int times) {
+        for (int i = 0; i < times; i++) {
+            assertTrue(circuitBreaker.tryAcquire());
+            circuitBreaker.onFailure();
+        }
+    }
+
+    @Test
+    void testOpensAfterConsecutiveFailures() {
+        fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+
+        fail(1);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+        assertFalse(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void testSuccessResetsFailureCount() {
+        fail(2);
+        circuitBreaker.onSuccess();
+        fail(2);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+    }
+
+    @Test
+    void testAllowsSingleTrialCallAfterOpenDuration() {
+        fail(3);
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        assertTrue(circuitBreaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.state());
+        assertFalse(circuitBreaker.tryAcquire());
+
+        circuitBreaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void testFailedTrialCallReopens() {
+        fail(3);
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        fail(1);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.state());
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertFalse(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void testIgnoredTrialCallAllowsAnotherTrial() {
+        fail(3);
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertTrue(circuitBreaker.tryAcquire());
+
+        circuitBreaker.onIgnored();
+
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void testDisabledNeverOpens() {
+        circuitBreaker = new CircuitBreaker(new CircuitBreakerProperties(false, 1, Duration.ofSeconds(30)), now::get);
+
+        fail(5);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.state());
+    }
+}
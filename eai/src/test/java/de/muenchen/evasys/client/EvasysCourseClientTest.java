@@ -6,17 +6,29 @@ import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
+import de.muenchen.evasys.configuration.CircuitBreakerProperties;
+import de.muenchen.evasys.configuration.ConcurrencyLimitProperties;
+import de.muenchen.evasys.configuration.RateLimitProperties;
+import de.muenchen.evasys.configuration.RetryProperties;
+import de.muenchen.evasys.configuration.TrainerDirectoryProperties;
+import de.muenchen.evasys.exception.CourseAlreadyExistsException;
 import de.muenchen.evasys.exception.EvasysException;
 import de.muenchen.evasys.mapper.SapEvasysMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.xml.ws.Holder;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -30,11 +42,20 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
 import wsdl.soapserver_v100.Course;
+import wsdl.soapserver_v100.CourseCreator;
+import wsdl.soapserver_v100.CourseCreatorList;
 import wsdl.soapserver_v100.CourseIdType;
 import wsdl.soapserver_v100.CourseList;
+import wsdl.soapserver_v100.CourseParams;
+import wsdl.soapserver_v100.CourseSelectField;
 import wsdl.soapserver_v100.SoapPort;
 import wsdl.soapserver_v100.SoapfaultMessage;
+import wsdl.soapserver_v100.StringList;
+import wsdl.soapserver_v100.SubunitIdType;
 import wsdl.soapserver_v100.TSoapfault;
+import wsdl.soapserver_v100.Unit;
+import wsdl.soapserver_v100.UploadStatus;
+import wsdl.soapserver_v100.UploadStatusList;
 import wsdl.soapserver_v100.User;
 import wsdl.soapserver_v100.UserIdType;
 import wsdl.soapserver_v100.UserList;
@@ -46,7 +67,11 @@ public class EvasysCourseClientTest {
     private SoapPort soapPortMock;
 
     private final SapEvasysMapper mapper = Mappers.getMapper(SapEvasysMapper.class);
-    private final SoapExecutor soapExecutor = new SoapExecutor();
+    private final SoapExecutor soapExecutor = new SoapExecutor(new SimpleMeterRegistry(),
+            new CircuitBreakerProperties(false, 5, Duration.ofSeconds(30)),
+            new ConcurrencyLimitProperties(false, 4, 1, 10, Duration.ofSeconds(5), 0.9, Duration.ofSeconds(30)),
+            new RetryProperties(false, 3, Duration.ofMillis(200), Duration.ofSeconds(5), 0.2, 10),
+            new RateLimitProperties(false, 10, 5, 10, Duration.ofSeconds(30), 0, Duration.ofMinutes(5)));
 
     private EvasysUserClient evasysUserClient;
     private EvasysCourseClient evasysCourseClient;
@@ -56,7 +81,8 @@ public class EvasysCourseClientTest {
         evasysUserClient = new EvasysUserClient(
                 soapPortMock,
                 soapExecutor,
-                mapper);
+                mapper,
+                new TrainerDirectoryCache(new TrainerDirectoryProperties(true, Duration.ofMinutes(10), 100, 3)));
         evasysCourseClient = new EvasysCourseClient(
                 soapPortMock,
                 soapExecutor,
@@ -140,6 +166,164 @@ public class EvasysCourseClientTest {
         assertFalse(result);
     }
 
+    @Test
+    public void testThatCourseLookupSharesCourseBetweenExistenceCheckAndUpdate() throws Exception {
+        ZLSOSTEVASYSRFC trainingData = new ZLSOSTEVASYSRFC();
+        trainingData.setTRAININGID("11");
+        trainingData.setTRAINER1ID("22");
+        trainingData.setTEILBEREICHID("33");
+        User mockedUser = new User();
+        mockedUser.setMNId(44);
+        mockedUser.setMNFbid(33);
+        UserList mockedUserListResponse = new UserList();
+        mockedUserListResponse.getUsers().add(mockedUser);
+        Course mockedCourseResponse = new Course();
+        mockedCourseResponse.setMNCourseId(55);
+        when(soapPortMock.getUserByIdConsiderExternalID(
+                anyString(), eq(UserIdType.EXTERNAL), eq(false), eq(false), eq(false), eq(false)))
+                .thenReturn(mockedUserListResponse);
+        when(soapPortMock.getCourse(eq("11"), eq(CourseIdType.PUBLIC), eq(false), eq(false)))
+                .thenReturn(mockedCourseResponse);
+        CourseLookup courses = new CourseLookup();
+
+        assertTrue(evasysCourseClient.isCourseExisting(11, courses));
+        evasysCourseClient.updateCourse(trainingData, courses);
+
+        verify(soapPortMock, times(1)).getCourse(eq("11"), eq(CourseIdType.PUBLIC), eq(false), eq(false));
+        verify(soapPortMock).updateCourse(any(), eq(false));
+
+        // the written course is read from evasys again
+        assertTrue(evasysCourseClient.isCourseExisting(11, courses));
+
+        verify(soapPortMock, times(2)).getCourse(eq("11"), eq(CourseIdType.PUBLIC), eq(false), eq(false));
+    }
+
+    @Test
+    public void testThatCourseLookupRemembersUnknownCourse() throws Exception {
+        TSoapfault faultresponse = new TSoapfault();
+        faultresponse.setSErrorMessage("ERR_312");
+        when(soapPortMock.getCourse(eq("1"), eq(CourseIdType.PUBLIC), eq(false), eq(false)))
+                .thenThrow(new SoapfaultMessage("Course not found", faultresponse));
+        CourseLookup courses = new CourseLookup();
+
+        assertFalse(evasysCourseClient.isCourseExisting(1, courses));
+        assertFalse(evasysCourseClient.isCourseExisting(1, courses));
+
+        verify(soapPortMock, times(1)).getCourse(eq("1"), eq(CourseIdType.PUBLIC), eq(false), eq(false));
+    }
+
+    @Test
+    public void testThatCourseLookupDoesNotRememberOtherErrors() throws Exception {
+        TSoapfault faultresponse = new TSoapfault();
+        faultresponse.setSErrorMessage("ERR_100");
+        when(soapPortMock.getCourse(eq("1"), eq(CourseIdType.PUBLIC), eq(false), eq(false)))
+                .thenThrow(new SoapfaultMessage("Internal error", faultresponse));
+        CourseLookup courses = new CourseLookup();
+
+        assertFalse(evasysCourseClient.isCourseExisting(1, courses));
+        assertFalse(evasysCourseClient.isCourseExisting(1, courses));
+
+        verify(soapPortMock, times(2)).getCourse(eq("1"), eq(CourseIdType.PUBLIC), eq(false), eq(false));
+    }
+
+    private static ZLSOSTEVASYSRFC training(String courseId, String subunitId) {
+        ZLSOSTEVASYSRFC trainingData = new ZLSOSTEVASYSRFC();
+        trainingData.setTRAININGID(courseId);
+        trainingData.setTRAINER1ID("22");
+        trainingData.setTEILBEREICHID(subunitId);
+        return trainingData;
+    }
+
+    private static StringList courseCodes(String json) {
+        StringList courseCodes = new StringList();
+        courseCodes.getStrings().add(json);
+        return courseCodes;
+    }
+
+    @Test
+    public void testThatCourseIndexAnswersExistenceChecksWithoutGetCourse() throws Exception {
+        when(soapPortMock.getCourseIdsByParams(any(CourseParams.class))).thenAnswer(invocation -> {
+            CourseParams params = invocation.getArgument(0);
+            assertEquals(List.of(CourseSelectField.COURSE_CODE), params.getSelectFields().getCourseSelectField());
+            assertTrue(params.isExtendedResponseAsJSON());
+            if (params.getSubunits().getStrings().equals(List.of("34"))) {
+                throw new SoapfaultMessage("Internal error", new TSoapfault());
+            }
+            return courseCodes("""
+                    [{"CourseId": 5, "CourseCode": "11"}, {"CourseId": 6, "CourseCode": "99"}]""");
+        });
+        TSoapfault notFound = new TSoapfault();
+        notFound.setSErrorMessage("ERR_312");
+        when(soapPortMock.getCourse(eq("13"), eq(CourseIdType.PUBLIC), eq(false), eq(false)))
+                .thenThrow(new SoapfaultMessage("Course not found", notFound));
+        CourseLookup courses = new CourseLookup();
+
+        evasysCourseClient.indexCourses(List.of(training("11", "33"), training("12", "33"), training("13", "34")), courses, 1);
+
+        assertTrue(evasysCourseClient.isCourseExisting(11, courses));
+        assertFalse(evasysCourseClient.isCourseExisting(12, courses));
+        // the query for subunit 34 failed, so its course is checked on its own
+        assertFalse(evasysCourseClient.isCourseExisting(13, courses));
+        verify(soapPortMock, times(1)).getCourse(anyString(), any(CourseIdType.class), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    public void testThatCourseIndexAcceptsOneJsonObjectPerCourse() throws Exception {
+        StringList response = courseCodes("{\"CourseCode\": \"11\"}");
+        response.getStrings().add("{\"CourseCode\": 12}");
+        when(soapPortMock.getCourseIdsByParams(any(CourseParams.class))).thenReturn(response);
+        CourseLookup courses = new CourseLookup();
+
+        evasysCourseClient.indexCourses(List.of(training("11", "33"), training("12", "33"), training("13", "33")), courses, 3);
+
+        assertTrue(evasysCourseClient.isCourseExisting(11, courses));
+        assertTrue(evasysCourseClient.isCourseExisting(12, courses));
+        assertFalse(evasysCourseClient.isCourseExisting(13, courses));
+        verify(soapPortMock, never()).getCourse(anyString(), any(CourseIdType.class), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    public void testThatCourseIndexSkipsSubunitsWithFewItems() throws Exception {
+        when(soapPortMock.getCourseIdsByParams(any(CourseParams.class))).thenReturn(courseCodes("[{\"CourseCode\": \"11\"}]"));
+        when(soapPortMock.getCourse(eq("13"), eq(CourseIdType.PUBLIC), eq(false), eq(false))).thenReturn(new Course());
+        CourseLookup courses = new CourseLookup();
+
+        evasysCourseClient.indexCourses(List.of(training("11", "33"), training("12", "33"), training("13", "34")), courses, 2);
+
+        assertTrue(evasysCourseClient.isCourseExisting(11, courses));
+        assertFalse(evasysCourseClient.isCourseExisting(12, courses));
+        // subunit 34 has a single course in the batch, which is checked on its own
+        assertTrue(evasysCourseClient.isCourseExisting(13, courses));
+        verify(soapPortMock, times(1)).getCourseIdsByParams(any(CourseParams.class));
+        verify(soapPortMock, times(1)).getCourse(anyString(), any(CourseIdType.class), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    public void testThatInsertOfCourseMissedByIndexIsReportedAsExisting() throws Exception {
+        User mockedUser = new User();
+        mockedUser.setMNId(44);
+        mockedUser.setMNFbid(33);
+        UserList mockedUserList = new UserList();
+        mockedUserList.getUsers().add(mockedUser);
+        when(soapPortMock.getUserByIdConsiderExternalID(
+                anyString(), eq(UserIdType.EXTERNAL), eq(false), eq(false), eq(false), eq(false)))
+                .thenReturn(mockedUserList);
+        when(soapPortMock.getCourseIdsByParams(any(CourseParams.class))).thenReturn(courseCodes("[]"));
+        TSoapfault fault = new TSoapfault();
+        fault.setSErrorMessage("ERR_313");
+        doThrow(new SoapfaultMessage("Already exists", fault)).when(soapPortMock).insertCourse(any(Course.class));
+        when(soapPortMock.getCourse(eq("11"), eq(CourseIdType.PUBLIC), eq(false), eq(false))).thenReturn(new Course());
+        CourseLookup courses = new CourseLookup();
+        ZLSOSTEVASYSRFC trainingData = training("11", "33");
+        evasysCourseClient.indexCourses(List.of(trainingData), courses, 1);
+
+        assertFalse(evasysCourseClient.isCourseExisting(11, courses));
+        assertThrows(CourseAlreadyExistsException.class, () -> evasysCourseClient.insertCourse(trainingData, courses));
+
+        // the course lives in another subunit, GetCourse finds it
+        assertTrue(evasysCourseClient.isCourseExisting(11, courses));
+    }
+
     @Test
     public void shouldCallSoapPortWithCorrectUserWhenUpdatingCourse() throws Exception {
         ZLSOSTEVASYSRFC trainingData = new ZLSOSTEVASYSRFC();
@@ -670,4 +854,235 @@ public class EvasysCourseClientTest {
         assertThrows(EvasysException.class,
                 () -> evasysCourseClient.updateCourse(trainingData));
     }
+
+    private ZLSOSTEVASYSRFC createBatchTrainingData(String trainingId) {
+        ZLSOSTEVASYSRFC trainingData = new ZLSOSTEVASYSRFC();
+        trainingData.setTRAININGID(trainingId);
+        trainingData.setTRAININGTITEL("Test-Kurs " + trainingId);
+        trainingData.setTRAININGART("1");
+        trainingData.setTRAININGTNANZAHL("12");
+        trainingData.setTEILBEREICHID("33");
+        trainingData.setTRAINER1ID("22");
+        trainingData.setTRAINER1VNAME("Max");
+        trainingData.setTRAINER1NNAME("Mustermann");
+        return trainingData;
+    }
+
+    private UploadStatus createUploadStatus(String courseUid, String statusId) {
+        UploadStatus status = new UploadStatus();
+        status.setCourseUid(courseUid);
+        status.setStatusId(statusId);
+        status.setStatusMessage("status of " + courseUid);
+        return status;
+    }
+
+    private void stubTrainers(String... externalIds) throws Exception {
+        for (String externalId : externalIds) {
+            User user = new User();
+            user.setMNId(100 + Integer.parseInt(externalId));
+            user.setMSExternalId(externalId);
+            user.setMSSurName("Nachname " + externalId);
+            user.setMNFbid(33);
+            UserList users = new UserList();
+            users.getUsers().add(user);
+            when(soapPortMock.getUserByIdConsiderExternalID(externalId, UserIdType.EXTERNAL, false, false, false, false))
+                    .thenReturn(users);
+        }
+    }
+
+    @Test
+    public void shouldInsertAllCoursesWithOneInsertCoursesCall() throws Exception {
+        ZLSOSTEVASYSRFC trainingData1 = createBatchTrainingData("11");
+        trainingData1.setSEKTRAINERID("23");
+        trainingData1.setSEKTRAINERNNAME("Musterfrau");
+        ZLSOSTEVASYSRFC trainingData2 = createBatchTrainingData("12");
+        stubTrainers("22", "23");
+
+        Unit subunit = new Unit();
+        subunit.setMSName("Teilbereich 33");
+        when(soapPortMock.getSubunit("33", SubunitIdType.INTERNAL, false)).thenReturn(subunit);
+
+        UploadStatusList statusList = new UploadStatusList();
+        statusList.getUploadStatus().add(createUploadStatus("11", "1"));
+        statusList.getUploadStatus().add(createUploadStatus("12", "ERR_313"));
+        when(soapPortMock.insertCourses(any(CourseCreatorList.class), eq(false))).thenReturn(statusList);
+
+        Map<String, EvasysException> failures = evasysCourseClient.insertCourses(List.of(trainingData1, trainingData2));
+
+        assertTrue(failures.isEmpty());
+        ArgumentCaptor<CourseCreatorList> captor = ArgumentCaptor.forClass(CourseCreatorList.class);
+        verify(soapPortMock).insertCourses(captor.capture(), eq(false));
+        verify(soapPortMock).getSubunit("33", SubunitIdType.INTERNAL, false);
+
+        CourseCreator courseCreator = captor.getValue().getCourseCreators().getFirst();
+        assertEquals(2, captor.getValue().getCourseCreators().size());
+        assertEquals("11", courseCreator.getCourseUid());
+        assertEquals("Test-Kurs 11", courseCreator.getCourseName());
+        assertEquals("Teilbereich 33", courseCreator.getSubunitName());
+        assertEquals(12, courseCreator.getCourseEnrollment().getValue());
+        assertEquals(2, courseCreator.getInstructorList().getInstructors().size());
+        assertEquals("22", courseCreator.getInstructorList().getInstructors().get(0).getInstructorUid());
+        assertEquals("23", courseCreator.getInstructorList().getInstructors().get(1).getInstructorUid());
+        // instructors are the evasys users of the subunit, like the users insertCourse sets
+        assertEquals("Nachname 23", courseCreator.getInstructorList().getInstructors().get(1).getLastName());
+        assertEquals(1, captor.getValue().getCourseCreators().get(1).getInstructorList().getInstructors().size());
+    }
+
+    @Test
+    public void shouldReportUnmappableCourseOnlyForAffectedTraining() throws Exception {
+        ZLSOSTEVASYSRFC trainingData1 = createBatchTrainingData("11");
+        ZLSOSTEVASYSRFC trainingData2 = createBatchTrainingData("12");
+        trainingData2.setSEKTRAINERID("23;24");
+        trainingData2.setSEKTRAINERNNAME("Musterfrau");
+        stubTrainers("22");
+
+        Unit subunit = new Unit();
+        subunit.setMSName("Teilbereich 33");
+        when(soapPortMock.getSubunit("33", SubunitIdType.INTERNAL, false)).thenReturn(subunit);
+
+        UploadStatusList statusList = new UploadStatusList();
+        statusList.getUploadStatus().add(createUploadStatus("11", "1"));
+        when(soapPortMock.insertCourses(any(CourseCreatorList.class), eq(false))).thenReturn(statusList);
+
+        Map<String, EvasysException> failures = evasysCourseClient.insertCourses(List.of(trainingData1, trainingData2));
+
+        assertEquals(1, failures.size());
+        assertInstanceOf(IllegalArgumentException.class, failures.get("12").getCause());
+        ArgumentCaptor<CourseCreatorList> captor = ArgumentCaptor.forClass(CourseCreatorList.class);
+        verify(soapPortMock).insertCourses(captor.capture(), eq(false));
+        assertEquals(List.of("11"), captor.getValue().getCourseCreators().stream().map(CourseCreator::getCourseUid).toList());
+    }
+
+    @Test
+    public void shouldReportUnknownTrainerOnlyForAffectedCourse() throws Exception {
+        ZLSOSTEVASYSRFC trainingData1 = createBatchTrainingData("11");
+        ZLSOSTEVASYSRFC trainingData2 = createBatchTrainingData("12");
+        trainingData2.setTRAINER1ID("24");
+        stubTrainers("22");
+        TSoapfault faultresponse = new TSoapfault();
+        faultresponse.setSErrorMessage("ERR_302");
+        when(soapPortMock.getUserByIdConsiderExternalID("24", UserIdType.EXTERNAL, false, false, false, false))
+                .thenThrow(new SoapfaultMessage("User not found", faultresponse));
+
+        Unit subunit = new Unit();
+        subunit.setMSName("Teilbereich 33");
+        when(soapPortMock.getSubunit("33", SubunitIdType.INTERNAL, false)).thenReturn(subunit);
+
+        UploadStatusList statusList = new UploadStatusList();
+        statusList.getUploadStatus().add(createUploadStatus("11", "1"));
+        when(soapPortMock.insertCourses(any(CourseCreatorList.class), eq(false))).thenReturn(statusList);
+
+        Map<String, EvasysException> failures = evasysCourseClient.insertCourses(List.of(trainingData1, trainingData2));
+
+        assertEquals(1, failures.size());
+        assertEquals("No user found for id 24", failures.get("12").getMessage());
+    }
+
+    @Test
+    public void shouldMapUploadErrorsToTrainingId() throws Exception {
+        ZLSOSTEVASYSRFC trainingData1 = createBatchTrainingData("11");
+        ZLSOSTEVASYSRFC trainingData2 = createBatchTrainingData("12");
+        ZLSOSTEVASYSRFC trainingData3 = createBatchTrainingData("13");
+        stubTrainers("22");
+
+        Unit subunit = new Unit();
+        subunit.setMSName("Teilbereich 33");
+        when(soapPortMock.getSubunit("33", SubunitIdType.INTERNAL, false)).thenReturn(subunit);
+
+        UploadStatusList statusList = new UploadStatusList();
+        statusList.getUploadStatus().add(createUploadStatus("11", "1"));
+        statusList.getUploadStatus().add(createUploadStatus("12", "ERR_100"));
+        when(soapPortMock.insertCourses(any(CourseCreatorList.class), eq(false))).thenReturn(statusList);
+
+        Map<String, EvasysException> failures = evasysCourseClient.insertCourses(
+                List.of(trainingData1, trainingData2, trainingData3));
+
+        assertEquals(2, failures.size());
+        assertTrue(failures.get("12").getMessage().contains("code=ERR_100"));
+        assertEquals("No upload status returned for course 13", failures.get("13").getMessage());
+    }
+
+    @Test
+    public void shouldReportUnknownSubunitOnlyForAffectedCourse() throws Exception {
+        ZLSOSTEVASYSRFC trainingData1 = createBatchTrainingData("11");
+        ZLSOSTEVASYSRFC trainingData2 = createBatchTrainingData("12");
+        trainingData2.setTEILBEREICHID("34");
+        stubTrainers("22");
+
+        Unit subunit = new Unit();
+        subunit.setMSName("Teilbereich 33");
+        when(soapPortMock.getSubunit("33", SubunitIdType.INTERNAL, false)).thenReturn(subunit);
+        when(soapPortMock.getSubunit("34", SubunitIdType.INTERNAL, false)).thenReturn(null);
+
+        UploadStatusList statusList = new UploadStatusList();
+        statusList.getUploadStatus().add(createUploadStatus("11", "1"));
+        when(soapPortMock.insertCourses(any(CourseCreatorList.class), eq(false))).thenReturn(statusList);
+
+        Map<String, EvasysException> failures = evasysCourseClient.insertCourses(List.of(trainingData1, trainingData2));
+
+        assertEquals(1, failures.size());
+        assertEquals("No subunit found for the given id 34", failures.get("12").getMessage());
+    }
+
+    @Test
+    public void shouldRethrowFaultOfWholeInsertCoursesCall() throws Exception {
+        stubTrainers("22");
+        Unit subunit = new Unit();
+        subunit.setMSName("Teilbereich 33");
+        when(soapPortMock.getSubunit("33", SubunitIdType.INTERNAL, false)).thenReturn(subunit);
+
+        TSoapfault faultresponse = new TSoapfault();
+        faultresponse.setSErrorMessage("ERR_100");
+        when(soapPortMock.insertCourses(any(CourseCreatorList.class), eq(false)))
+                .thenThrow(new SoapfaultMessage("Upload failed", faultresponse));
+
+        List<ZLSOSTEVASYSRFC> trainings = List.of(createBatchTrainingData("11"));
+        assertThrows(EvasysException.class, () -> evasysCourseClient.insertCourses(trainings));
+    }
+
+    @Test
+    public void shouldSkipUpdateWhenCourseMatchesTrainingData() throws Exception {
+        ZLSOSTEVASYSRFC trainingData = createBatchTrainingData("11");
+        trainingData.setTRAININGRAUM("1.20");
+
+        User mockedUser = new User();
+        mockedUser.setMNId(44);
+        mockedUser.setMNFbid(33);
+        UserList mockedUserList = new UserList();
+        mockedUserList.getUsers().add(mockedUser);
+        when(soapPortMock.getUserByIdConsiderExternalID("22", UserIdType.EXTERNAL, false, false, false, false))
+                .thenReturn(mockedUserList);
+
+        Course existing = mapper.mapToCourse(trainingData);
+        existing.setMNCourseId(55);
+        existing.setMNUserId(44);
+        // evasys may return the custom fields formatted differently
+        existing.setMSCustomFieldsJSON(new ObjectMapper().readTree(existing.getMSCustomFieldsJSON()).toPrettyString());
+        when(soapPortMock.getCourse("11", CourseIdType.PUBLIC, false, false)).thenReturn(existing);
+
+        assertFalse(evasysCourseClient.updateCourse(trainingData));
+        verify(soapPortMock, never()).updateCourse(any(), anyBoolean());
+    }
+
+    @Test
+    public void shouldUpdateCourseWhenMappedFieldDiffers() throws Exception {
+        ZLSOSTEVASYSRFC trainingData = createBatchTrainingData("11");
+
+        User mockedUser = new User();
+        mockedUser.setMNId(44);
+        mockedUser.setMNFbid(33);
+        UserList mockedUserList = new UserList();
+        mockedUserList.getUsers().add(mockedUser);
+        when(soapPortMock.getUserByIdConsiderExternalID("22", UserIdType.EXTERNAL, false, false, false, false))
+                .thenReturn(mockedUserList);
+
+        Course existing = mapper.mapToCourse(trainingData);
+        existing.setMNCourseId(55);
+        existing.setMNUserId(44);
+        existing.setMSCourseTitle("Alter Titel");
+        when(soapPortMock.getCourse("11", CourseIdType.PUBLIC, false, false)).thenReturn(existing);
+
+        assertTrue(evasysCourseClient.updateCourse(trainingData));
+        verify(soapPortMock).updateCourse(any(), eq(false));
+    }
 }
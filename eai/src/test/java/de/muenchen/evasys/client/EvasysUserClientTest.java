@@ -4,17 +4,29 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
+import de.muenchen.evasys.configuration.CircuitBreakerProperties;
+import de.muenchen.evasys.configuration.ConcurrencyLimitProperties;
+import de.muenchen.evasys.configuration.RateLimitProperties;
+import de.muenchen.evasys.configuration.RetryProperties;
+import de.muenchen.evasys.configuration.TrainerDirectoryProperties;
 import de.muenchen.evasys.exception.EvasysException;
 import de.muenchen.evasys.mapper.SapEvasysMapper;
 import de.muenchen.evasys.model.SecondaryTrainer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.xml.ws.Holder;
+import java.time.Duration;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -39,7 +51,11 @@ public class EvasysUserClientTest {
     private SoapPort soapPortMock;
 
     private final SapEvasysMapper mapper = Mappers.getMapper(SapEvasysMapper.class);
-    private final SoapExecutor soapExecutor = new SoapExecutor();
+    private final SoapExecutor soapExecutor = new SoapExecutor(new SimpleMeterRegistry(),
+            new CircuitBreakerProperties(false, 5, Duration.ofSeconds(30)),
+            new ConcurrencyLimitProperties(false, 4, 1, 10, Duration.ofSeconds(5), 0.9, Duration.ofSeconds(30)),
+            new RetryProperties(false, 3, Duration.ofMillis(200), Duration.ofSeconds(5), 0.2, 10),
+            new RateLimitProperties(false, 10, 5, 10, Duration.ofSeconds(30), 0, Duration.ofMinutes(5)));
 
     private EvasysUserClient evasysUserClient;
 
@@ -48,7 +64,8 @@ public class EvasysUserClientTest {
         evasysUserClient = new EvasysUserClient(
                 soapPortMock,
                 soapExecutor,
-                mapper);
+                mapper,
+                new TrainerDirectoryCache(new TrainerDirectoryProperties(true, Duration.ofMinutes(10), 100, 1)));
     }
 
     @Test
@@ -145,6 +162,110 @@ public class EvasysUserClientTest {
         assertFalse(result);
     }
 
+    @Test
+    public void testThatTrainerExistenceChecksShareOneSubunitDownload() throws Exception {
+        User mockedUser = new User();
+        mockedUser.setMSExternalId("1");
+        UserList mockedUserList = new UserList();
+        mockedUserList.getUsers().add(mockedUser);
+
+        when(soapPortMock.getUsersBySubunit(
+                anyInt(),
+                eq(false),
+                eq(false),
+                eq(false),
+                eq(false)))
+                .thenReturn(mockedUserList);
+
+        assertTrue(evasysUserClient.isTrainerExisting("1", 1));
+        assertFalse(evasysUserClient.isTrainerExisting("2", 1));
+        assertTrue(evasysUserClient.isTrainerExisting("1", 1));
+
+        verify(soapPortMock, times(1)).getUsersBySubunit(1, false, false, false, false);
+    }
+
+    @Test
+    public void testThatInsertedTrainerIsAddedToCachedSubunit() throws Exception {
+        UserList mockedUserList = new UserList();
+        mockedUserList.getUsers().add(new User());
+
+        when(soapPortMock.getUsersBySubunit(
+                anyInt(),
+                eq(false),
+                eq(false),
+                eq(false),
+                eq(false)))
+                .thenReturn(mockedUserList);
+
+        ZLSOSTEVASYSRFC trainingData = new ZLSOSTEVASYSRFC();
+        trainingData.setTRAINER1ID("1");
+        trainingData.setTEILBEREICHID("1");
+
+        assertFalse(evasysUserClient.isTrainerExisting("1", 1));
+        evasysUserClient.insertTrainer(trainingData);
+        assertTrue(evasysUserClient.isTrainerExisting("1", 1));
+
+        verify(soapPortMock, times(1)).getUsersBySubunit(1, false, false, false, false);
+    }
+
+    @Test
+    public void testThatFailedInsertInvalidatesCachedSubunit() throws Exception {
+        UserList mockedUserList = new UserList();
+        mockedUserList.getUsers().add(new User());
+
+        when(soapPortMock.getUsersBySubunit(
+                anyInt(),
+                eq(false),
+                eq(false),
+                eq(false),
+                eq(false)))
+                .thenReturn(mockedUserList);
+        doThrow(new SoapfaultMessage("Insert failed", new TSoapfault()))
+                .when(soapPortMock).insertUser(any());
+
+        ZLSOSTEVASYSRFC trainingData = new ZLSOSTEVASYSRFC();
+        trainingData.setTRAINER1ID("1");
+        trainingData.setTEILBEREICHID("1");
+
+        assertFalse(evasysUserClient.isTrainerExisting("1", 1));
+        assertThrows(EvasysException.class, () -> evasysUserClient.insertTrainer(trainingData));
+        assertFalse(evasysUserClient.isTrainerExisting("1", 1));
+
+        verify(soapPortMock, times(2)).getUsersBySubunit(1, false, false, false, false);
+    }
+
+    @Test
+    public void testThatUnknownExternalIdInvalidatesCachedSubunit() throws Exception {
+        User mockedUser = new User();
+        mockedUser.setMSExternalId("1");
+        UserList mockedUserList = new UserList();
+        mockedUserList.getUsers().add(mockedUser);
+        TSoapfault faultresponse = new TSoapfault();
+        faultresponse.setSErrorMessage("ERR_302");
+
+        when(soapPortMock.getUsersBySubunit(
+                anyInt(),
+                eq(false),
+                eq(false),
+                eq(false),
+                eq(false)))
+                .thenReturn(mockedUserList);
+        when(soapPortMock.getUserByIdConsiderExternalID(
+                anyString(),
+                eq(UserIdType.EXTERNAL),
+                eq(false),
+                eq(false),
+                eq(false),
+                eq(false)))
+                .thenThrow(new SoapfaultMessage("No user found", faultresponse));
+
+        assertTrue(evasysUserClient.isTrainerExisting("1", 1));
+        assertThrows(EvasysException.class, () -> evasysUserClient.getUsersByExternalId("1"));
+        assertTrue(evasysUserClient.isTrainerExisting("1", 1));
+
+        verify(soapPortMock, times(2)).getUsersBySubunit(1, false, false, false, false);
+    }
+
     @Test
     public void shouldCallSoapPortWithCorrectUserWhenUpdatingTrainer() throws Exception {
         ZLSOSTEVASYSRFC trainingData = new ZLSOSTEVASYSRFC();
@@ -408,4 +529,169 @@ public class EvasysUserClientTest {
         assertEquals(1, captured.getMNFbid());
         assertEquals(2, captured.getMNAddressId());
     }
+
+    private User createUser(int id, String externalId, int subunitId) {
+        User user = new User();
+        user.setMNId(id);
+        user.setMSExternalId(externalId);
+        user.setMNFbid(subunitId);
+        return user;
+    }
+
+    @Test
+    public void shouldResolveAllExternalIdsWithOneSubunitDownload() throws Exception {
+        UserList mockedUserList = new UserList();
+        mockedUserList.getUsers().add(createUser(11, "1", 5));
+        mockedUserList.getUsers().add(createUser(12, "2", 5));
+        mockedUserList.getUsers().add(createUser(13, "3", 5));
+
+        when(soapPortMock.getUsersBySubunit(5, false, false, false, false)).thenReturn(mockedUserList);
+
+        UserList result = evasysUserClient.getUsersByExternalIdsAndSubunit(List.of("3", "1", "3"), "5");
+
+        assertEquals(List.of(13, 11), result.getUsers().stream().map(User::getMNId).toList());
+        verify(soapPortMock, never()).getUserByIdConsiderExternalID(any(), any(), anyBoolean(), anyBoolean(), anyBoolean(),
+                anyBoolean());
+    }
+
+    @Test
+    public void shouldLookUpExternalIdsMissingInSubunitDirectoryOneByOne() throws Exception {
+        UserList mockedUserList = new UserList();
+        mockedUserList.getUsers().add(createUser(11, "1", 5));
+        UserList mockedLookup = new UserList();
+        mockedLookup.getUsers().add(createUser(12, "2", 5));
+        mockedLookup.getUsers().add(createUser(22, "2", 6));
+
+        when(soapPortMock.getUsersBySubunit(5, false, false, false, false)).thenReturn(mockedUserList);
+        when(soapPortMock.getUserByIdConsiderExternalID("2", UserIdType.EXTERNAL, false, false, false, false))
+                .thenReturn(mockedLookup);
+
+        UserList result = evasysUserClient.getUsersByExternalIdsAndSubunit(List.of("1", "2"), "5");
+
+        assertEquals(List.of(11, 12), result.getUsers().stream().map(User::getMNId).toList());
+        verify(soapPortMock, never()).getUserByIdConsiderExternalID(eq("1"), any(), anyBoolean(), anyBoolean(), anyBoolean(),
+                anyBoolean());
+    }
+
+    @Test
+    public void shouldLookUpExternalIdsOneByOneWhenSubunitDirectoryFails() throws Exception {
+        TSoapfault faultresponse = new TSoapfault();
+        faultresponse.setSErrorMessage("ERR_305");
+        UserList mockedLookup = new UserList();
+        mockedLookup.getUsers().add(createUser(11, "1", 5));
+
+        when(soapPortMock.getUsersBySubunit(5, false, false, false, false))
+                .thenThrow(new SoapfaultMessage("No users found", faultresponse));
+        when(soapPortMock.getUserByIdConsiderExternalID("1", UserIdType.EXTERNAL, false, false, false, false))
+                .thenReturn(mockedLookup);
+
+        UserList result = evasysUserClient.getUsersByExternalIdsAndSubunit(List.of("1"), "5");
+
+        assertEquals(List.of(11), result.getUsers().stream().map(User::getMNId).toList());
+    }
+
+    private EvasysUserClient createClientWithLoadThreshold(int loadThreshold) {
+        return new EvasysUserClient(
+                soapPortMock,
+                soapExecutor,
+                mapper,
+                new TrainerDirectoryCache(new TrainerDirectoryProperties(true, Duration.ofMinutes(10), 100, loadThreshold)));
+    }
+
+    @Test
+    public void shouldLookUpFewExternalIdsOneByOneWhenSubunitIsNotCached() throws Exception {
+        EvasysUserClient client = createClientWithLoadThreshold(3);
+        UserList mockedLookup = new UserList();
+        mockedLookup.getUsers().add(createUser(11, "1", 5));
+
+        when(soapPortMock.getUserByIdConsiderExternalID("1", UserIdType.EXTERNAL, false, false, false, false))
+                .thenReturn(mockedLookup);
+
+        UserList result = client.getUsersByExternalIdsAndSubunit(List.of("1", "1"), "5");
+
+        assertEquals(List.of(11), result.getUsers().stream().map(User::getMNId).toList());
+        verify(soapPortMock, never()).getUsersBySubunit(anyInt(), anyBoolean(), anyBoolean(), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    public void shouldResolveFewExternalIdsFromCachedSubunit() throws Exception {
+        EvasysUserClient client = createClientWithLoadThreshold(3);
+        UserList mockedUserList = new UserList();
+        mockedUserList.getUsers().add(createUser(11, "1", 5));
+
+        when(soapPortMock.getUsersBySubunit(5, false, false, false, false)).thenReturn(mockedUserList);
+
+        assertTrue(client.isTrainerExisting("1", 5));
+        UserList result = client.getUsersByExternalIdsAndSubunit(List.of("1"), "5");
+
+        assertEquals(List.of(11), result.getUsers().stream().map(User::getMNId).toList());
+        verify(soapPortMock, times(1)).getUsersBySubunit(5, false, false, false, false);
+        verify(soapPortMock, never()).getUserByIdConsiderExternalID(any(), any(), anyBoolean(), anyBoolean(), anyBoolean(),
+                anyBoolean());
+    }
+
+    @Test
+    public void shouldCacheSubunitWithoutUsersAsEmptyDirectory() throws Exception {
+        TSoapfault faultresponse = new TSoapfault();
+        faultresponse.setSErrorMessage("ERR_305");
+
+        when(soapPortMock.getUsersBySubunit(5, false, false, false, false))
+                .thenThrow(new SoapfaultMessage("No users found", faultresponse));
+
+        assertFalse(evasysUserClient.isTrainerExisting("1", 5));
+        assertFalse(evasysUserClient.isTrainerExisting("2", 5));
+
+        verify(soapPortMock, times(1)).getUsersBySubunit(5, false, false, false, false);
+    }
+
+    @Test
+    public void shouldSkipUpdateOfUsersThatAlreadyMatchTrainingData() throws Exception {
+        ZLSOSTEVASYSRFC trainingData = new ZLSOSTEVASYSRFC();
+        trainingData.setTRAINER1ID("1");
+        trainingData.setTRAINER1ANREDE("1");
+        trainingData.setTRAINER1VNAME("Max");
+        trainingData.setTRAINER1NNAME("Mustermann");
+
+        User unchangedUser = createUser(11, "1", 5);
+        unchangedUser.setMNAddressId(1);
+        unchangedUser.setMSFirstName("Max");
+        unchangedUser.setMSSurName("Mustermann");
+        User changedUser = createUser(22, "1", 6);
+        changedUser.setMNAddressId(1);
+        changedUser.setMSFirstName("Moritz");
+        changedUser.setMSSurName("Mustermann");
+        UserList mockedResponse = new UserList();
+        mockedResponse.getUsers().add(unchangedUser);
+        mockedResponse.getUsers().add(changedUser);
+
+        when(soapPortMock.getUserByIdConsiderExternalID("1", UserIdType.EXTERNAL, false, false, false, false))
+                .thenReturn(mockedResponse);
+
+        assertTrue(evasysUserClient.updateTrainer(trainingData));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Holder<User>> captor = ArgumentCaptor.forClass(Holder.class);
+        verify(soapPortMock, times(1)).updateUser(captor.capture());
+        assertEquals(22, captor.getValue().value.getMNId());
+        assertEquals("Max", captor.getValue().value.getMSFirstName());
+    }
+
+    @Test
+    public void shouldNotWriteWhenNoUserDiffersFromTrainingData() throws Exception {
+        SecondaryTrainer secondaryTrainer = new SecondaryTrainer("2", "", "Dr.", "Erika", "Musterfrau", "");
+
+        User unchangedUser = createUser(11, "2", 5);
+        unchangedUser.setMSTitle("Dr.");
+        unchangedUser.setMSFirstName("Erika");
+        unchangedUser.setMSSurName("Musterfrau");
+        unchangedUser.setMSEmail("erika@example.com");
+        UserList mockedResponse = new UserList();
+        mockedResponse.getUsers().add(unchangedUser);
+
+        when(soapPortMock.getUserByIdConsiderExternalID("2", UserIdType.EXTERNAL, false, false, false, false))
+                .thenReturn(mockedResponse);
+
+        assertFalse(evasysUserClient.updateSecondaryTrainer(secondaryTrainer));
+        verify(soapPortMock, never()).updateUser(any());
+    }
 }
@@ -0,0 +1,65 @@
+package de.muenchen.evasys.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class IntHashSetTest {
+
+    @Test
+    void testAddedValuesAreContained() {
+        final IntHashSet set = new IntHashSet(0);
+
+        assertTrue(set.add(11));
+        assertFalse(set.add(11));
+        assertTrue(set.add(-3));
+
+        assertTrue(set.contains(11));
+        assertTrue(set.contains(-3));
+        assertFalse(set.contains(12));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    void testSetGrowsBeyondExpectedSize() {
+        final IntHashSet set = new IntHashSet(4);
+        for (int value = 0; value < 10_000; value++) {
+            set.add(value * 7);
+        }
+
+        assertEquals(10_000, set.size());
+        for (int value = 0; value < 10_000; value++) {
+            assertTrue(set.contains(value * 7));
+            assertFalse(set.contains(value * 7 + 1));
+        }
+    }
+
+    @Test
+    void testMinValueIsStoredAlthoughItMarksFreeSlots() {
+        final IntHashSet set = new IntHashSet(4);
+
+        assertFalse(set.contains(Integer.MIN_VALUE));
+        assertTrue(set.add(Integer.MIN_VALUE));
+        assertFalse(set.add(Integer.MIN_VALUE));
+
+        assertTrue(set.contains(Integer.MIN_VALUE));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void testForEachVisitsEveryValue() {
+        final IntHashSet set = new IntHashSet(4);
+        set.add(1);
+        set.add(Integer.MIN_VALUE);
+        set.add(42);
+
+        final Set<Integer> visited = new HashSet<>();
+        set.forEach(visited::add);
+
+        assertEquals(Set.of(1, Integer.MIN_VALUE, 42), visited);
+    }
+}
@@ -0,0 +1,42 @@
+package de.muenchen.evasys.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class RetryBudgetTest {
+
+    @Test
+    void testBudgetStartsFull() {
+        final RetryBudget budget = new RetryBudget(0.2, 2);
+
+        assertTrue(budget.tryWithdraw());
+        assertTrue(budget.tryWithdraw());
+        assertFalse(budget.tryWithdraw());
+    }
+
+    @Test
+    void testCallsRefillBudgetByRatio() {
+        final RetryBudget budget = new RetryBudget(0.5, 1);
+        assertTrue(budget.tryWithdraw());
+
+        budget.deposit();
+        assertFalse(budget.tryWithdraw());
+        budget.deposit();
+
+        assertTrue(budget.tryWithdraw());
+    }
+
+    @Test
+    void testBalanceIsCappedAtMaxRetries() {
+        final RetryBudget budget = new RetryBudget(0.5, 3);
+
+        for (int i = 0; i < 10; i++) {
+            budget.deposit();
+        }
+
+        assertEquals(3.0, budget.balance());
+    }
+}
@@ -0,0 +1,62 @@
+package de.muenchen.evasys.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import jakarta.xml.soap.MessageFactory;
+import jakarta.xml.soap.SOAPMessage;
+import jakarta.xml.ws.handler.MessageContext;
+import jakarta.xml.ws.handler.soap.SOAPMessageContext;
+import org.apache.cxf.binding.soap.SoapMessage;
+import org.apache.cxf.headers.Header;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.staxutils.StaxUtils;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Element;
+
+class SoapAuthHeaderInterceptorTest {
+
+    private static final String EXPECTED_HEADER = "<Header xmlns=\"soapserver-v100.wsdl\">"
+            + "<Login>user</Login><Password>p&lt;ss&amp;word</Password></Header>";
+
+    private final SoapAuthHeaderInterceptor interceptor = new SoapAuthHeaderInterceptor("user", "p<ss&word");
+
+    private static Element handlerHeader() throws Exception {
+        final SOAPMessage soapMessage = MessageFactory.newInstance().createMessage();
+        final SOAPMessageContext context = mock(SOAPMessageContext.class);
+        when(context.get(MessageContext.MESSAGE_OUTBOUND_PROPERTY)).thenReturn(true);
+        when(context.getMessage()).thenReturn(soapMessage);
+
+        new SoapHeaderHandler("user", "p<ss&word").handleMessage(context);
+
+        return (Element) soapMessage.getSOAPHeader().getFirstChild();
+    }
+
+    private Element interceptorHeader(final SoapMessage message) {
+        interceptor.handleMessage(message);
+        final Header header = message.getHeaders().getFirst();
+        return (Element) header.getObject();
+    }
+
+    @Test
+    void testHeaderMatchesSoapHeaderHandler() throws Exception {
+        final String expected = StaxUtils.toString(handlerHeader());
+
+        final String actual = StaxUtils.toString(interceptorHeader(new SoapMessage(new MessageImpl())));
+
+        assertEquals(EXPECTED_HEADER, expected);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void testEveryMessageGetsItsOwnHeader() {
+        final Element first = interceptorHeader(new SoapMessage(new MessageImpl()));
+        first.setAttributeNS("http://schemas.xmlsoap.org/soap/envelope/", "soap:mustUnderstand", "1");
+        final Element second = interceptorHeader(new SoapMessage(new MessageImpl()));
+
+        assertNotSame(first, second);
+        assertEquals(EXPECTED_HEADER, StaxUtils.toString(second));
+    }
+}
@@ -0,0 +1,292 @@
+package de.muenchen.evasys.client;
+
+import static de.muenchen.evasys.client.SoapExecutor.OperationType.READ;
+import static de.muenchen.evasys.client.SoapExecutor.OperationType.WRITE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.muenchen.evasys.configuration.CircuitBreakerProperties;
+import de.muenchen.evasys.configuration.ConcurrencyLimitProperties;
+import de.muenchen.evasys.configuration.RateLimitProperties;
+import de.muenchen.evasys.configuration.RetryProperties;
+import de.muenchen.evasys.exception.EvasysException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.xml.ws.WebServiceException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import wsdl.soapserver_v100.SoapfaultMessage;
+import wsdl.soapserver_v100.TSoapfault;
+
+class SoapExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SoapExecutor soapExecutor;
+
+    @BeforeEach
+    void setup() {
+        soapExecutor = createExecutor(new CircuitBreakerProperties(false, 5, Duration.ofSeconds(30)));
+    }
+
+    private SoapExecutor createExecutor(final CircuitBreakerProperties circuitBreakerProperties) {
+        return createExecutor(circuitBreakerProperties, retry(10));
+    }
+
+    private SoapExecutor createExecutor(final CircuitBreakerProperties circuitBreakerProperties, final RetryProperties retryProperties) {
+        meterRegistry = new SimpleMeterRegistry();
+        return new SoapExecutor(meterRegistry, circuitBreakerProperties,
+                new ConcurrencyLimitProperties(true, 4, 1, 10, Duration.ofSeconds(5), 0.9, Duration.ofSeconds(1)),
+                retryProperties,
+                new RateLimitProperties(true, 1000, 1, 1, Duration.ofMillis(100), 0, Duration.ofMinutes(5)));
+    }
+
+    private static RetryProperties retry(final int budgetMaxRetries) {
+        return new RetryProperties(true, 3, Duration.ofMillis(1), Duration.ofMillis(5), 0.2, budgetMaxRetries);
+    }
+
+    private static SoapExecutor.SoapCall<String> timeout() {
+        return () -> {
+            throw new WebServiceException("Could not send Message.", new HttpTimeoutException("Timeout"));
+        };
+    }
+
+    private static SoapExecutor.SoapCall<String> timeoutsThenSuccess(final AtomicInteger calls, final int timeouts) {
+        return () -> {
+            if (calls.incrementAndGet() <= timeouts) {
+                throw new WebServiceException("Could not send Message.", new HttpTimeoutException("Timeout"));
+            }
+            return "course";
+        };
+    }
+
+    private double retries(final String decision) {
+        final Counter counter = meterRegistry.find("evasys.soap.retries")
+                .tags("client", "test-client", "action", "requesting course", "decision", decision)
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private double breakerState(final String state) {
+        return meterRegistry.find("evasys.circuit.breaker.state").tag("state", state).gauge().value();
+    }
+
+    private Timer timer(final String outcome, final String errorCode) {
+        return meterRegistry.find("evasys.soap.requests")
+                .tags("client", "test-client", "action", "requesting course", "outcome", outcome, "error_code", errorCode)
+                .timer();
+    }
+
+    @Test
+    void testSuccessfulCallIsTimed() {
+        final String result = soapExecutor.execute("test-client", READ, "requesting course", () -> "course");
+
+        assertEquals("course", result);
+        final Timer timer = timer("success", "none");
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    void testSoapFaultIsTimedWithErrorCode() {
+        final TSoapfault faultInfo = new TSoapfault();
+        faultInfo.setSErrorMessage("ERR_312");
+        faultInfo.setSDetails("Course not found");
+
+        final EvasysException exception = assertThrows(EvasysException.class,
+                () -> soapExecutor.executeVoid("test-client", READ, "requesting course", () -> {
+                    throw new SoapfaultMessage("fault", faultInfo);
+                }));
+
+        assertTrue(exception.getMessage().contains("code=ERR_312"));
+        assertEquals(1, timer("soap_fault", "ERR_312").count());
+    }
+
+    @Test
+    void testUnexpectedErrorIsTimedWithExceptionType() {
+        assertThrows(EvasysException.class,
+                () -> soapExecutor.execute("test-client", READ, "requesting course", () -> {
+                    throw new SocketTimeoutException("Read timed out");
+                }));
+
+        assertEquals(1, timer("error", "SocketTimeoutException").count());
+    }
+
+    @Test
+    void testTimerPublishesServiceLevelObjectives() {
+        soapExecutor.execute("test-client", READ, "requesting course", () -> "course");
+        soapExecutor.execute("test-client", READ, "requesting course", () -> "course");
+
+        final Timer timer = timer("success", "none");
+        assertEquals(2, timer.count());
+        assertEquals(6, timer.takeSnapshot().histogramCounts().length);
+    }
+
+    @Test
+    void testCircuitBreakerOpensAfterConsecutiveTimeouts() {
+        soapExecutor = createExecutor(new CircuitBreakerProperties(true, 2, Duration.ofMinutes(1)));
+
+        assertThrows(EvasysException.class, () -> soapExecutor.execute("test-client", READ, "requesting course", timeout()));
+        assertEquals(1.0, breakerState("closed"));
+        assertThrows(EvasysException.class, () -> soapExecutor.execute("test-client", READ, "requesting course", timeout()));
+        assertEquals(1.0, breakerState("open"));
+
+        final AtomicInteger calls = new AtomicInteger();
+        final EvasysException exception = assertThrows(EvasysException.class,
+                () -> soapExecutor.execute("test-client", READ, "requesting course", calls::incrementAndGet));
+
+        assertEquals("evasys circuit breaker is open, not requesting course", exception.getMessage());
+        assertEquals(0, calls.get());
+        assertEquals(1, timer("rejected", "circuit_open").count());
+    }
+
+    @Test
+    void testHtmlErrorPageCountsAsFailure() {
+        soapExecutor = createExecutor(new CircuitBreakerProperties(true, 1, Duration.ofMinutes(1)));
+
+        assertThrows(EvasysException.class, () -> soapExecutor.execute("test-client", READ, "requesting course", () -> {
+            throw new WebServiceException("Response was of unexpected text/html ContentType.  Incoming portion of HTML stream: <html>");
+        }));
+
+        assertEquals(1.0, breakerState("open"));
+    }
+
+    @Test
+    void testSoapFaultsAndOtherErrorsDoNotOpenCircuitBreaker() {
+        soapExecutor = createExecutor(new CircuitBreakerProperties(true, 1, Duration.ofMinutes(1)));
+        final TSoapfault faultInfo = new TSoapfault();
+        faultInfo.setSErrorMessage("ERR_312");
+
+        assertThrows(EvasysException.class, () -> soapExecutor.execute("test-client", READ, "requesting course", () -> {
+            throw new SoapfaultMessage("fault", faultInfo);
+        }));
+        assertThrows(EvasysException.class, () -> soapExecutor.execute("test-client", READ, "requesting course", () -> {
+            throw new IllegalArgumentException("invalid request");
+        }));
+
+        assertEquals(1.0, breakerState("closed"));
+    }
+
+    @Test
+    void testConcurrencyLimitIsExported() {
+        assertEquals(4.0, meterRegistry.find("evasys.concurrency.limit").gauge().value());
+
+        assertThrows(EvasysException.class, () -> soapExecutor.execute("test-client", READ, "requesting course", timeout()));
+
+        assertEquals(3.0, meterRegistry.find("evasys.concurrency.limit").gauge().value());
+    }
+
+    @Test
+    void testCallsInFlightAreExported() {
+        final AtomicReference<Double> duringCall = new AtomicReference<>();
+
+        soapExecutor.execute("test-client", READ, "requesting course", () -> {
+            duringCall.set(meterRegistry.find("evasys.soap.calls.in.flight").gauge().value());
+            return "course";
+        });
+        assertThrows(EvasysException.class, () -> soapExecutor.execute("test-client", READ, "requesting course", timeout()));
+
+        assertEquals(1.0, duringCall.get());
+        assertEquals(0.0, meterRegistry.find("evasys.soap.calls.in.flight").gauge().value());
+    }
+
+    @Test
+    void testIdempotentCallIsRetriedAfterTimeout() {
+        final AtomicInteger calls = new AtomicInteger();
+
+        final String result = soapExecutor.executeIdempotent("test-client", READ, "requesting course", timeoutsThenSuccess(calls, 2));
+
+        assertEquals("course", result);
+        assertEquals(3, calls.get());
+        assertEquals(2.0, retries("retried"));
+        assertEquals(2, timer("error", "WebServiceException").count());
+        assertEquals(1, timer("success", "none").count());
+    }
+
+    @Test
+    void testRetriesStopAfterMaxAttempts() {
+        final AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(EvasysException.class,
+                () -> soapExecutor.executeIdempotent("test-client", READ, "requesting course", timeoutsThenSuccess(calls, 5)));
+
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void testSoapFaultIsNotRetried() {
+        final TSoapfault faultInfo = new TSoapfault();
+        faultInfo.setSErrorMessage("ERR_312");
+        final AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(EvasysException.class, () -> soapExecutor.executeIdempotentVoid("test-client", READ, "requesting course", () -> {
+            calls.incrementAndGet();
+            throw new SoapfaultMessage("fault", faultInfo);
+        }));
+
+        assertEquals(1, calls.get());
+        assertEquals(0.0, retries("retried"));
+    }
+
+    @Test
+    void testNonIdempotentCallIsNotRetried() {
+        final AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(EvasysException.class,
+                () -> soapExecutor.execute("test-client", READ, "requesting course", timeoutsThenSuccess(calls, 1)));
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testRetriesStopWhenBudgetIsExhausted() {
+        soapExecutor = createExecutor(new CircuitBreakerProperties(false, 5, Duration.ofSeconds(30)), retry(1));
+        final AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(EvasysException.class,
+                () -> soapExecutor.executeIdempotent("test-client", READ, "requesting course", timeoutsThenSuccess(calls, 5)));
+
+        assertEquals(2, calls.get());
+        assertEquals(1.0, retries("retried"));
+        assertEquals(1.0, retries("budget_exhausted"));
+    }
+
+    @Test
+    void testOpenCircuitBreakerIsNotRetried() {
+        soapExecutor = createExecutor(new CircuitBreakerProperties(true, 1, Duration.ofMinutes(1)));
+        final AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(EvasysException.class,
+                () -> soapExecutor.executeIdempotent("test-client", READ, "requesting course", timeoutsThenSuccess(calls, 5)));
+
+        assertEquals(1, calls.get());
+        assertEquals(1, timer("rejected", "circuit_open").count());
+    }
+
+    @Test
+    void testRateLimiterRejectsWritesBeyondTimeout() {
+        soapExecutor.execute("test-client", WRITE, "requesting course", () -> "course");
+
+        final EvasysException exception = assertThrows(EvasysException.class,
+                () -> soapExecutor.execute("test-client", WRITE, "requesting course", () -> "course"));
+
+        assertTrue(exception.getMessage().startsWith("Timed out waiting for the evasys rate limit"));
+        assertEquals(1, timer("rejected", "rate_limit").count());
+        assertEquals(1, meterRegistry.find("evasys.rate.limiter.wait").tag("operation", "write").timer().count());
+    }
+
+    @Test
+    void testRateLimitIsScaled() {
+        soapExecutor.scaleRateLimit(0.5);
+
+        assertEquals(500.0, meterRegistry.find("evasys.rate.limit").tag("operation", "read").gauge().value(), 0.001);
+        assertEquals(0.5, meterRegistry.find("evasys.rate.limit").tag("operation", "write").gauge().value(), 0.001);
+    }
+}
@@ -0,0 +1,104 @@
+package de.muenchen.evasys.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import de.muenchen.evasys.configuration.CircuitBreakerProperties;
+import de.muenchen.evasys.configuration.ConcurrencyLimitProperties;
+import de.muenchen.evasys.configuration.RateLimitProperties;
+import de.muenchen.evasys.configuration.RetryProperties;
+import de.muenchen.evasys.exception.EvasysException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import wsdl.soapserver_v100.SoapPort;
+import wsdl.soapserver_v100.SoapUsageParams;
+import wsdl.soapserver_v100.StringList;
+
+@ExtendWith(MockitoExtension.class)
+class SoapQuotaMonitorTest {
+
+    private static final ZonedDateTime NOON = ZonedDateTime.of(2025, 3, 10, 12, 0, 0, 0, ZoneId.of("Europe/Berlin"));
+
+    @Mock
+    private SoapPort soapPortMock;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SoapQuotaMonitor quotaMonitor;
+
+    @BeforeEach
+    void setup() {
+        // 864,000 requests per day allow 10 per second, the sum of the configured rates;
+        // start() is not called, the tests poll themselves
+        final RateLimitProperties properties = new RateLimitProperties(true, 8, 2, 10, Duration.ofSeconds(30), 864_000, Duration.ofMinutes(5));
+        final SoapExecutor soapExecutor = new SoapExecutor(meterRegistry,
+                new CircuitBreakerProperties(false, 5, Duration.ofSeconds(30)),
+                new ConcurrencyLimitProperties(false, 4, 1, 10, Duration.ofSeconds(5), 0.9, Duration.ofSeconds(30)),
+                new RetryProperties(false, 3, Duration.ofMillis(200), Duration.ofSeconds(5), 0.2, 10),
+                properties);
+        quotaMonitor = new SoapQuotaMonitor(soapPortMock, soapExecutor, properties, meterRegistry);
+    }
+
+    private double rate(final String operation) {
+        return meterRegistry.find("evasys.rate.limit").tag("operation", operation).gauge().value();
+    }
+
+    private static StringList usage(final String value) {
+        final StringList usage = new StringList();
+        usage.getStrings().add(value);
+        return usage;
+    }
+
+    @Test
+    void testRatesAreScaledToRemainingQuota() throws Exception {
+        // 432,000 requests left for 43,200 seconds allow 10 per second, all of the configured rate
+        when(soapPortMock.getSoapUsage(any())).thenReturn(usage("432000"));
+        quotaMonitor.poll(NOON);
+        assertEquals(8.0, rate("read"), 0.001);
+
+        // 86,400 requests left allow 2 per second, a fifth of the configured rate
+        when(soapPortMock.getSoapUsage(any())).thenReturn(usage("777600"));
+        quotaMonitor.poll(NOON);
+
+        assertEquals(1.6, rate("read"), 0.001);
+        assertEquals(0.4, rate("write"), 0.001);
+        assertEquals(86_400.0, meterRegistry.find("evasys.soap.quota.remaining").gauge().value());
+    }
+
+    @Test
+    void testUsageIsRequestedSinceStartOfDay() throws Exception {
+        when(soapPortMock.getSoapUsage(any())).thenAnswer(invocation -> {
+            final SoapUsageParams params = invocation.getArgument(0);
+            assertEquals(NOON.toLocalDate().atStartOfDay(NOON.getZone()).toInstant(),
+                    params.getTimeFrom().toGregorianCalendar().toInstant());
+            return usage("0");
+        });
+
+        quotaMonitor.poll(NOON);
+    }
+
+    @Test
+    void testUnexpectedUsageKeepsRates() throws Exception {
+        when(soapPortMock.getSoapUsage(any())).thenReturn(usage("n/a"));
+
+        assertThrows(EvasysException.class, () -> quotaMonitor.poll(NOON));
+        quotaMonitor.poll();
+
+        assertEquals(8.0, rate("read"), 0.001);
+    }
+
+    @Test
+    void testScaleIsBounded() {
+        assertEquals(1.0, SoapQuotaMonitor.scale(1_000_000, Duration.ofHours(1), 10));
+        assertEquals(0.5, SoapQuotaMonitor.scale(18_000, Duration.ofHours(1), 10));
+        assertEquals(SoapQuotaMonitor.MIN_SCALE, SoapQuotaMonitor.scale(0, Duration.ofHours(1), 10));
+    }
+}
@@ -0,0 +1,64 @@
+package de.muenchen.evasys.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void testBurstIsAvailableImmediately() {
+        final TokenBucket bucket = new TokenBucket(1, 3, now::get);
+
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(-1, bucket.reserve(0));
+    }
+
+    @Test
+    void testReservationsQueueUpBehindEachOther() {
+        final TokenBucket bucket = new TokenBucket(2, 1, now::get);
+        final long timeout = TimeUnit.SECONDS.toNanos(10);
+
+        assertEquals(0, bucket.reserve(timeout));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), bucket.reserve(timeout));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), bucket.reserve(timeout));
+    }
+
+    @Test
+    void testRejectedReservationTakesNoPermit() {
+        final TokenBucket bucket = new TokenBucket(1, 1, now::get);
+        bucket.reserve(0);
+
+        assertEquals(-1, bucket.reserve(TimeUnit.MILLISECONDS.toNanos(500)));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(0, bucket.reserve(0));
+    }
+
+    @Test
+    void testRefillIsCappedAtBurst() {
+        final TokenBucket bucket = new TokenBucket(10, 2, now::get);
+        now.addAndGet(TimeUnit.MINUTES.toNanos(1));
+
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(-1, bucket.reserve(0));
+    }
+
+    @Test
+    void testRateChangeAppliesToFutureRefills() {
+        final TokenBucket bucket = new TokenBucket(1, 1, now::get);
+        bucket.reserve(0);
+
+        bucket.setRate(4);
+
+        assertEquals(4.0, bucket.rate());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(250), bucket.reserve(TimeUnit.SECONDS.toNanos(1)));
+    }
+}
@@ -0,0 +1,140 @@
+package de.muenchen.evasys.endpoint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
+import de.muenchen.evasys.configuration.IntakeProperties;
+import de.muenchen.evasys.configuration.SapPoProperties;
+import de.muenchen.evasys.configuration.WebServiceConfiguration;
+import de.muenchen.evasys.service.InboxJournal;
+import de.muenchen.evasys.service.TrainingIntakeService;
+import de.muenchen.evasys.service.TrainingProcessorService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.apache.catalina.Context;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.transport.servlet.CXFNonSpringServlet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class StreamingIntakeInterceptorTest {
+
+    private static final String MESSAGE = """
+            <soapenv:Envelope xmlns:soapenv="http://schemas.xmlsoap.org/soap/envelope/"
+                              xmlns:rfc="urn:sap-com:document:sap:rfc:functions">
+              <soapenv:Body>
+                <rfc:Z_LSO_EVASYS_RFC>
+                  <IT_EVASYS_RFC>
+                    <item><TRAINING_ID>1</TRAINING_ID><TRAINER_1_ID>T1</TRAINER_1_ID></item>
+                    <item><TRAINING_ID>2</TRAINING_ID><TRAINER_1_ID>T2</TRAINER_1_ID></item>
+                    <item><TRAINING_ID>3</TRAINING_ID><TRAINER_1_ID>T3</TRAINER_1_ID></item>
+                  </IT_EVASYS_RFC>
+                  <I_ZIELSYSTEM>EVASYS</I_ZIELSYSTEM>
+                </rfc:Z_LSO_EVASYS_RFC>
+              </soapenv:Body>
+            </soapenv:Envelope>
+            """;
+
+    @Mock
+    private TrainingProcessorService trainingProcessorService;
+
+    @Mock
+    private InboxJournal inboxJournal;
+
+    private Bus bus;
+    private Tomcat tomcat;
+
+    @BeforeEach
+    void setup() throws Exception {
+        final TrainingIntakeService trainingIntakeService = new TrainingIntakeService(
+                trainingProcessorService,
+                inboxJournal,
+                new IntakeProperties(IntakeProperties.Mode.SYNCHRONOUS, 1, 1, Duration.ofSeconds(5), true, 2),
+                new SimpleMeterRegistry());
+
+        final Bus defaultBus = BusFactory.getThreadDefaultBus(false);
+        bus = BusFactory.newInstance().createBus();
+        BusFactory.setThreadDefaultBus(defaultBus);
+        final WebServiceConfiguration configuration = new WebServiceConfiguration(
+                new SapPoProperties("http://localhost", "sap", "secret"), trainingIntakeService);
+        configuration.endpoint(bus, configuration.sapService());
+
+        final Path baseDir = Files.createTempDirectory("evasys-eai");
+        final CXFNonSpringServlet servlet = new CXFNonSpringServlet();
+        servlet.setBus(bus);
+        tomcat = new Tomcat();
+        tomcat.setBaseDir(baseDir.toString());
+        tomcat.setPort(0);
+        final Context context = tomcat.addContext("", baseDir.toString());
+        Tomcat.addServlet(context, "cxf", servlet);
+        context.addServletMappingDecoded("/*", "cxf");
+        tomcat.getConnector();
+        tomcat.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        tomcat.stop();
+        tomcat.destroy();
+        bus.shutdown(true);
+    }
+
+    @Test
+    void itemsAreProcessedInChunksWhileTheMessageIsReceived() throws Exception {
+        final HttpResponse<String> response = send(MESSAGE);
+
+        assertThat(response.statusCode()).isLessThan(300);
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<List<ZLSOSTEVASYSRFC>> chunks = ArgumentCaptor.forClass(List.class);
+        final InOrder inOrder = inOrder(trainingProcessorService);
+        inOrder.verify(trainingProcessorService).streamStarted();
+        inOrder.verify(trainingProcessorService, times(2)).processTrainingItems(chunks.capture());
+        inOrder.verify(trainingProcessorService).streamFinished(3);
+        assertThat(chunks.getAllValues())
+                .extracting(chunk -> chunk.stream().map(ZLSOSTEVASYSRFC::getTRAININGID).toList())
+                .containsExactly(List.of("1", "2"), List.of("3"));
+        verify(trainingProcessorService, never()).processTrainingRequest(any());
+    }
+
+    @Test
+    void malformedMessageEndsStream() throws Exception {
+        send(MESSAGE.replace("<item><TRAINING_ID>3", "<item><TRAINING_ID>3<"));
+
+        // items received before the error are processed, the rest is left to a redelivery
+        verify(trainingProcessorService).processTrainingItems(any());
+        verify(trainingProcessorService).streamFinished(2);
+        verify(trainingProcessorService, never()).processTrainingRequest(any());
+    }
+
+    private HttpResponse<String> send(final String message) throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            return client.send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:" + tomcat.getConnector().getLocalPort() + "/evasyseai"))
+                    .header("Content-Type", "text/xml; charset=UTF-8")
+                    .header("SOAPAction", "\"http://sap.com/xi/WebService/soap1.1\"")
+                    .POST(HttpRequest.BodyPublishers.ofString(message))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+        }
+    }
+}
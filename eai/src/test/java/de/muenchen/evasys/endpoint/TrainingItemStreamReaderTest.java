@@ -0,0 +1,159 @@
+package de.muenchen.evasys.endpoint;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sap.document.sap.rfc.functions.ZLSOEVASYSRFC;
+import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
+import jakarta.xml.bind.JAXBContext;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+import org.junit.jupiter.api.Test;
+
+class TrainingItemStreamReaderTest {
+
+    private static final int LARGE_BATCH = 100_000;
+
+    private static final String HEAD = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <rfc:Z_LSO_EVASYS_RFC xmlns:rfc="urn:sap-com:document:sap:rfc:functions">
+              <IT_EVASYS_RFC>
+            """;
+
+    private static final String TAIL = """
+              </IT_EVASYS_RFC>
+              <I_ZIELSYSTEM>EVASYS</I_ZIELSYSTEM>
+            </rfc:Z_LSO_EVASYS_RFC>
+            """;
+
+    @Test
+    void itemsAreHandedOverInOrderAndHiddenFromTheUnmarshaller() throws Exception {
+        final List<String> events = new ArrayList<>();
+
+        final ZLSOEVASYSRFC trainingRequest = read(payload(3),
+                trainingData -> events.add(trainingData.getTRAININGID()),
+                () -> events.add("end"));
+
+        assertThat(events).containsExactly("0", "1", "2", "end");
+        assertThat(trainingRequest.getITEVASYSRFC().getItem()).isEmpty();
+        assertThat(trainingRequest.getIZIELSYSTEM()).isEqualTo("EVASYS");
+    }
+
+    @Test
+    void itemsAreParsedCompletely() throws Exception {
+        final List<ZLSOSTEVASYSRFC> items = new ArrayList<>();
+
+        read(payload(1), items::add, () -> {
+        });
+
+        assertThat(items).singleElement().satisfies(trainingData -> {
+            assertThat(trainingData.getTRAININGTITEL()).isEqualTo("Training 0");
+            assertThat(trainingData.getTEILBEREICHID()).isEqualTo("7");
+            assertThat(trainingData.getTRAINER1ID()).isEqualTo("T0");
+            assertThat(trainingData.getTRAINER1MAIL()).isEqualTo("trainer0@muenchen.de");
+        });
+    }
+
+    @Test
+    void emptyTableEndsStream() throws Exception {
+        final List<String> events = new ArrayList<>();
+
+        read(new ByteArrayInputStream("""
+                <rfc:Z_LSO_EVASYS_RFC xmlns:rfc="urn:sap-com:document:sap:rfc:functions">
+                  <IT_EVASYS_RFC/>
+                  <I_ZIELSYSTEM>EVASYS</I_ZIELSYSTEM>
+                </rfc:Z_LSO_EVASYS_RFC>
+                """.getBytes(UTF_8)), trainingData -> events.add("item"), () -> events.add("end"));
+
+        assertThat(events).containsExactly("end");
+    }
+
+    // a separate JVM, so the heap limit applies to the parsing alone and not to the test runner
+    @Test
+    void largeBatchIsStreamedWithBoundedHeap() throws Exception {
+        final Process process = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xmx32m",
+                "-cp", System.getProperty("java.class.path"),
+                TrainingItemStreamReaderTest.class.getName(),
+                String.valueOf(LARGE_BATCH))
+                .redirectErrorStream(true)
+                .start();
+        final String output = new String(process.getInputStream().readAllBytes(), UTF_8);
+
+        assertThat(process.waitFor(2, TimeUnit.MINUTES)).isTrue();
+        assertThat(process.exitValue()).as(output).isZero();
+        assertThat(output).contains("Streamed " + LARGE_BATCH + " item(s)");
+    }
+
+    // entry point of the child JVM: streams the given number of items, exit code 1 if any got lost
+    public static void main(final String[] args) throws Exception {
+        final int expected = Integer.parseInt(args[0]);
+        final int[] received = new int[1];
+        read(payload(expected), trainingData -> {
+            if (!String.valueOf(received[0]++).equals(trainingData.getTRAININGID())) {
+                throw new IllegalStateException("Item out of order: " + trainingData.getTRAININGID());
+            }
+        }, () -> {
+        });
+        System.out.println("Streamed " + received[0] + " item(s)");
+        System.exit(received[0] == expected ? 0 : 1);
+    }
+
+    private static ZLSOEVASYSRFC read(final InputStream input, final Consumer<ZLSOSTEVASYSRFC> items, final Runnable tableEnd)
+            throws Exception {
+        final XMLStreamReader reader = XMLInputFactory.newFactory().createXMLStreamReader(input);
+        final JAXBContext itemContext = JAXBContext.newInstance(ZLSOSTEVASYSRFC.class);
+        final XMLStreamReader filtered = new TrainingItemStreamReader(reader, itemContext.createUnmarshaller(), items, tableEnd);
+        return JAXBContext.newInstance(ZLSOEVASYSRFC.class).createUnmarshaller()
+                .unmarshal(filtered, ZLSOEVASYSRFC.class)
+                .getValue();
+    }
+
+    // generated while it is read, so the payload itself never sits in memory
+    private static InputStream payload(final int items) {
+        return new SequenceInputStream(new Enumeration<>() {
+            private int part = -1;
+
+            @Override
+            public boolean hasMoreElements() {
+                return part <= items;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                final String xml = part < 0 ? HEAD : part < items ? item(part) : TAIL;
+                part++;
+                return new ByteArrayInputStream(xml.getBytes(UTF_8));
+            }
+        });
+    }
+
+    private static String item(final int id) {
+        return """
+                    <item>
+                      <TRAINING_ID>%1$d</TRAINING_ID>
+                      <TRAINING_TITEL>Training %1$d</TRAINING_TITEL>
+                      <TRAININGSTYP_KUERZEL>SEM</TRAININGSTYP_KUERZEL>
+                      <TRAINING_ART>Seminar</TRAINING_ART>
+                      <TRAINING_BEGINN>2026-01-01</TRAINING_BEGINN>
+                      <TRAINING_ENDE>2026-01-02</TRAINING_ENDE>
+                      <TRAINING_RAUM>Raum %1$d</TRAINING_RAUM>
+                      <TEILBEREICH_ID>7</TEILBEREICH_ID>
+                      <TRAINER_1_ID>T%1$d</TRAINER_1_ID>
+                      <TRAINER_1_VNAME>Vorname %1$d</TRAINER_1_VNAME>
+                      <TRAINER_1_NNAME>Nachname %1$d</TRAINER_1_NNAME>
+                      <TRAINER_1_MAIL>trainer%1$d@muenchen.de</TRAINER_1_MAIL>
+                    </item>
+                """.formatted(id);
+    }
+}
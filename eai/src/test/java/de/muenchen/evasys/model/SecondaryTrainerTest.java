@@ -150,4 +150,12 @@ class SecondaryTrainerTest {
         assertEquals("max@example.com", t1.email());
         assertEquals("erika@example.com", t2.email());
     }
+
+    @Test
+    void testIdsAreReadWithoutCheckingOtherLists() {
+        ZLSOSTEVASYSRFC trainingData = createData(" 1 ; 2 ;", "1", null, null, null, null);
+
+        assertEquals(List.of("1", "2"), SecondaryTrainer.idsFromTrainingData(trainingData));
+        assertTrue(SecondaryTrainer.idsFromTrainingData(new ZLSOSTEVASYSRFC()).isEmpty());
+    }
 }
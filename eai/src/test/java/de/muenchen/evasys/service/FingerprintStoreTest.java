@@ -0,0 +1,90 @@
+package de.muenchen.evasys.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
+import de.muenchen.evasys.configuration.IdempotencyProperties;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FingerprintStoreTest {
+
+    @TempDir
+    private Path directory;
+
+    private FingerprintStore openStore(Duration window, int maxEntries) {
+        return new FingerprintStore(new IdempotencyProperties(true, window, maxEntries, directory));
+    }
+
+    private ZLSOSTEVASYSRFC createTrainingData(String trainingId, String title) {
+        ZLSOSTEVASYSRFC trainingData = new ZLSOSTEVASYSRFC();
+        trainingData.setTRAININGID(trainingId);
+        trainingData.setTRAINER1ID("1");
+        trainingData.setTRAININGTITEL(title);
+        return trainingData;
+    }
+
+    @Test
+    void appliedItemIsRecognizedByItsContent() {
+        FingerprintStore store = openStore(Duration.ofDays(1), 100);
+        store.markApplied(createTrainingData("1", "Titel"));
+
+        assertTrue(store.isApplied(createTrainingData("1", "Titel")));
+        assertFalse(store.isApplied(createTrainingData("1", "Neuer Titel")));
+        assertFalse(store.isApplied(createTrainingData("2", "Titel")));
+    }
+
+    @Test
+    void trainingChangedBackToEarlierDataIsNotApplied() {
+        FingerprintStore store = openStore(Duration.ofDays(1), 100);
+        store.markApplied(createTrainingData("1", "Titel"));
+        store.markApplied(createTrainingData("1", "Neuer Titel"));
+
+        assertFalse(store.isApplied(createTrainingData("1", "Titel")));
+        assertTrue(store.isApplied(createTrainingData("1", "Neuer Titel")));
+    }
+
+    @Test
+    void appliedItemsSurviveRestart() {
+        FingerprintStore store = openStore(Duration.ofDays(1), 100);
+        store.markApplied(createTrainingData("1", "Titel"));
+        store.close();
+
+        assertTrue(openStore(Duration.ofDays(1), 100).isApplied(createTrainingData("1", "Titel")));
+    }
+
+    @Test
+    void itemsOutsideOfWindowAreNotApplied() throws Exception {
+        FingerprintStore store = openStore(Duration.ofMillis(1), 100);
+        store.markApplied(createTrainingData("1", "Titel"));
+        Thread.sleep(20);
+
+        assertFalse(store.isApplied(createTrainingData("1", "Titel")));
+    }
+
+    @Test
+    void storeKeepsItsSizeWhenMoreItemsThanEntriesAreApplied() throws Exception {
+        FingerprintStore store = openStore(Duration.ofDays(1), 16);
+        long size = Files.size(directory.resolve("fingerprints.bin"));
+        for (int i = 0; i < 10_000; i++) {
+            store.markApplied(createTrainingData(String.valueOf(i), "Titel"));
+        }
+
+        assertEquals(size, Files.size(directory.resolve("fingerprints.bin")));
+        assertTrue(store.isApplied(createTrainingData("9999", "Titel")));
+    }
+
+    @Test
+    void disabledStoreNeverReportsAppliedItems() {
+        FingerprintStore store = new FingerprintStore(new IdempotencyProperties(false, Duration.ofDays(1), 100, directory));
+        store.markApplied(createTrainingData("1", "Titel"));
+
+        assertFalse(store.isApplied(createTrainingData("1", "Titel")));
+        assertTrue(Files.notExists(directory.resolve("fingerprints.bin")));
+    }
+}
@@ -0,0 +1,132 @@
+package de.muenchen.evasys.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
+import de.muenchen.evasys.configuration.JournalProperties;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class InboxJournalTest {
+
+    @TempDir
+    private Path directory;
+
+    private InboxJournal openJournal(DataSize compactionThreshold) {
+        return new InboxJournal(new JournalProperties(true, directory, compactionThreshold));
+    }
+
+    private ZLSOSTEVASYSRFC createTrainingData(String trainingId) {
+        ZLSOSTEVASYSRFC trainingData = new ZLSOSTEVASYSRFC();
+        trainingData.setTRAININGID(trainingId);
+        trainingData.setTRAINER1ID("1");
+        trainingData.setTRAININGTITEL("Titel " + trainingId);
+        trainingData.setSEKTRAINERID("2;3");
+        return trainingData;
+    }
+
+    @Test
+    void unfinishedItemsAreRecoveredAfterRestart() {
+        ZLSOSTEVASYSRFC first = createTrainingData("1");
+        ZLSOSTEVASYSRFC second = createTrainingData("2");
+        InboxJournal journal = openJournal(DataSize.ofMegabytes(1));
+        journal.record(List.of(first, second));
+        journal.complete(first);
+        journal.close();
+
+        List<ZLSOSTEVASYSRFC> recovered = openJournal(DataSize.ofMegabytes(1)).recover();
+
+        assertEquals(1, recovered.size());
+        assertEquals("2", recovered.getFirst().getTRAININGID());
+        assertEquals("1", recovered.getFirst().getTRAINER1ID());
+        assertEquals("Titel 2", recovered.getFirst().getTRAININGTITEL());
+        assertEquals("2;3", recovered.getFirst().getSEKTRAINERID());
+    }
+
+    @Test
+    void recoveredItemsCanBeCompleted() {
+        InboxJournal journal = openJournal(DataSize.ofMegabytes(1));
+        journal.record(List.of(createTrainingData("1")));
+        journal.close();
+
+        InboxJournal reopened = openJournal(DataSize.ofMegabytes(1));
+        reopened.complete(reopened.recover().getFirst());
+        reopened.close();
+
+        assertTrue(openJournal(DataSize.ofMegabytes(1)).recover().isEmpty());
+    }
+
+    @Test
+    void tornLastRecordIsSkipped() throws Exception {
+        InboxJournal journal = openJournal(DataSize.ofMegabytes(1));
+        journal.record(List.of(createTrainingData("1")));
+        journal.close();
+        Files.writeString(directory.resolve("inbox.journal"), "{\"sequence\":2,\"item\":{\"tra", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+
+        List<ZLSOSTEVASYSRFC> recovered = openJournal(DataSize.ofMegabytes(1)).recover();
+
+        assertEquals(1, recovered.size());
+        assertEquals("1", recovered.getFirst().getTRAININGID());
+    }
+
+    @Test
+    void recordAfterTornLastRecordIsRecovered() throws Exception {
+        InboxJournal journal = openJournal(DataSize.ofMegabytes(1));
+        journal.record(List.of(createTrainingData("1")));
+        journal.close();
+        Files.writeString(directory.resolve("inbox.journal"), "{\"sequence\":2,\"item\":{\"tra", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+
+        InboxJournal reopened = openJournal(DataSize.ofMegabytes(1));
+        reopened.record(List.of(createTrainingData("3")));
+        reopened.close();
+
+        List<ZLSOSTEVASYSRFC> recovered = openJournal(DataSize.ofMegabytes(1)).recover();
+
+        assertEquals(List.of("1", "3"), recovered.stream().map(ZLSOSTEVASYSRFC::getTRAININGID).toList());
+    }
+
+    @Test
+    void journalIsCompactedOnceAllItemsAreCompleted() throws Exception {
+        ZLSOSTEVASYSRFC trainingData = createTrainingData("1");
+        InboxJournal journal = openJournal(DataSize.ofBytes(1));
+        journal.record(List.of(trainingData));
+        journal.complete(trainingData);
+        journal.close();
+
+        assertEquals(0, Files.size(directory.resolve("inbox.journal")));
+    }
+
+    @Test
+    void journalIsCompactedWhileItemsArePending() throws Exception {
+        ZLSOSTEVASYSRFC pendingItem = createTrainingData("1");
+        InboxJournal journal = openJournal(DataSize.ofKilobytes(1));
+        journal.record(List.of(pendingItem));
+        for (int i = 2; i < 100; i++) {
+            ZLSOSTEVASYSRFC trainingData = createTrainingData(String.valueOf(i));
+            journal.record(List.of(trainingData));
+            journal.complete(trainingData);
+        }
+        journal.close();
+
+        assertTrue(Files.size(directory.resolve("inbox.journal")) < DataSize.ofKilobytes(2).toBytes());
+        List<ZLSOSTEVASYSRFC> recovered = openJournal(DataSize.ofKilobytes(1)).recover();
+        assertEquals(List.of("1"), recovered.stream().map(ZLSOSTEVASYSRFC::getTRAININGID).toList());
+    }
+
+    @Test
+    void disabledJournalDoesNotWriteAnything() {
+        InboxJournal journal = new InboxJournal(new JournalProperties(false, directory, DataSize.ofMegabytes(1)));
+        journal.record(List.of(createTrainingData("1")));
+
+        assertTrue(Files.notExists(directory.resolve("inbox.journal")));
+    }
+}
@@ -1,12 +1,18 @@
 package de.muenchen.evasys.service;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
 import de.muenchen.evasys.configuration.NotificationProperties;
+import de.muenchen.evasys.exception.EvasysException;
 import jakarta.mail.Session;
 import jakarta.mail.internet.MimeMessage;
+import java.net.SocketTimeoutException;
 import java.util.List;
 import java.util.Properties;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,6 +24,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.env.Environment;
 import org.springframework.mail.javamail.JavaMailSender;
+import wsdl.soapserver_v100.SoapfaultMessage;
+import wsdl.soapserver_v100.TSoapfault;
 
 @ExtendWith(MockitoExtension.class)
 class MailNotificationServiceTest {
@@ -80,4 +88,81 @@ class MailNotificationServiceTest {
         assertTrue(content.contains("keine Request-Daten verfügbar"));
         assertTrue(content.contains("keine Stacktrace verfügbar"));
     }
+
+    private MailNotificationService createDigestService(final int queueCapacity, final int maxDetailsPerGroup) {
+        when(props.digestEnabled()).thenReturn(true);
+        when(props.queueCapacity()).thenReturn(queueCapacity);
+        when(props.maxDetailsPerGroup()).thenReturn(maxDetailsPerGroup);
+        // start() is not called, the tests send the digest themselves
+        return new MailNotificationService(mailSender, props, environment);
+    }
+
+    private static EvasysException soapError(final String errorCode) {
+        final TSoapfault faultInfo = new TSoapfault();
+        faultInfo.setSErrorMessage(errorCode);
+        return new EvasysException("SOAP error (code=" + errorCode + ")", new SoapfaultMessage("fault", faultInfo));
+    }
+
+    private static ZLSOSTEVASYSRFC training(final String trainingId) {
+        final ZLSOSTEVASYSRFC trainingData = new ZLSOSTEVASYSRFC();
+        trainingData.setTRAININGID(trainingId);
+        return trainingData;
+    }
+
+    @Test
+    void testDigestGroupsFailuresByStageAndErrorCode() throws Exception {
+        final MailNotificationService digestService = createDigestService(10, 10);
+
+        digestService.notifyError("Course processing failed", "not found", soapError("ERR_312"), training("1001"));
+        digestService.notifyError("Course processing failed", "not found", soapError("ERR_312"), training("1002"));
+        digestService.notifyError("Trainer processing failed", "timeout", new EvasysException("timeout", new SocketTimeoutException()),
+                training("1003"));
+        verify(mailSender, never()).send(any(MimeMessage.class));
+        digestService.sendDigest();
+
+        final String content = getSentMessageContent();
+        assertTrue(realMimeMessage.getSubject().endsWith("3 Fehler"));
+        assertTrue(content.contains("Course processing failed (ERR_312): 2"));
+        assertTrue(content.contains("Trainer processing failed (SocketTimeoutException): 1"));
+        assertTrue(content.contains("TRAININGID=1002"));
+    }
+
+    @Test
+    void testDigestLimitsDetailsPerGroup() throws Exception {
+        final MailNotificationService digestService = createDigestService(10, 1);
+
+        digestService.notifyError("Course processing failed", "not found", soapError("ERR_312"), training("1001"));
+        digestService.notifyError("Course processing failed", "not found", soapError("ERR_312"), training("1002"));
+        digestService.sendDigest();
+
+        final String content = getSentMessageContent();
+        assertTrue(content.contains("TRAININGID=1001"));
+        assertFalse(content.contains("TRAININGID=1002"));
+        assertTrue(content.contains("... und 1 weitere"));
+    }
+
+    @Test
+    void testDigestCountsFailuresDroppedOnOverload() throws Exception {
+        final MailNotificationService digestService = createDigestService(1, 10);
+
+        digestService.notifyError("Course processing failed", "not found", soapError("ERR_312"), training("1001"));
+        digestService.notifyError("Course processing failed", "not found", soapError("ERR_312"), training("1002"));
+        digestService.notifyError("Course processing failed", "not found", soapError("ERR_312"), training("1003"));
+        digestService.sendDigest();
+
+        final String content = getSentMessageContent();
+        assertTrue(realMimeMessage.getSubject().endsWith("3 Fehler"));
+        assertTrue(content.contains("Course processing failed (ERR_312): 1"));
+        assertTrue(content.contains("2 weitere Fehler wegen Überlast nicht erfasst"));
+    }
+
+    @Test
+    void testShutdownSendsPendingDigest() throws Exception {
+        final MailNotificationService digestService = createDigestService(10, 10);
+        digestService.notifyError("Normalization failed", "invalid", null, training("1001"));
+
+        digestService.shutdown();
+
+        assertTrue(getSentMessageContent().contains("Normalization failed (none): 1"));
+    }
 }
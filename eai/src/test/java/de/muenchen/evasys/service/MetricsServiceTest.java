@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.Locale;
 import org.junit.jupiter.api.BeforeEach;
@@ -67,4 +68,41 @@ class MetricsServiceTest {
         assertThat(courseCounter).isNotNull();
         assertThat(courseCounter.count()).isEqualTo(1.0);
     }
+
+    @Test
+    void countersAreRegisteredBeforeFirstEvent() {
+        assertThat(meterRegistry.find("evasys.events").counters())
+                .hasSize(MetricsService.EventType.values().length)
+                .allSatisfy(counter -> assertThat(counter.count()).isZero());
+    }
+
+    @Test
+    void requestFinishedRecordsItemsAndTracksRequestsInFlight() {
+        metricsService.requestStarted();
+
+        assertThat(inFlight("request")).isEqualTo(1.0);
+
+        metricsService.requestFinished(25);
+
+        assertThat(meterRegistry.find("evasys.request.items").summary().totalAmount()).isEqualTo(25.0);
+        assertThat(inFlight("request")).isZero();
+    }
+
+    @Test
+    void itemFinishedRecordsDurationAndTracksItemsInFlight() {
+        long startedAt = metricsService.itemStarted();
+
+        assertThat(inFlight("item")).isEqualTo(1.0);
+
+        metricsService.itemFinished(startedAt);
+
+        Timer timer = meterRegistry.find("evasys.item.duration").timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(inFlight("item")).isZero();
+    }
+
+    private double inFlight(String scope) {
+        return meterRegistry.find("evasys.processing.in.flight").tag("scope", scope).gauge().value();
+    }
 }
@@ -0,0 +1,249 @@
+package de.muenchen.evasys.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.sap.document.sap.rfc.functions.ZLSOEVASYSRFC;
+import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
+import de.muenchen.evasys.configuration.IntakeProperties;
+import de.muenchen.evasys.exception.EvasysException;
+import de.muenchen.evasys.exception.IntakeRejectedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class TrainingIntakeServiceTest {
+
+    @Mock
+    private TrainingProcessorService trainingProcessorService;
+
+    @Mock
+    private InboxJournal inboxJournal;
+
+    private MeterRegistry meterRegistry;
+    private TrainingIntakeService trainingIntakeService;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (trainingIntakeService != null) {
+            trainingIntakeService.shutdown();
+        }
+    }
+
+    private TrainingIntakeService createService(IntakeProperties.Mode mode, int queueCapacity) {
+        return new TrainingIntakeService(
+                trainingProcessorService,
+                inboxJournal,
+                new IntakeProperties(mode, queueCapacity, 1, Duration.ofSeconds(5), false, 100),
+                meterRegistry);
+    }
+
+    private TrainingIntakeService createStreamingService(int chunkSize) {
+        return new TrainingIntakeService(
+                trainingProcessorService,
+                inboxJournal,
+                new IntakeProperties(IntakeProperties.Mode.SYNCHRONOUS, 1, 1, Duration.ofSeconds(5), true, chunkSize),
+                meterRegistry);
+    }
+
+    private ZLSOSTEVASYSRFC createTrainingData(String trainingId) {
+        ZLSOSTEVASYSRFC trainingData = new ZLSOSTEVASYSRFC();
+        trainingData.setTRAININGID(trainingId);
+        return trainingData;
+    }
+
+    private ZLSOEVASYSRFC createRequest() {
+        ZLSOEVASYSRFC trainingRequest = new ZLSOEVASYSRFC();
+        trainingRequest.setITEVASYSRFC(new ZLSOEVASYSRFC.ITEVASYSRFC());
+        return trainingRequest;
+    }
+
+    @Test
+    void synchronousModeProcessesRequestDirectly() {
+        trainingIntakeService = createService(IntakeProperties.Mode.SYNCHRONOUS, 1);
+        ZLSOEVASYSRFC trainingRequest = createRequest();
+
+        trainingIntakeService.submit(trainingRequest);
+
+        verify(inboxJournal).record(trainingRequest.getITEVASYSRFC().getItem());
+        verify(trainingProcessorService).processTrainingRequest(trainingRequest);
+    }
+
+    @Test
+    void requestWithoutItemTableIsRejected() {
+        trainingIntakeService = createService(IntakeProperties.Mode.ASYNCHRONOUS, 1);
+
+        assertThrows(EvasysException.class, () -> trainingIntakeService.submit(new ZLSOEVASYSRFC()));
+
+        verify(trainingProcessorService, never()).processTrainingRequest(any());
+    }
+
+    @Test
+    void asynchronousModeProcessesQueuedRequestInBackground() {
+        trainingIntakeService = createService(IntakeProperties.Mode.ASYNCHRONOUS, 1);
+        ZLSOEVASYSRFC trainingRequest = createRequest();
+
+        trainingIntakeService.submit(trainingRequest);
+
+        verify(trainingProcessorService, timeout(5000)).processTrainingRequest(trainingRequest);
+        assertEquals(1, meterRegistry.find("evasys.intake.queue.wait").timer().count());
+    }
+
+    @Test
+    void unfinishedJournalItemsAreReplayedOnStartup() {
+        ZLSOSTEVASYSRFC trainingData = new ZLSOSTEVASYSRFC();
+        when(inboxJournal.recover()).thenReturn(List.of(trainingData));
+        trainingIntakeService = createService(IntakeProperties.Mode.SYNCHRONOUS, 1);
+
+        trainingIntakeService.replayJournal();
+
+        ArgumentCaptor<ZLSOEVASYSRFC> captor = ArgumentCaptor.forClass(ZLSOEVASYSRFC.class);
+        verify(trainingProcessorService).processTrainingRequest(captor.capture());
+        assertEquals(List.of(trainingData), captor.getValue().getITEVASYSRFC().getItem());
+    }
+
+    @Test
+    void asynchronousModeReplaysUnfinishedJournalItemsThroughIntakeQueue() throws Exception {
+        ZLSOSTEVASYSRFC trainingData = createTrainingData("1");
+        when(inboxJournal.recover()).thenReturn(List.of(trainingData));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            active.decrementAndGet();
+            return null;
+        }).when(trainingProcessorService).processTrainingRequest(any());
+        trainingIntakeService = createService(IntakeProperties.Mode.ASYNCHRONOUS, 1);
+        ZLSOEVASYSRFC trainingRequest = createRequest();
+        trainingIntakeService.submit(trainingRequest);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        trainingIntakeService.replayJournal();
+
+        assertEquals(1.0, meterRegistry.find("evasys.intake.queue.depth").gauge().value());
+        release.countDown();
+        ArgumentCaptor<ZLSOEVASYSRFC> captor = ArgumentCaptor.forClass(ZLSOEVASYSRFC.class);
+        verify(trainingProcessorService, timeout(5000).times(2)).processTrainingRequest(captor.capture());
+        assertEquals(List.of(trainingData), captor.getAllValues().get(1).getITEVASYSRFC().getItem());
+        assertEquals(1, maxActive.get());
+        assertEquals(2, meterRegistry.find("evasys.intake.queue.wait").timer().count());
+    }
+
+    @Test
+    void asynchronousModeRejectsRequestWhenQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(trainingProcessorService).processTrainingRequest(any());
+        trainingIntakeService = createService(IntakeProperties.Mode.ASYNCHRONOUS, 1);
+
+        trainingIntakeService.submit(createRequest());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        trainingIntakeService.submit(createRequest());
+
+        assertEquals(1.0, meterRegistry.find("evasys.intake.queue.depth").gauge().value());
+        ZLSOEVASYSRFC rejectedRequest = createRequest();
+        assertThrows(IntakeRejectedException.class, () -> trainingIntakeService.submit(rejectedRequest));
+        assertEquals(1.0, meterRegistry.find("evasys.intake.rejected").counter().count());
+        verify(inboxJournal).completeAll(rejectedRequest.getITEVASYSRFC().getItem());
+
+        release.countDown();
+    }
+
+    @Test
+    void streamedRequestIsJournaledAndProcessedInChunks() {
+        trainingIntakeService = createStreamingService(2);
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("2");
+        ZLSOSTEVASYSRFC trainingData3 = createTrainingData("3");
+
+        try (TrainingIntakeService.StreamedRequest request = trainingIntakeService.openStream()) {
+            request.accept(trainingData1);
+            verify(trainingProcessorService, never()).processTrainingItems(any());
+            request.accept(trainingData2);
+            request.accept(trainingData3);
+        }
+
+        InOrder inOrder = inOrder(trainingProcessorService, inboxJournal);
+        inOrder.verify(trainingProcessorService).streamStarted();
+        inOrder.verify(inboxJournal).record(List.of(trainingData1, trainingData2));
+        inOrder.verify(trainingProcessorService).processTrainingItems(List.of(trainingData1, trainingData2));
+        inOrder.verify(inboxJournal).record(List.of(trainingData3));
+        inOrder.verify(trainingProcessorService).processTrainingItems(List.of(trainingData3));
+        inOrder.verify(trainingProcessorService).streamFinished(3);
+    }
+
+    @Test
+    void failedChunkDoesNotStopStreamedRequest() {
+        trainingIntakeService = createStreamingService(1);
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("2");
+        doThrow(new EvasysException("evasys unavailable"))
+                .when(trainingProcessorService).processTrainingItems(List.of(trainingData1));
+
+        TrainingIntakeService.StreamedRequest request = trainingIntakeService.openStream();
+        request.accept(trainingData1);
+        request.accept(trainingData2);
+        request.close();
+        request.close();
+
+        verify(trainingProcessorService).processTrainingItems(List.of(trainingData2));
+        verify(trainingProcessorService).streamFinished(2);
+    }
+
+    @Test
+    void streamedModeIgnoresUnmarshalledRequest() {
+        trainingIntakeService = createStreamingService(100);
+
+        trainingIntakeService.submit(createRequest());
+
+        verify(trainingProcessorService, never()).processTrainingRequest(any());
+        verify(inboxJournal, never()).record(any());
+    }
+
+    @Test
+    void streamingIsOnlyAvailableInSynchronousMode() {
+        trainingIntakeService = new TrainingIntakeService(
+                trainingProcessorService,
+                inboxJournal,
+                new IntakeProperties(IntakeProperties.Mode.ASYNCHRONOUS, 1, 1, Duration.ofSeconds(5), true, 100),
+                meterRegistry);
+
+        assertFalse(trainingIntakeService.isStreaming());
+    }
+}
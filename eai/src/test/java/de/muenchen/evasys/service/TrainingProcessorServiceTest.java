@@ -2,11 +2,15 @@ package de.muenchen.evasys.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -15,17 +19,34 @@ import static org.mockito.Mockito.when;
 import com.sap.document.sap.rfc.functions.ZLSOEVASYSRFC;
 import com.sap.document.sap.rfc.functions.ZLSOEVASYSRFC.ITEVASYSRFC;
 import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
+import de.muenchen.evasys.client.CourseLookup;
+import de.muenchen.evasys.configuration.ProcessingProperties;
+import de.muenchen.evasys.exception.CourseAlreadyExistsException;
 import de.muenchen.evasys.exception.EvasysException;
 import de.muenchen.evasys.model.SecondaryTrainer;
 import de.muenchen.evasys.service.MetricsService.EventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.NullAndEmptySource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -44,11 +65,49 @@ public class TrainingProcessorServiceTest {
     @Mock
     private MetricsService metricsService;
 
+    @Mock
+    private InboxJournal inboxJournal;
+
+    @Mock
+    private FingerprintStore fingerprintStore;
+
     private TrainingProcessorService trainingProcessorService;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final List<ProcessingPipeline> pipelines = new ArrayList<>();
+
     @BeforeEach
     public void setup() {
-        trainingProcessorService = new TrainingProcessorService(evasysMockService, mailNotificationService, normalizationService, metricsService);
+        trainingProcessorService = createService(ProcessingProperties.Mode.SEQUENTIAL);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pipelines.forEach(ProcessingPipeline::shutdown);
+    }
+
+    private TrainingProcessorService createService(ProcessingProperties.Mode mode) {
+        return createService(mode, 1);
+    }
+
+    private TrainingProcessorService createService(ProcessingProperties.Mode mode, int courseBatchSize) {
+        return createService(mode, courseBatchSize, false);
+    }
+
+    private TrainingProcessorService createService(ProcessingProperties.Mode mode, int courseBatchSize, boolean courseIndex) {
+        return createService(new ProcessingProperties(mode, 4, courseBatchSize, courseIndex, 1, false, 100, 1, 4, 4));
+    }
+
+    private TrainingProcessorService createCoalescingService(ProcessingProperties.Mode mode) {
+        return createService(new ProcessingProperties(mode, 4, 1, false, 1, true, 100, 1, 4, 4));
+    }
+
+    private TrainingProcessorService createService(ProcessingProperties processingProperties) {
+        ProcessingPipeline pipeline = new ProcessingPipeline(processingProperties, meterRegistry);
+        pipelines.add(pipeline);
+        return new TrainingProcessorService(evasysMockService, mailNotificationService, normalizationService, metricsService,
+                processingProperties, inboxJournal, fingerprintStore, pipeline);
     }
 
     private ZLSOSTEVASYSRFC createTrainingData(String trainerId, String subunitId, String courseId) {
@@ -168,12 +227,59 @@ public class TrainingProcessorServiceTest {
         ZLSOSTEVASYSRFC trainingData = createTrainingData("1", "1", "1");
         ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData);
 
-        when(evasysMockService.courseExists(anyInt())).thenReturn(true);
+        when(evasysMockService.courseExists(anyInt(), any())).thenReturn(true);
+
+        trainingProcessorService.processTrainingRequest(trainingRequest);
+
+        verify(evasysMockService, times(1)).updateCourse(eq(trainingData), any());
+        verify(evasysMockService, never()).insertCourse(eq(trainingData), any());
+    }
+
+    @Test
+    public void testThatCourseReadsOfOneRequestShareCourseLookup() {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("2", "1", "2");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2);
+
+        when(evasysMockService.courseExists(anyInt(), any())).thenReturn(true);
 
         trainingProcessorService.processTrainingRequest(trainingRequest);
 
-        verify(evasysMockService, times(1)).updateCourse(trainingData);
-        verify(evasysMockService, never()).insertCourse(trainingData);
+        ArgumentCaptor<CourseLookup> existenceChecks = ArgumentCaptor.forClass(CourseLookup.class);
+        ArgumentCaptor<CourseLookup> updates = ArgumentCaptor.forClass(CourseLookup.class);
+        verify(evasysMockService, times(2)).courseExists(anyInt(), existenceChecks.capture());
+        verify(evasysMockService, times(2)).updateCourse(any(), updates.capture());
+        CourseLookup courses = updates.getValue();
+        assertEquals(List.of(courses, courses), existenceChecks.getAllValues());
+        assertEquals(List.of(courses, courses), updates.getAllValues());
+    }
+
+    @Test
+    public void testThatCourseIndexIsBuiltBeforeItemsAreProcessed() {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("2", "1", "2");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2);
+
+        createService(ProcessingProperties.Mode.SEQUENTIAL, 1, true).processTrainingRequest(trainingRequest);
+
+        ArgumentCaptor<CourseLookup> index = ArgumentCaptor.forClass(CourseLookup.class);
+        InOrder inOrder = inOrder(evasysMockService);
+        inOrder.verify(evasysMockService).indexCourses(eq(List.of(trainingData1, trainingData2)), index.capture(), eq(1));
+        inOrder.verify(evasysMockService).courseExists(1, index.getValue());
+        inOrder.verify(evasysMockService).courseExists(2, index.getValue());
+    }
+
+    @Test
+    public void testThatFailedCourseIndexFallsBackToSingleChecks() {
+        ZLSOSTEVASYSRFC trainingData = createTrainingData("1", "1", "1");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData);
+
+        doThrow(new EvasysException("evasys unavailable")).when(evasysMockService).indexCourses(any(), any(), anyInt());
+
+        createService(ProcessingProperties.Mode.SEQUENTIAL, 1, true).processTrainingRequest(trainingRequest);
+
+        verify(evasysMockService).courseExists(eq(1), any());
+        verify(evasysMockService).insertCourse(eq(trainingData), any());
     }
 
     @Test
@@ -181,12 +287,12 @@ public class TrainingProcessorServiceTest {
         ZLSOSTEVASYSRFC trainingData = createTrainingData("1", "1", "1");
         ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData);
 
-        when(evasysMockService.courseExists(anyInt())).thenReturn(false);
+        when(evasysMockService.courseExists(anyInt(), any())).thenReturn(false);
 
         trainingProcessorService.processTrainingRequest(trainingRequest);
 
-        verify(evasysMockService, never()).updateCourse(trainingData);
-        verify(evasysMockService, times(1)).insertCourse(trainingData);
+        verify(evasysMockService, never()).updateCourse(eq(trainingData), any());
+        verify(evasysMockService, times(1)).insertCourse(eq(trainingData), any());
     }
 
     @Test
@@ -196,14 +302,16 @@ public class TrainingProcessorServiceTest {
         ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2);
 
         when(evasysMockService.trainerExists(anyString(), anyInt())).thenReturn(false);
-        when(evasysMockService.courseExists(anyInt())).thenReturn(false);
+        when(evasysMockService.courseExists(anyInt(), any())).thenReturn(false);
 
         trainingProcessorService.processTrainingRequest(trainingRequest);
 
         verify(evasysMockService, never()).updateTrainer(any());
         verify(evasysMockService, times(2)).insertTrainer(any());
-        verify(evasysMockService, never()).updateCourse(any());
-        verify(evasysMockService, times(2)).insertCourse(any());
+        verify(evasysMockService, never()).updateCourse(any(), any());
+        verify(evasysMockService, times(2)).insertCourse(any(), any());
+        verify(inboxJournal).complete(trainingData1);
+        verify(inboxJournal).complete(trainingData2);
     }
 
     @Test
@@ -228,7 +336,7 @@ public class TrainingProcessorServiceTest {
         ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData);
 
         when(evasysMockService.trainerExists(anyString(), anyInt())).thenReturn(true);
-        when(evasysMockService.courseExists(anyInt())).thenThrow(new EvasysException("Course error"));
+        when(evasysMockService.courseExists(anyInt(), any())).thenThrow(new EvasysException("Course error"));
 
         trainingProcessorService.processTrainingRequest(trainingRequest);
 
@@ -245,13 +353,13 @@ public class TrainingProcessorServiceTest {
         ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData);
 
         when(evasysMockService.trainerExists(anyString(), anyInt())).thenReturn(true);
-        when(evasysMockService.courseExists(1)).thenReturn(false).thenReturn(true);
-        doThrow(new EvasysException("Course already exists")).when(evasysMockService).insertCourse(trainingData);
+        when(evasysMockService.courseExists(eq(1), any())).thenReturn(false).thenReturn(true);
+        doThrow(new EvasysException("Course already exists")).when(evasysMockService).insertCourse(eq(trainingData), any());
 
         trainingProcessorService.processTrainingRequest(trainingRequest);
 
-        verify(evasysMockService, times(1)).insertCourse(trainingData);
-        verify(evasysMockService, times(1)).updateCourse(trainingData);
+        verify(evasysMockService, times(1)).insertCourse(eq(trainingData), any());
+        verify(evasysMockService, times(1)).updateCourse(eq(trainingData), any());
         verify(mailNotificationService, never()).notifyError(anyString(), anyString(), any(), any());
     }
 
@@ -261,13 +369,13 @@ public class TrainingProcessorServiceTest {
         ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData);
 
         when(evasysMockService.trainerExists(anyString(), anyInt())).thenReturn(true);
-        when(evasysMockService.courseExists(1)).thenReturn(false);
-        doThrow(new EvasysException("Insert failed")).when(evasysMockService).insertCourse(trainingData);
+        when(evasysMockService.courseExists(eq(1), any())).thenReturn(false);
+        doThrow(new EvasysException("Insert failed")).when(evasysMockService).insertCourse(eq(trainingData), any());
 
         trainingProcessorService.processTrainingRequest(trainingRequest);
 
-        verify(evasysMockService, times(1)).insertCourse(trainingData);
-        verify(evasysMockService, never()).updateCourse(trainingData);
+        verify(evasysMockService, times(1)).insertCourse(eq(trainingData), any());
+        verify(evasysMockService, never()).updateCourse(eq(trainingData), any());
         verify(mailNotificationService, times(1)).notifyError(
                 eq("Course processing failed"),
                 eq("Insert failed"),
@@ -281,7 +389,7 @@ public class TrainingProcessorServiceTest {
         ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData);
 
         when(evasysMockService.trainerExists("1", 1)).thenReturn(false).thenReturn(true);
-        when(evasysMockService.courseExists(anyInt())).thenReturn(true);
+        when(evasysMockService.courseExists(anyInt(), any())).thenReturn(true);
         doThrow(new EvasysException("Trainer already exists")).when(evasysMockService).insertTrainer(trainingData);
 
         trainingProcessorService.processTrainingRequest(trainingRequest);
@@ -328,7 +436,7 @@ public class TrainingProcessorServiceTest {
         when(evasysMockService.trainerExists("2", 1)).thenReturn(false).thenReturn(true);
         when(evasysMockService.extractSecondaryTrainers(trainingData))
                 .thenReturn(List.of(secondaryTrainer));
-        when(evasysMockService.courseExists(anyInt())).thenReturn(true);
+        when(evasysMockService.courseExists(anyInt(), any())).thenReturn(true);
         doThrow(new EvasysException("Trainer already exists"))
                 .when(evasysMockService).insertSecondaryTrainer(trainingData, secondaryTrainer);
 
@@ -378,7 +486,7 @@ public class TrainingProcessorServiceTest {
         ZLSOSTEVASYSRFC trainingData = createTrainingData("1", invalidTeilbereichId, "1");
         ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData);
 
-        when(evasysMockService.courseExists(1)).thenReturn(false);
+        when(evasysMockService.courseExists(eq(1), any())).thenReturn(false);
 
         trainingProcessorService.processTrainingRequest(trainingRequest);
 
@@ -397,7 +505,7 @@ public class TrainingProcessorServiceTest {
         verify(evasysMockService, never()).extractSecondaryTrainers(any());
         verify(metricsService).recordEvent(EventType.TRAINER_PROCESSING_FAILED);
 
-        verify(evasysMockService).insertCourse(trainingData);
+        verify(evasysMockService).insertCourse(eq(trainingData), any());
         verify(mailNotificationService, never()).notifyError(
                 eq("Course processing failed"),
                 anyString(),
@@ -426,9 +534,9 @@ public class TrainingProcessorServiceTest {
         assertInstanceOf(NumberFormatException.class, exceptionCaptor.getValue().getCause());
         assertEquals("Invalid TRAININGID: " + invalidTrainingId, exceptionCaptor.getValue().getMessage());
 
-        verify(evasysMockService, never()).courseExists(anyInt());
-        verify(evasysMockService, never()).insertCourse(any());
-        verify(evasysMockService, never()).updateCourse(any());
+        verify(evasysMockService, never()).courseExists(anyInt(), any());
+        verify(evasysMockService, never()).insertCourse(any(), any());
+        verify(evasysMockService, never()).updateCourse(any(), any());
         verify(metricsService).recordEvent(EventType.COURSE_PROCESSING_FAILED);
 
         verify(evasysMockService).insertTrainer(trainingData);
@@ -438,4 +546,522 @@ public class TrainingProcessorServiceTest {
                 any(),
                 any());
     }
+
+    @Test
+    public void testThatParallelModeProcessesAllItems() {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("2", "1", "2");
+        ZLSOSTEVASYSRFC trainingData3 = createTrainingData("3", "1", "3");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2, trainingData3);
+
+        when(evasysMockService.trainerExists(anyString(), anyInt())).thenReturn(false);
+        when(evasysMockService.courseExists(anyInt(), any())).thenReturn(false);
+
+        createService(ProcessingProperties.Mode.PARALLEL).processTrainingRequest(trainingRequest);
+
+        verify(evasysMockService, times(3)).insertTrainer(any());
+        verify(evasysMockService, times(3)).insertCourse(any(), any());
+        verify(metricsService, times(3)).recordEvent(EventType.TRAINING_PROCESSED);
+        verify(mailNotificationService, never()).notifyError(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    public void testThatParallelModeKeepsOrderOfItemsWithSameTrainingId() {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("2", "1", "1");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2);
+        List<ZLSOSTEVASYSRFC> processed = Collections.synchronizedList(new ArrayList<>());
+
+        when(evasysMockService.trainerExists(anyString(), anyInt())).thenReturn(true);
+        when(evasysMockService.courseExists(eq(1), any())).thenReturn(true);
+        doAnswer(invocation -> {
+            ZLSOSTEVASYSRFC trainingData = invocation.getArgument(0);
+            if (trainingData == trainingData1) {
+                Thread.sleep(100);
+            }
+            processed.add(trainingData);
+            return null;
+        }).when(evasysMockService).updateCourse(any(), any());
+
+        createService(ProcessingProperties.Mode.PARALLEL).processTrainingRequest(trainingRequest);
+
+        assertEquals(List.of(trainingData1, trainingData2), processed);
+    }
+
+    @Test
+    public void testThatParallelModeKeepsOrderOfItemsWithSameTrainerId() {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("1", "1", "2");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2);
+        List<ZLSOSTEVASYSRFC> processed = Collections.synchronizedList(new ArrayList<>());
+
+        when(evasysMockService.trainerExists("1", 1)).thenReturn(true);
+        doAnswer(invocation -> {
+            ZLSOSTEVASYSRFC trainingData = invocation.getArgument(0);
+            if (trainingData == trainingData1) {
+                Thread.sleep(100);
+            }
+            processed.add(trainingData);
+            return null;
+        }).when(evasysMockService).updateTrainer(any());
+
+        createService(ProcessingProperties.Mode.PARALLEL).processTrainingRequest(trainingRequest);
+
+        assertEquals(List.of(trainingData1, trainingData2), processed);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = ProcessingProperties.Mode.class, names = { "PARALLEL", "PIPELINE" })
+    public void testThatSharedSecondaryTrainerIsInsertedOnce(ProcessingProperties.Mode mode) {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        trainingData1.setSEKTRAINERID("9");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("2", "1", "2");
+        trainingData2.setSEKTRAINERID("9");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2);
+        SecondaryTrainer secondaryTrainer = new SecondaryTrainer("9", "", "", "", "", "");
+        Set<String> existingTrainers = ConcurrentHashMap.newKeySet();
+
+        when(evasysMockService.trainerExists(anyString(), anyInt()))
+                .thenAnswer(invocation -> existingTrainers.contains(invocation.<String>getArgument(0)));
+        when(evasysMockService.extractSecondaryTrainers(any())).thenReturn(List.of(secondaryTrainer));
+        doAnswer(invocation -> {
+            // the new user only shows up in existence checks once the insert has returned
+            Thread.sleep(100);
+            existingTrainers.add(invocation.<SecondaryTrainer>getArgument(1).id());
+            return null;
+        }).when(evasysMockService).insertSecondaryTrainer(any(), any());
+
+        createService(mode).processTrainingRequest(trainingRequest);
+
+        verify(evasysMockService, times(1)).insertSecondaryTrainer(any(), eq(secondaryTrainer));
+        verify(evasysMockService, times(1)).updateSecondaryTrainer(secondaryTrainer);
+        verify(metricsService, times(2)).recordEvent(EventType.TRAINING_PROCESSED);
+    }
+
+    @Test
+    public void testThatPipelineModeProcessesAllItems() {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("2", "1", "2");
+        ZLSOSTEVASYSRFC skipped = createTrainingData("3", "1", "3");
+        ZLSOSTEVASYSRFC trainingData4 = createTrainingData("4", "1", "4");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2, skipped, trainingData4);
+
+        when(fingerprintStore.isApplied(any())).thenAnswer(invocation -> invocation.getArgument(0) == skipped);
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0) == trainingData2) {
+                throw new EvasysException("Trainer error");
+            }
+            return null;
+        }).when(evasysMockService).insertTrainer(any());
+
+        createService(ProcessingProperties.Mode.PIPELINE).processTrainingRequest(trainingRequest);
+
+        verify(evasysMockService, times(3)).insertTrainer(any());
+        verify(evasysMockService, times(3)).insertCourse(any(), any());
+        verify(metricsService, times(2)).recordEvent(EventType.TRAINING_PROCESSED);
+        verify(mailNotificationService).notifyError(
+                eq("Trainer processing failed"), eq("Trainer error"), any(EvasysException.class), eq(trainingData2));
+        for (ZLSOSTEVASYSRFC trainingData : List.of(trainingData1, trainingData2, skipped, trainingData4)) {
+            verify(inboxJournal).complete(trainingData);
+        }
+        verify(metricsService, times(4)).itemFinished(anyLong());
+    }
+
+    @Test
+    public void testThatPipelineStagesWorkIndependently() throws Exception {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("2", "1", "2");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2);
+        CountDownLatch secondTrainerWritten = new CountDownLatch(1);
+
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0) == trainingData2) {
+                secondTrainerWritten.countDown();
+            }
+            return null;
+        }).when(evasysMockService).insertTrainer(any());
+        doAnswer(invocation -> {
+            // the course of the first item waits for the trainer of the second one
+            if (invocation.getArgument(0) == trainingData1 && !secondTrainerWritten.await(5, TimeUnit.SECONDS)) {
+                throw new EvasysException("Trainer stage blocked by course stage");
+            }
+            return null;
+        }).when(evasysMockService).insertCourse(any(), any());
+
+        createService(new ProcessingProperties(ProcessingProperties.Mode.PIPELINE, 4, 1, false, 1, false, 10, 1, 1, 1))
+                .processTrainingRequest(trainingRequest);
+
+        verify(metricsService, times(2)).recordEvent(EventType.TRAINING_PROCESSED);
+        verify(mailNotificationService, never()).notifyError(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    public void testThatPipelineKeepsOrderOfItemsWithSameTrainingId() {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("2", "1", "1");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2);
+        List<ZLSOSTEVASYSRFC> processed = Collections.synchronizedList(new ArrayList<>());
+
+        doAnswer(invocation -> {
+            // the first item's trainer takes longer, its course has to be written first anyway
+            if (invocation.getArgument(0) == trainingData1) {
+                Thread.sleep(100);
+            }
+            return null;
+        }).when(evasysMockService).insertTrainer(any());
+        doAnswer(invocation -> {
+            processed.add(invocation.getArgument(0));
+            return null;
+        }).when(evasysMockService).insertCourse(any(), any());
+
+        createService(ProcessingProperties.Mode.PIPELINE).processTrainingRequest(trainingRequest);
+
+        assertEquals(List.of(trainingData1, trainingData2), processed);
+    }
+
+    @Test
+    public void testThatPipelineStagesAreMeasured() {
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(
+                createTrainingData("1", "1", "1"), createTrainingData("2", "1", "2"));
+
+        createService(ProcessingProperties.Mode.PIPELINE).processTrainingRequest(trainingRequest);
+        // a stage's duration is recorded after the item has left it, the shutdown waits for that
+        pipelines.forEach(ProcessingPipeline::shutdown);
+
+        for (String stage : List.of("normalization", "trainers", "courses")) {
+            assertEquals(2, meterRegistry.get("evasys.pipeline.stage.duration").tag("stage", stage).timer().count());
+            assertEquals(2, meterRegistry.get("evasys.pipeline.queue.wait").tag("stage", stage).timer().count());
+            assertEquals(0, meterRegistry.get("evasys.pipeline.queue.depth").tag("stage", stage).gauge().value());
+        }
+    }
+
+    @Test
+    public void testThatNewCoursesAreInsertedInBatches() {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("2", "1", "2");
+        ZLSOSTEVASYSRFC trainingData3 = createTrainingData("3", "1", "3");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2, trainingData3);
+
+        when(evasysMockService.insertCourses(any(), any())).thenReturn(Map.of());
+
+        createService(ProcessingProperties.Mode.SEQUENTIAL, 2).processTrainingRequest(trainingRequest);
+
+        verify(evasysMockService).insertCourses(eq(List.of(trainingData1, trainingData2)), any());
+        verify(evasysMockService).insertCourses(eq(List.of(trainingData3)), any());
+        verify(evasysMockService, never()).insertCourse(any(), any());
+        verify(metricsService, times(3)).recordEvent(EventType.COURSE_PROCESSED);
+        verify(metricsService, times(3)).recordEvent(EventType.TRAINING_PROCESSED);
+        verify(inboxJournal).complete(trainingData3);
+    }
+
+    @Test
+    public void testThatBatchedCoursesAreInsertedWhenLaterItemFailsUnexpectedly() {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("2", "1", "2");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2);
+
+        when(evasysMockService.courseExists(anyInt(), any())).thenAnswer(invocation -> {
+            if (invocation.<Integer>getArgument(0) == 2) {
+                throw new IllegalArgumentException("Unexpected course data");
+            }
+            return false;
+        });
+        when(evasysMockService.insertCourses(any(), any())).thenReturn(Map.of());
+        TrainingProcessorService service = createService(ProcessingProperties.Mode.SEQUENTIAL, 10);
+
+        assertThrows(IllegalArgumentException.class, () -> service.processTrainingRequest(trainingRequest));
+
+        verify(evasysMockService).insertCourses(eq(List.of(trainingData1)), any());
+        verify(inboxJournal).complete(trainingData1);
+        verify(inboxJournal).complete(trainingData2);
+        verify(metricsService, times(2)).itemFinished(anyLong());
+    }
+
+    @Test
+    public void testThatRequestAndItemMetricsAreRecorded() {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("2", "1", "2");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2);
+
+        when(metricsService.itemStarted()).thenReturn(11L, 22L);
+        when(evasysMockService.insertCourses(any(), any())).thenReturn(Map.of());
+
+        createService(ProcessingProperties.Mode.SEQUENTIAL, 2).processTrainingRequest(trainingRequest);
+
+        // batched items are finished when their batch has been inserted
+        InOrder inOrder = inOrder(metricsService, evasysMockService);
+        inOrder.verify(metricsService).requestStarted();
+        inOrder.verify(evasysMockService).insertCourses(eq(List.of(trainingData1, trainingData2)), any());
+        inOrder.verify(metricsService).itemFinished(11L);
+        inOrder.verify(metricsService).itemFinished(22L);
+        inOrder.verify(metricsService).requestFinished(2);
+    }
+
+    @Test
+    public void testThatBatchedCourseMissedByIndexIsUpdated() {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("2", "1", "2");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2);
+
+        when(evasysMockService.courseExists(eq(1), any())).thenReturn(false);
+        when(evasysMockService.courseExists(eq(2), any())).thenReturn(false, true);
+        when(evasysMockService.insertCourses(any(), any()))
+                .thenReturn(Map.of("2", new CourseAlreadyExistsException("Course 2 exists outside the indexed subunit")));
+        when(evasysMockService.updateCourse(eq(trainingData2), any())).thenReturn(true);
+
+        createService(ProcessingProperties.Mode.SEQUENTIAL, 2, true).processTrainingRequest(trainingRequest);
+
+        verify(evasysMockService).updateCourse(eq(trainingData2), any());
+        verify(inboxJournal).complete(trainingData1);
+        verify(inboxJournal).complete(trainingData2);
+        verify(mailNotificationService, never()).notifyError(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    public void testThatExistingCoursesAreNotBatched() {
+        ZLSOSTEVASYSRFC trainingData = createTrainingData("1", "1", "1");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData);
+
+        when(evasysMockService.courseExists(eq(1), any())).thenReturn(true);
+
+        createService(ProcessingProperties.Mode.SEQUENTIAL, 10).processTrainingRequest(trainingRequest);
+
+        verify(evasysMockService).updateCourse(eq(trainingData), any());
+        verify(evasysMockService, never()).insertCourses(any(), any());
+    }
+
+    @Test
+    public void testThatBatchFailuresAreReportedPerTraining() {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("2", "1", "2");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2);
+
+        EvasysException failure = new EvasysException("Upload error while inserting course 2");
+        when(evasysMockService.insertCourses(any(), any())).thenReturn(Map.of("2", failure));
+
+        createService(ProcessingProperties.Mode.SEQUENTIAL, 10).processTrainingRequest(trainingRequest);
+
+        verify(metricsService).recordEvent(EventType.COURSE_PROCESSED);
+        verify(metricsService).recordEvent(EventType.COURSE_PROCESSING_FAILED);
+        verify(mailNotificationService).notifyError("Course processing failed", failure.getMessage(), failure, trainingData2);
+        verify(mailNotificationService, never()).notifyError(any(), any(), any(), eq(trainingData1));
+    }
+
+    @Test
+    public void testThatCoursesAreInsertedOneByOneWhenBatchFails() {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("2", "1", "2");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2);
+
+        when(evasysMockService.insertCourses(any(), any())).thenThrow(new EvasysException("SOAP error while inserting courses"));
+
+        createService(ProcessingProperties.Mode.SEQUENTIAL, 10).processTrainingRequest(trainingRequest);
+
+        verify(evasysMockService).insertCourse(eq(trainingData1), any());
+        verify(evasysMockService).insertCourse(eq(trainingData2), any());
+        verify(metricsService, times(2)).recordEvent(EventType.COURSE_PROCESSED);
+    }
+
+    @Test
+    public void testThatLaterItemsOfBatchedCourseUpdateIt() {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        trainingData1.setTRAININGTITEL("Erster Titel");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("1", "1", "1");
+        trainingData2.setTRAININGTITEL("Zweiter Titel");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2);
+        AtomicBoolean inserted = new AtomicBoolean();
+
+        when(evasysMockService.courseExists(eq(1), any())).thenAnswer(invocation -> inserted.get());
+        when(evasysMockService.insertCourses(any(), any())).thenAnswer(invocation -> {
+            inserted.set(true);
+            return Map.of();
+        });
+        when(evasysMockService.updateCourse(any(), any())).thenReturn(true);
+
+        createService(ProcessingProperties.Mode.SEQUENTIAL, 10).processTrainingRequest(trainingRequest);
+
+        verify(evasysMockService).insertCourses(eq(List.of(trainingData1)), any());
+        ArgumentCaptor<ZLSOSTEVASYSRFC> updated = ArgumentCaptor.forClass(ZLSOSTEVASYSRFC.class);
+        verify(evasysMockService).updateCourse(updated.capture(), any());
+        assertEquals("Zweiter Titel", updated.getValue().getTRAININGTITEL());
+        verify(evasysMockService, never()).insertCourse(any(), any());
+        verify(metricsService, times(2)).recordEvent(EventType.TRAINING_PROCESSED);
+        verify(fingerprintStore).markApplied(trainingData2);
+        verify(inboxJournal).complete(trainingData2);
+    }
+
+    @Test
+    public void testThatSkippedUpdatesAreCounted() {
+        ZLSOSTEVASYSRFC trainingData = createTrainingData("1", "1", "1");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData);
+
+        when(evasysMockService.trainerExists("1", 1)).thenReturn(true);
+        when(evasysMockService.updateTrainer(trainingData)).thenReturn(false);
+        when(evasysMockService.courseExists(eq(1), any())).thenReturn(true);
+        when(evasysMockService.updateCourse(eq(trainingData), any())).thenReturn(true);
+
+        trainingProcessorService.processTrainingRequest(trainingRequest);
+
+        verify(metricsService).recordEvent(EventType.TRAINER_UPDATE_SKIPPED);
+        verify(metricsService, never()).recordEvent(EventType.COURSE_UPDATE_SKIPPED);
+        verify(metricsService).recordEvent(EventType.TRAINING_PROCESSED);
+    }
+
+    @Test
+    public void testThatAlreadyAppliedTrainingIsSkipped() {
+        ZLSOSTEVASYSRFC trainingData = createTrainingData("1", "1", "1");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData);
+
+        when(fingerprintStore.isApplied(trainingData)).thenReturn(true);
+
+        trainingProcessorService.processTrainingRequest(trainingRequest);
+
+        verify(normalizationService).normalize(trainingData);
+        verify(evasysMockService, never()).trainerExists(anyString(), anyInt());
+        verify(evasysMockService, never()).courseExists(anyInt(), any());
+        verify(metricsService).recordEvent(EventType.TRAINING_DUPLICATE_SKIPPED);
+        verify(inboxJournal).complete(trainingData);
+    }
+
+    @Test
+    public void testThatOnlyFullyProcessedTrainingsAreMarkedAsApplied() {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("2", "1", "2");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2);
+
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0) == trainingData2) {
+                throw new EvasysException("Insert failed");
+            }
+            return null;
+        }).when(evasysMockService).insertTrainer(any());
+
+        trainingProcessorService.processTrainingRequest(trainingRequest);
+
+        verify(fingerprintStore).markApplied(trainingData1);
+        verify(fingerprintStore, never()).markApplied(trainingData2);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ProcessingProperties.Mode.class)
+    public void testThatCoalescedTrainersAreUpsertedOncePerBatch(ProcessingProperties.Mode mode) {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        trainingData1.setTRAINER1VNAME("Max");
+        trainingData1.setTRAINER1MAIL("max@example.com");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("1", "1", "2");
+        trainingData2.setTRAINER1MAIL("max.mustermann@example.com");
+        ZLSOSTEVASYSRFC trainingData3 = createTrainingData("3", "1", "3");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2, trainingData3);
+
+        when(evasysMockService.extractSecondaryTrainers(trainingData1))
+                .thenReturn(List.of(new SecondaryTrainer("2", "", "Dr.", "Erika", "Musterfrau", "")));
+        when(evasysMockService.extractSecondaryTrainers(trainingData2)).thenReturn(List.of());
+        when(evasysMockService.extractSecondaryTrainers(trainingData3))
+                .thenReturn(List.of(new SecondaryTrainer("2", "", "", "", "Mustermann", "erika@example.com")));
+        when(evasysMockService.trainerExists(anyString(), eq(1))).thenReturn(true);
+
+        createCoalescingService(mode).processTrainingRequest(trainingRequest);
+
+        ArgumentCaptor<ZLSOSTEVASYSRFC> trainer = ArgumentCaptor.forClass(ZLSOSTEVASYSRFC.class);
+        verify(evasysMockService, times(2)).updateTrainer(trainer.capture());
+        // distinct trainers are upserted in parallel in parallel mode
+        Map<String, ZLSOSTEVASYSRFC> updatedTrainers = trainer.getAllValues().stream()
+                .collect(Collectors.toMap(ZLSOSTEVASYSRFC::getTRAINER1ID, Function.identity()));
+        assertEquals(Set.of("1", "3"), updatedTrainers.keySet());
+        assertEquals("Max", updatedTrainers.get("1").getTRAINER1VNAME());
+        assertEquals("max.mustermann@example.com", updatedTrainers.get("1").getTRAINER1MAIL());
+        verify(evasysMockService).updateSecondaryTrainer(
+                new SecondaryTrainer("2", "", "Dr.", "Erika", "Mustermann", "erika@example.com"));
+        verify(evasysMockService, times(3)).trainerExists(anyString(), eq(1));
+        verify(metricsService, times(3)).recordEvent(EventType.TRAINER_PROCESSED);
+        verify(metricsService, times(2)).recordEvent(EventType.SECONDARY_TRAINER_PROCESSED);
+        verify(evasysMockService, times(3)).insertCourse(any(), any());
+    }
+
+    @Test
+    public void testThatCoalescedTrainersAreUpsertedBeforeCourses() {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("2", "1", "2");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2);
+
+        createCoalescingService(ProcessingProperties.Mode.SEQUENTIAL).processTrainingRequest(trainingRequest);
+
+        InOrder inOrder = inOrder(evasysMockService);
+        inOrder.verify(evasysMockService, times(2)).insertTrainer(any());
+        inOrder.verify(evasysMockService).insertCourse(eq(trainingData1), any());
+        inOrder.verify(evasysMockService).insertCourse(eq(trainingData2), any());
+    }
+
+    @Test
+    public void testThatCoalescedTrainerFailureIsReportedForEveryItem() {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("2", "1", "2");
+        ZLSOSTEVASYSRFC trainingData3 = createTrainingData("1", "1", "3");
+        ZLSOSTEVASYSRFC invalidSubunit = createTrainingData("1", "x", "4");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2, trainingData3, invalidSubunit);
+
+        doAnswer(invocation -> {
+            if ("1".equals(invocation.<ZLSOSTEVASYSRFC>getArgument(0).getTRAINER1ID())) {
+                throw new EvasysException("Insert failed");
+            }
+            return null;
+        }).when(evasysMockService).insertTrainer(any());
+
+        createCoalescingService(ProcessingProperties.Mode.SEQUENTIAL).processTrainingRequest(trainingRequest);
+
+        verify(evasysMockService, times(2)).insertTrainer(any());
+        for (ZLSOSTEVASYSRFC failed : List.of(trainingData1, trainingData3)) {
+            verify(mailNotificationService).notifyError(
+                    eq("Trainer processing failed"), eq("Insert failed"), any(EvasysException.class), eq(failed));
+        }
+        verify(mailNotificationService).notifyError(
+                eq("Trainer processing failed"), eq("Invalid TEILBEREICHID: x"), any(EvasysException.class), eq(invalidSubunit));
+        verify(metricsService, times(3)).recordEvent(EventType.TRAINER_PROCESSING_FAILED);
+        verify(metricsService).recordEvent(EventType.TRAINER_PROCESSED);
+        verify(fingerprintStore).markApplied(trainingData2);
+        verify(fingerprintStore, never()).markApplied(trainingData1);
+        verify(inboxJournal).complete(trainingData1);
+        verify(inboxJournal).complete(trainingData2);
+        verify(inboxJournal).complete(trainingData3);
+        verify(inboxJournal).complete(invalidSubunit);
+    }
+
+    @Test
+    public void testThatUnexpectedCoalescingFailureIsReportedForItsItem() {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("2", "1", "2");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2);
+
+        when(evasysMockService.extractSecondaryTrainers(any())).thenAnswer(invocation -> {
+            if (invocation.getArgument(0) == trainingData1) {
+                throw new IllegalArgumentException("Invalid SEKTRAINERID");
+            }
+            return List.of();
+        });
+
+        createCoalescingService(ProcessingProperties.Mode.SEQUENTIAL).processTrainingRequest(trainingRequest);
+
+        verify(mailNotificationService).notifyError(
+                eq("Trainer processing failed"), eq("Trainers of training 1 could not be determined: Invalid SEKTRAINERID"),
+                any(EvasysException.class), eq(trainingData1));
+        verify(evasysMockService).insertCourse(eq(trainingData2), any());
+        verify(inboxJournal).complete(trainingData1);
+        verify(inboxJournal).complete(trainingData2);
+    }
+
+    @Test
+    public void testThatSkippedItemsAreNotCoalesced() {
+        ZLSOSTEVASYSRFC trainingData1 = createTrainingData("1", "1", "1");
+        ZLSOSTEVASYSRFC trainingData2 = createTrainingData("2", "1", "2");
+        ZLSOEVASYSRFC trainingRequest = createRequestWithItems(trainingData1, trainingData2);
+
+        when(fingerprintStore.isApplied(trainingData1)).thenReturn(true);
+
+        createCoalescingService(ProcessingProperties.Mode.SEQUENTIAL).processTrainingRequest(trainingRequest);
+
+        verify(evasysMockService).insertTrainer(any());
+        verify(evasysMockService, never()).trainerExists(eq("1"), anyInt());
+        verify(inboxJournal).complete(trainingData1);
+        verify(metricsService, times(2)).itemFinished(anyLong());
+    }
 }
@@ -0,0 +1,231 @@
+package de.muenchen.evasys.stub;
+
+import jakarta.xml.ws.Holder;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.xml.namespace.QName;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.binding.soap.SoapMessage;
+import org.apache.cxf.binding.soap.interceptor.AbstractSoapInterceptor;
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.headers.Header;
+import org.apache.cxf.jaxws.JaxWsServerFactoryBean;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.transport.servlet.CXFNonSpringServlet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.FileSystemUtils;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import wsdl.soapserver_v100.Course;
+import wsdl.soapserver_v100.CourseCreatorList;
+import wsdl.soapserver_v100.CourseIdType;
+import wsdl.soapserver_v100.CourseParams;
+import wsdl.soapserver_v100.SoapPort;
+import wsdl.soapserver_v100.Soapserver;
+import wsdl.soapserver_v100.User;
+import wsdl.soapserver_v100.UserIdType;
+
+// local stand-in for evasys: serves the evasys WSDL over HTTP on an embedded Tomcat and
+// answers the operations used by the EAI from an in-memory store, see docs/development.md
+public final class EvasysStubServer implements AutoCloseable {
+
+    // Login and Password of the evasys SOAP header received last
+    public record Credentials(String login, String password) {
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EvasysStubServer.class);
+
+    private static final String PATH = "/evasys";
+    private static final QName AUTH_HEADER = new QName("soapserver-v100.wsdl", "Header");
+
+    private final EvasysStubStore store = new EvasysStubStore();
+    private final StubBehaviour behaviour;
+    private final Map<StubOperation, AtomicLong> invocations = new EnumMap<>(StubOperation.class);
+    private final Path baseDir;
+    private final Tomcat tomcat;
+    private final Bus bus;
+    private final Server server;
+    private volatile Credentials lastCredentials;
+
+    private EvasysStubServer(final int port, final StubBehaviour behaviour) throws IOException, LifecycleException {
+        this.behaviour = behaviour;
+        for (final StubOperation operation : StubOperation.values()) {
+            invocations.put(operation, new AtomicLong());
+        }
+        this.baseDir = Files.createTempDirectory("evasys-stub");
+
+        // a bus of its own keeps the stub's endpoint out of the default bus used by clients
+        final Bus defaultBus = BusFactory.getThreadDefaultBus(false);
+        this.bus = BusFactory.newInstance().createBus();
+        BusFactory.setThreadDefaultBus(defaultBus);
+
+        final JaxWsServerFactoryBean factory = new JaxWsServerFactoryBean();
+        factory.setBus(bus);
+        factory.setServiceClass(SoapPort.class);
+        factory.setServiceBean(Proxy.newProxyInstance(
+                SoapPort.class.getClassLoader(), new Class<?>[] { SoapPort.class }, new StubInvocationHandler()));
+        // the RPC body namespace of evasys differs from its target namespace, so the
+        // service model has to come from the WSDL rather than from the annotations
+        factory.setWsdlLocation(Soapserver.WSDL_LOCATION.toString());
+        factory.setServiceName(Soapserver.SERVICE);
+        factory.setEndpointName(Soapserver.SoapPort);
+        factory.setAddress(PATH);
+        factory.getInInterceptors().add(new AuthHeaderInterceptor());
+        this.server = factory.create();
+
+        final CXFNonSpringServlet servlet = new CXFNonSpringServlet();
+        servlet.setBus(bus);
+        this.tomcat = new Tomcat();
+        tomcat.setBaseDir(baseDir.toString());
+        tomcat.setPort(port);
+        final Context context = tomcat.addContext("", baseDir.toString());
+        Tomcat.addServlet(context, "cxf", servlet);
+        context.addServletMappingDecoded("/*", "cxf");
+        tomcat.getConnector();
+        tomcat.start();
+    }
+
+    public static EvasysStubServer start() {
+        return start(0, new StubBehaviour());
+    }
+
+    // port 0 picks a free port
+    public static EvasysStubServer start(final int port, final StubBehaviour behaviour) {
+        try {
+            return new EvasysStubServer(port, behaviour);
+        } catch (IOException | LifecycleException e) {
+            throw new IllegalStateException("Failed to start evasys stub", e);
+        }
+    }
+
+    public String address() {
+        return "http://localhost:" + tomcat.getConnector().getLocalPort() + PATH;
+    }
+
+    public EvasysStubStore store() {
+        return store;
+    }
+
+    public StubBehaviour behaviour() {
+        return behaviour;
+    }
+
+    public long invocations(final StubOperation operation) {
+        return invocations.get(operation).get();
+    }
+
+    public Credentials lastCredentials() {
+        return lastCredentials;
+    }
+
+    @Override
+    public void close() {
+        try {
+            tomcat.stop();
+            tomcat.destroy();
+        } catch (LifecycleException e) {
+            throw new IllegalStateException("Failed to stop evasys stub", e);
+        } finally {
+            server.destroy();
+            bus.shutdown(true);
+            FileSystemUtils.deleteRecursively(baseDir.toFile());
+        }
+    }
+
+    public static void main(final String[] args) throws InterruptedException {
+        final int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        final EvasysStubServer stub = start(port, new StubBehaviour()
+                .defaultLatency(LatencyDistribution.logNormal(
+                        Duration.ofMillis(40), Duration.ofMillis(400))));
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::close));
+        LOGGER.info("evasys stub listening on {}", stub.address());
+        Thread.currentThread().join();
+    }
+
+    private final class AuthHeaderInterceptor extends AbstractSoapInterceptor {
+
+        AuthHeaderInterceptor() {
+            super(Phase.PRE_INVOKE);
+        }
+
+        @Override
+        public void handleMessage(final SoapMessage message) {
+            final Header header = message.getHeader(AUTH_HEADER);
+            if (header != null && header.getObject() instanceof Element element) {
+                lastCredentials = new Credentials(childText(element, "Login"), childText(element, "Password"));
+            }
+        }
+
+        private static String childText(final Element element, final String name) {
+            final NodeList children = element.getElementsByTagNameNS(AUTH_HEADER.getNamespaceURI(), name);
+            return children.getLength() > 0 ? children.item(0).getTextContent() : null;
+        }
+    }
+
+    private final class StubInvocationHandler implements InvocationHandler {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Exception {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> "EvasysStub";
+                };
+            }
+            final StubOperation operation = StubOperation.forMethod(method.getName());
+            if (operation == null) {
+                throw new UnsupportedOperationException("evasys stub does not implement " + method.getName());
+            }
+            invocations.get(operation).incrementAndGet();
+
+            final long latency = behaviour.sampleLatencyMillis(operation);
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+            final String injectedFault = behaviour.sampleFault(operation);
+            if (injectedFault != null) {
+                throw EvasysStubStore.fault(injectedFault, "Injected by evasys stub");
+            }
+
+            return switch (operation) {
+            case GET_USERS_BY_SUBUNIT -> store.getUsersBySubunit((Integer) args[0]);
+            case GET_USER_BY_ID_CONSIDER_EXTERNAL_ID -> store.getUserById((String) args[0], (UserIdType) args[1]);
+            case INSERT_USER -> {
+                final Holder<User> user = (Holder<User>) args[0];
+                user.value = store.insertUser(user.value);
+                yield null;
+            }
+            case UPDATE_USER -> {
+                final Holder<User> user = (Holder<User>) args[0];
+                user.value = store.updateUser(user.value);
+                yield null;
+            }
+            case GET_SUBUNIT -> store.getSubunit((String) args[0]);
+            case GET_COURSE -> store.getCourse((String) args[0], (CourseIdType) args[1]);
+            case GET_COURSE_IDS_BY_PARAMS -> store.getCourseIdsByParams((CourseParams) args[0]);
+            case INSERT_COURSE -> store.insertCourse((Course) args[0]);
+            case INSERT_COURSES -> store.insertCourses((CourseCreatorList) args[0]);
+            case UPDATE_COURSE -> {
+                final Holder<Course> course = (Holder<Course>) args[0];
+                course.value = store.updateCourse(course.value);
+                yield null;
+            }
+            };
+        }
+    }
+}
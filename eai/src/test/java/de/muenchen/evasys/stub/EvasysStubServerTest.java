@@ -0,0 +1,227 @@
+package de.muenchen.evasys.stub;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sap.document.sap.rfc.functions.ZLSOSTEVASYSRFC;
+import de.muenchen.evasys.client.CourseLookup;
+import de.muenchen.evasys.client.EvasysCourseClient;
+import de.muenchen.evasys.client.EvasysUserClient;
+import de.muenchen.evasys.client.SoapExecutor;
+import de.muenchen.evasys.client.TrainerDirectoryCache;
+import de.muenchen.evasys.configuration.CircuitBreakerProperties;
+import de.muenchen.evasys.configuration.ConcurrencyLimitProperties;
+import de.muenchen.evasys.configuration.EvasysClientConfiguration;
+import de.muenchen.evasys.configuration.EvasysProperties;
+import de.muenchen.evasys.configuration.HttpTransportProperties;
+import de.muenchen.evasys.configuration.RateLimitProperties;
+import de.muenchen.evasys.configuration.RetryProperties;
+import de.muenchen.evasys.configuration.TrainerDirectoryProperties;
+import de.muenchen.evasys.exception.EvasysException;
+import de.muenchen.evasys.mapper.SapEvasysMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mapstruct.factory.Mappers;
+import wsdl.soapserver_v100.Course;
+import wsdl.soapserver_v100.CourseIdType;
+import wsdl.soapserver_v100.SoapPort;
+import wsdl.soapserver_v100.SoapfaultMessage;
+import wsdl.soapserver_v100.SubunitIdType;
+import wsdl.soapserver_v100.Unit;
+import wsdl.soapserver_v100.User;
+
+class EvasysStubServerTest {
+
+    private static EvasysStubServer stub;
+    private static SoapPort soapPort;
+
+    private EvasysUserClient userClient;
+    private EvasysCourseClient courseClient;
+
+    @BeforeAll
+    static void startStub() {
+        stub = EvasysStubServer.start(0, new StubBehaviour(42));
+        soapPort = createSoapPort("user", false);
+    }
+
+    private static SoapPort createSoapPort(final String username, final boolean streamingAuthHeader) {
+        return createSoapPort(username, streamingAuthHeader, EvasysProperties.ServiceModel.WSDL);
+    }
+
+    private static SoapPort createSoapPort(final String username, final boolean streamingAuthHeader,
+            final EvasysProperties.ServiceModel serviceModel) {
+        final HttpTransportProperties httpProperties = new HttpTransportProperties(true, Duration.ofHours(1));
+        return new EvasysClientConfiguration().evasysSoapPort(
+                new EvasysProperties(stub.address(), username, "password", Duration.ofSeconds(5), Duration.ofSeconds(5), "1",
+                        streamingAuthHeader, serviceModel),
+                httpProperties);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @BeforeEach
+    void setup() {
+        stub.store().clear();
+        stub.behaviour().reset();
+        final SapEvasysMapper mapper = Mappers.getMapper(SapEvasysMapper.class);
+        final SoapExecutor soapExecutor = new SoapExecutor(new SimpleMeterRegistry(),
+                new CircuitBreakerProperties(false, 5, Duration.ofSeconds(30)),
+                new ConcurrencyLimitProperties(false, 4, 1, 10, Duration.ofSeconds(5), 0.9, Duration.ofSeconds(30)),
+                new RetryProperties(false, 3, Duration.ofMillis(200), Duration.ofSeconds(5), 0.2, 10),
+                new RateLimitProperties(false, 10, 5, 10, Duration.ofSeconds(30), 0, Duration.ofMinutes(5)));
+        userClient = new EvasysUserClient(soapPort, soapExecutor, mapper,
+                new TrainerDirectoryCache(new TrainerDirectoryProperties(false, Duration.ofMinutes(10), 100, 3)));
+        courseClient = new EvasysCourseClient(soapPort, soapExecutor, mapper, userClient);
+    }
+
+    private ZLSOSTEVASYSRFC createTrainingData(final String trainingId) {
+        final ZLSOSTEVASYSRFC trainingData = new ZLSOSTEVASYSRFC();
+        trainingData.setTRAININGID(trainingId);
+        trainingData.setTRAININGTITEL("Konfliktmanagement");
+        trainingData.setTRAININGART("1");
+        trainingData.setTRAININGTNANZAHL("12");
+        trainingData.setTEILBEREICHID("3");
+        trainingData.setTRAINER1ID("1001");
+        trainingData.setTRAINER1ANREDE("2");
+        trainingData.setTRAINER1VNAME("Änne");
+        trainingData.setTRAINER1NNAME("Müller");
+        trainingData.setTRAINER1MAIL("aenne.mueller@muenchen.de");
+        return trainingData;
+    }
+
+    @Test
+    void testTrainerRoundTripOverHttp() {
+        final ZLSOSTEVASYSRFC trainingData = createTrainingData("10");
+
+        assertFalse(userClient.isTrainerExisting("1001", 3));
+        userClient.insertTrainer(trainingData);
+
+        assertTrue(userClient.isTrainerExisting("1001", 3));
+        final User trainer = userClient.getUserByExternalIdAndSubunit("1001", "3");
+        assertEquals("Müller", trainer.getMSSurName());
+
+        trainingData.setTRAINER1NNAME("Huber");
+        assertTrue(userClient.updateTrainer(trainingData));
+        assertEquals("Huber", stub.store().users().getFirst().getMSSurName());
+        assertFalse(userClient.updateTrainer(trainingData));
+    }
+
+    @Test
+    void testCourseRoundTripOverHttp() {
+        final ZLSOSTEVASYSRFC trainingData = createTrainingData("10");
+        userClient.insertTrainer(trainingData);
+
+        assertFalse(courseClient.isCourseExisting(10));
+        courseClient.insertCourse(trainingData);
+        assertTrue(courseClient.isCourseExisting(10));
+
+        // a second insert answers ERR_313, which the client treats as success
+        courseClient.insertCourse(trainingData);
+        assertEquals(1, stub.store().courses().size());
+
+        trainingData.setTRAININGTITEL("Konfliktmanagement II");
+        assertTrue(courseClient.updateCourse(trainingData));
+        final Course course = courseClient.getCourse(10);
+        assertEquals("Konfliktmanagement II", course.getMSCourseTitle());
+        assertEquals(stub.store().users().getFirst().getMNId(), course.getMNUserId());
+    }
+
+    @Test
+    void testInsertCoursesReportsStatusPerCourse() {
+        final ZLSOSTEVASYSRFC existing = createTrainingData("11");
+        userClient.insertTrainer(existing);
+        courseClient.insertCourse(existing);
+
+        final Map<String, EvasysException> failures = courseClient.insertCourses(
+                List.of(createTrainingData("11"), createTrainingData("12")));
+
+        assertTrue(failures.isEmpty());
+        assertEquals(2, stub.store().courses().size());
+        assertTrue(courseClient.isCourseExisting(12));
+        assertEquals(1, stub.invocations(StubOperation.INSERT_COURSES));
+    }
+
+    @Test
+    void testCourseIndexAnswersExistenceWithoutGetCourse() {
+        stub.store().addSubunit(3, "Teilbereich 3");
+        final ZLSOSTEVASYSRFC existing = createTrainingData("11");
+        userClient.insertTrainer(existing);
+        courseClient.insertCourse(existing);
+        final ZLSOSTEVASYSRFC missing = createTrainingData("12");
+
+        final long getCourseCalls = stub.invocations(StubOperation.GET_COURSE);
+        final CourseLookup courses = new CourseLookup();
+        courseClient.indexCourses(List.of(existing, missing), courses, 2);
+
+        assertTrue(courseClient.isCourseExisting(11, courses));
+        assertFalse(courseClient.isCourseExisting(12, courses));
+        assertEquals(1, stub.invocations(StubOperation.GET_COURSE_IDS_BY_PARAMS));
+        // the stub server is shared by all tests, so only the calls made here are counted
+        assertEquals(getCourseCalls, stub.invocations(StubOperation.GET_COURSE));
+    }
+
+    @Test
+    void testMissingCourseIsReportedAsNotFound() {
+        final EvasysException exception = assertThrows(EvasysException.class, () -> courseClient.getCourse(99));
+
+        assertEquals("No course found for the given id 99", exception.getMessage());
+    }
+
+    @Test
+    void testInjectedFaultReachesClient() {
+        userClient.insertTrainer(createTrainingData("10"));
+        stub.behaviour().fault(StubOperation.GET_USERS_BY_SUBUNIT, EvasysStubStore.ERR_NO_USERS_FOUND, 1.0);
+
+        final EvasysException exception = assertThrows(EvasysException.class, () -> userClient.getUsersBySubunit(3));
+
+        assertEquals("No users found in the given subunit", exception.getMessage());
+    }
+
+    @Test
+    void testConfiguredLatencyDelaysResponses() {
+        stub.behaviour().latency(StubOperation.GET_SUBUNIT, LatencyDistribution.fixed(Duration.ofMillis(200)));
+
+        final long start = System.nanoTime();
+        assertEquals("Teilbereich 3", courseClient.getSubunitName("3"));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 200);
+    }
+
+    @Test
+    void testAuthHeaderIsSentByHandlerAndInterceptor() throws Exception {
+        stub.store().addSubunit(3, "Personal- und Organisationsreferat");
+
+        createSoapPort("handler-user", false).getSubunit("3", SubunitIdType.INTERNAL, false);
+        assertEquals(new EvasysStubServer.Credentials("handler-user", "password"), stub.lastCredentials());
+
+        createSoapPort("streaming-user", true).getSubunit("3", SubunitIdType.INTERNAL, false);
+        assertEquals(new EvasysStubServer.Credentials("streaming-user", "password"), stub.lastCredentials());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    void testServiceModelFromAnnotationsTalksToEvasys(final boolean streamingAuthHeader) throws Exception {
+        stub.store().addSubunit(3, "Personal- und Organisationsreferat");
+        final SoapPort annotatedPort = createSoapPort("annotated-user", streamingAuthHeader, EvasysProperties.ServiceModel.ANNOTATIONS);
+
+        final Unit subunit = annotatedPort.getSubunit("3", SubunitIdType.INTERNAL, false);
+        assertEquals("Personal- und Organisationsreferat", subunit.getMSName());
+        assertEquals(new EvasysStubServer.Credentials("annotated-user", "password"), stub.lastCredentials());
+
+        final SoapfaultMessage fault = assertThrows(SoapfaultMessage.class, () -> annotatedPort.getCourse("99", CourseIdType.PUBLIC, false, false));
+        assertEquals(EvasysStubStore.ERR_COURSE_NOT_FOUND, fault.getFaultInfo().getSErrorMessage());
+    }
+}
@@ -0,0 +1,251 @@
+package de.muenchen.evasys.stub;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ArrayNode;
+import wsdl.soapserver_v100.Course;
+import wsdl.soapserver_v100.CourseCreator;
+import wsdl.soapserver_v100.CourseCreatorList;
+import wsdl.soapserver_v100.CourseIdType;
+import wsdl.soapserver_v100.CourseParams;
+import wsdl.soapserver_v100.Instructor;
+import wsdl.soapserver_v100.SoapfaultMessage;
+import wsdl.soapserver_v100.StringList;
+import wsdl.soapserver_v100.TSoapfault;
+import wsdl.soapserver_v100.Unit;
+import wsdl.soapserver_v100.UploadStatus;
+import wsdl.soapserver_v100.UploadStatusList;
+import wsdl.soapserver_v100.User;
+import wsdl.soapserver_v100.UserIdType;
+import wsdl.soapserver_v100.UserList;
+
+// in-memory users, courses and subunits with the lookup and error semantics of evasys
+public class EvasysStubStore {
+
+    public static final String ERR_USER_NOT_FOUND = "ERR_302";
+    public static final String ERR_NO_USERS_FOUND = "ERR_305";
+    public static final String ERR_COURSE_NOT_FOUND = "ERR_312";
+    public static final String ERR_COURSE_ALREADY_EXISTS = "ERR_313";
+
+    private static final String UPLOAD_OK = "1";
+    private static final ObjectMapper JSON_MAPPER = JsonMapper.builder().build();
+
+    private final Map<Integer, User> users = new LinkedHashMap<>();
+    private final Map<Integer, Course> courses = new LinkedHashMap<>();
+    private final Map<Integer, String> subunitNames = new HashMap<>();
+    private int nextUserId = 1;
+    private int nextCourseId = 1;
+
+    /* ---- test data ---- */
+
+    public synchronized User addUser(final User user) {
+        user.setMNId(nextUserId++);
+        users.put(user.getMNId(), user);
+        return user;
+    }
+
+    public synchronized Course addCourse(final Course course) {
+        course.setMNCourseId(nextCourseId++);
+        courses.put(course.getMNCourseId(), course);
+        return course;
+    }
+
+    public synchronized void addSubunit(final int subunitId, final String name) {
+        subunitNames.put(subunitId, name);
+    }
+
+    public synchronized List<User> users() {
+        return List.copyOf(users.values());
+    }
+
+    public synchronized List<Course> courses() {
+        return List.copyOf(courses.values());
+    }
+
+    public synchronized void clear() {
+        users.clear();
+        courses.clear();
+        subunitNames.clear();
+        nextUserId = 1;
+        nextCourseId = 1;
+    }
+
+    /* ---- users ---- */
+
+    synchronized UserList getUsersBySubunit(final int subunitId) throws SoapfaultMessage {
+        final UserList result = userList(user -> Objects.equals(user.getMNFbid(), subunitId));
+        if (result.getUsers().isEmpty()) {
+            throw fault(ERR_NO_USERS_FOUND, "No users found in subunit " + subunitId);
+        }
+        return result;
+    }
+
+    synchronized UserList getUserById(final String userId, final UserIdType idType) throws SoapfaultMessage {
+        final UserList result = idType == UserIdType.EXTERNAL
+                ? userList(user -> Objects.equals(user.getMSExternalId(), userId))
+                : userList(user -> String.valueOf(user.getMNId()).equals(userId));
+        if (result.getUsers().isEmpty()) {
+            throw fault(ERR_USER_NOT_FOUND, "No user found for id " + userId);
+        }
+        return result;
+    }
+
+    synchronized User insertUser(final User user) {
+        return addUser(user);
+    }
+
+    synchronized User updateUser(final User user) throws SoapfaultMessage {
+        if (user.getMNId() == null || !users.containsKey(user.getMNId())) {
+            throw fault(ERR_USER_NOT_FOUND, "No user found for id " + user.getMNId());
+        }
+        users.put(user.getMNId(), user);
+        return user;
+    }
+
+    /* ---- subunits ---- */
+
+    synchronized Unit getSubunit(final String subunitId) {
+        final int id = Integer.parseInt(subunitId);
+        final Unit unit = new Unit();
+        unit.setMNId(id);
+        // subunits are static master data in evasys, so unknown ids get a generated name
+        // instead of forcing every test to register them
+        unit.setMSName(subunitNames.getOrDefault(id, "Teilbereich " + id));
+        return unit;
+    }
+
+    /* ---- courses ---- */
+
+    synchronized Course getCourse(final String courseId, final CourseIdType idType) throws SoapfaultMessage {
+        final Course course = findCourse(courseId, idType);
+        if (course == null) {
+            throw fault(ERR_COURSE_NOT_FOUND, "No course found for id " + courseId);
+        }
+        return course;
+    }
+
+    // only the subunit filter is supported; the extended answer is one JSON array of the courses
+    // with their ID and course code, the plain answer lists the course IDs
+    synchronized StringList getCourseIdsByParams(final CourseParams params) {
+        final List<Course> matching = courses.values().stream()
+                .filter(course -> params.getSubunits() == null
+                        || params.getSubunits().getStrings().contains(String.valueOf(course.getMNFbid())))
+                .toList();
+        final StringList result = new StringList();
+        if (Boolean.TRUE.equals(params.isExtendedResponseAsJSON())) {
+            final ArrayNode json = JSON_MAPPER.createArrayNode();
+            for (final Course course : matching) {
+                json.addObject()
+                        .put("CourseId", course.getMNCourseId())
+                        .put("CourseCode", course.getMSPubCourseId());
+            }
+            result.getStrings().add(json.toString());
+        } else {
+            matching.forEach(course -> result.getStrings().add(String.valueOf(course.getMNCourseId())));
+        }
+        return result;
+    }
+
+    synchronized Course insertCourse(final Course course) throws SoapfaultMessage {
+        if (findCourse(course.getMSPubCourseId(), CourseIdType.PUBLIC) != null) {
+            throw fault(ERR_COURSE_ALREADY_EXISTS, "Course " + course.getMSPubCourseId() + " already exists");
+        }
+        return addCourse(course);
+    }
+
+    synchronized UploadStatusList insertCourses(final CourseCreatorList courseCreators) {
+        final UploadStatusList result = new UploadStatusList();
+        for (final CourseCreator creator : courseCreators.getCourseCreators()) {
+            final UploadStatus status = new UploadStatus();
+            status.setCourseUid(creator.getCourseUid());
+            if (findCourse(creator.getCourseUid(), CourseIdType.PUBLIC) != null) {
+                status.setStatusId(ERR_COURSE_ALREADY_EXISTS);
+                status.setStatusMessage("Course " + creator.getCourseUid() + " already exists");
+            } else {
+                addCourse(toCourse(creator));
+                status.setStatusId(UPLOAD_OK);
+                status.setStatusMessage("Course created");
+            }
+            result.getUploadStatus().add(status);
+        }
+        return result;
+    }
+
+    synchronized Course updateCourse(final Course course) throws SoapfaultMessage {
+        if (course.getMNCourseId() == null || !courses.containsKey(course.getMNCourseId())) {
+            throw fault(ERR_COURSE_NOT_FOUND, "No course found for id " + course.getMNCourseId());
+        }
+        courses.put(course.getMNCourseId(), course);
+        return course;
+    }
+
+    private Course findCourse(final String courseId, final CourseIdType idType) {
+        for (final Course course : courses.values()) {
+            final String id = idType == CourseIdType.PUBLIC
+                    ? course.getMSPubCourseId()
+                    : String.valueOf(course.getMNCourseId());
+            if (Objects.equals(id, courseId)) {
+                return course;
+            }
+        }
+        return null;
+    }
+
+    private Course toCourse(final CourseCreator creator) {
+        final Course course = new Course();
+        course.setMSPubCourseId(creator.getCourseUid());
+        course.setMSCourseTitle(creator.getCourseName());
+        course.setMSProgramOfStudy(creator.getCourseProgramOfStudy());
+        course.setMSRoom(creator.getRoomName());
+        course.setMSCustomFieldsJSON(creator.getCustomFieldsJSON());
+        course.setHasAnonymousParticipants(Boolean.TRUE.equals(creator.isAnonymousParticipants()));
+        if (creator.getCourseType() != null) {
+            course.setMNCourseType(Integer.parseInt(creator.getCourseType()));
+        }
+        if (creator.getCourseEnrollment() != null) {
+            course.setMNCountStud(creator.getCourseEnrollment().getValue());
+        }
+        subunitNames.entrySet().stream()
+                .filter(entry -> entry.getValue().equals(creator.getSubunitName()))
+                .findFirst()
+                .ifPresent(entry -> course.setMNFbid(entry.getKey()));
+        if (creator.getInstructorList() != null) {
+            final List<User> instructors = new ArrayList<>();
+            for (final Instructor instructor : creator.getInstructorList().getInstructors()) {
+                users.values().stream()
+                        .filter(user -> Objects.equals(user.getMSExternalId(), instructor.getInstructorUid()))
+                        .findFirst()
+                        .ifPresent(instructors::add);
+            }
+            if (!instructors.isEmpty()) {
+                // the first instructor becomes the main instructor
+                course.setMNUserId(instructors.getFirst().getMNId());
+                final UserList secondary = new UserList();
+                secondary.getUsers().addAll(instructors.subList(1, instructors.size()));
+                course.setMAoSecondaryInstructors(secondary);
+            }
+        }
+        return course;
+    }
+
+    private UserList userList(final Predicate<User> filter) {
+        final UserList result = new UserList();
+        users.values().stream().filter(filter).forEach(result.getUsers()::add);
+        return result;
+    }
+
+    static SoapfaultMessage fault(final String errorCode, final String details) {
+        final TSoapfault faultInfo = new TSoapfault();
+        faultInfo.setSErrorCode(errorCode);
+        faultInfo.setSErrorMessage(errorCode);
+        faultInfo.setSDetails(details);
+        return new SoapfaultMessage(details, faultInfo);
+    }
+}
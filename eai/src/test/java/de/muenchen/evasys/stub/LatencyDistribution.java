@@ -0,0 +1,40 @@
+package de.muenchen.evasys.stub;
+
+import java.time.Duration;
+import java.util.random.RandomGenerator;
+
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    long sampleMillis(RandomGenerator random);
+
+    static LatencyDistribution none() {
+        return random -> 0;
+    }
+
+    static LatencyDistribution fixed(final Duration latency) {
+        final long millis = latency.toMillis();
+        return random -> millis;
+    }
+
+    static LatencyDistribution uniform(final Duration min, final Duration max) {
+        final long minMillis = min.toMillis();
+        final long maxMillis = max.toMillis();
+        if (maxMillis < minMillis) {
+            throw new IllegalArgumentException("max must not be less than min");
+        }
+        return random -> random.nextLong(minMillis, maxMillis + 1);
+    }
+
+    // response times of evasys are right-skewed, a log-normal distribution fitted to the
+    // median and the 99th percentile reproduces the long tail
+    static LatencyDistribution logNormal(final Duration median, final Duration p99) {
+        if (p99.compareTo(median) < 0 || median.isNegative() || median.isZero()) {
+            throw new IllegalArgumentException("p99 must not be less than a positive median");
+        }
+        final double mu = Math.log(median.toMillis());
+        // 2.326 is the z-score of the 99th percentile of the standard normal distribution
+        final double sigma = (Math.log(p99.toMillis()) - mu) / 2.326;
+        return random -> Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+    }
+}
@@ -0,0 +1,85 @@
+package de.muenchen.evasys.stub;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+// latency and fault injection of the stub, can be changed while the stub is running
+public class StubBehaviour {
+
+    record FaultRule(String errorCode, double rate) {
+    }
+
+    private final Map<StubOperation, LatencyDistribution> latencies = new ConcurrentHashMap<>();
+    private final Map<StubOperation, List<FaultRule>> faults = new ConcurrentHashMap<>();
+    private final RandomGenerator random;
+    private volatile LatencyDistribution defaultLatency = LatencyDistribution.none();
+
+    public StubBehaviour() {
+        this(RandomGeneratorFactory.getDefault().create());
+    }
+
+    // a seeded generator makes load and regression runs repeatable
+    public StubBehaviour(final long seed) {
+        this(RandomGeneratorFactory.getDefault().create(seed));
+    }
+
+    private StubBehaviour(final RandomGenerator random) {
+        this.random = random;
+    }
+
+    public StubBehaviour defaultLatency(final LatencyDistribution latency) {
+        this.defaultLatency = latency;
+        return this;
+    }
+
+    public StubBehaviour latency(final StubOperation operation, final LatencyDistribution latency) {
+        latencies.put(operation, latency);
+        return this;
+    }
+
+    // injects the given evasys error code into the given share (0..1) of the calls
+    public StubBehaviour fault(final StubOperation operation, final String errorCode, final double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("Fault rate must be between 0 and 1");
+        }
+        faults.computeIfAbsent(operation, key -> new CopyOnWriteArrayList<>()).add(new FaultRule(errorCode, rate));
+        return this;
+    }
+
+    public void reset() {
+        defaultLatency = LatencyDistribution.none();
+        latencies.clear();
+        faults.clear();
+    }
+
+    long sampleLatencyMillis(final StubOperation operation) {
+        final LatencyDistribution latency = latencies.getOrDefault(operation, defaultLatency);
+        synchronized (random) {
+            return Math.max(0, latency.sampleMillis(random));
+        }
+    }
+
+    // returns the error code to fail the call with, or null
+    String sampleFault(final StubOperation operation) {
+        final List<FaultRule> rules = faults.get(operation);
+        if (rules == null) {
+            return null;
+        }
+        final double sample;
+        synchronized (random) {
+            sample = random.nextDouble();
+        }
+        double threshold = 0;
+        for (final FaultRule rule : rules) {
+            threshold += rule.rate();
+            if (sample < threshold) {
+                return rule.errorCode();
+            }
+        }
+        return null;
+    }
+}
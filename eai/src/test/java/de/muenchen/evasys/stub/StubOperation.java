@@ -0,0 +1,38 @@
+package de.muenchen.evasys.stub;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// the evasys operations used by the EAI, keyed by the SoapPort method implementing them
+public enum StubOperation {
+
+    GET_USERS_BY_SUBUNIT("getUsersBySubunit"),
+    GET_USER_BY_ID_CONSIDER_EXTERNAL_ID("getUserByIdConsiderExternalID"),
+    INSERT_USER("insertUser"),
+    UPDATE_USER("updateUser"),
+    GET_SUBUNIT("getSubunit"),
+    GET_COURSE("getCourse"),
+    GET_COURSE_IDS_BY_PARAMS("getCourseIdsByParams"),
+    INSERT_COURSE("insertCourse"),
+    INSERT_COURSES("insertCourses"),
+    UPDATE_COURSE("updateCourse");
+
+    private static final Map<String, StubOperation> BY_METHOD = Arrays.stream(values())
+            .collect(Collectors.toUnmodifiableMap(StubOperation::methodName, Function.identity()));
+
+    private final String methodName;
+
+    StubOperation(final String methodName) {
+        this.methodName = methodName;
+    }
+
+    public String methodName() {
+        return methodName;
+    }
+
+    static StubOperation forMethod(final String methodName) {
+        return BY_METHOD.get(methodName);
+    }
+}